@@ -0,0 +1,7 @@
+rem Compiles the game into out\labyrinth.jar, which finds its libraries in LabyrinthGame\lib.
+rem Any class-data-sharing archive of an older build is deleted, as it no longer matches.
+if exist out\classes rmdir /s /q out\classes
+if exist out\labyrinth.jsa del out\labyrinth.jsa
+javac -classpath "LabyrinthGame/lib/*" -d out/classes LabyrinthGame/src/*.java || exit /b 1
+echo Class-Path: ../LabyrinthGame/lib/GameGraphics.jar ../LabyrinthGame/lib/json_simple-1.1.jar ../LabyrinthGame/lib/jl1.0.1.jar> out\MANIFEST.MF
+jar --create --file out/labyrinth.jar --main-class Driver --manifest out/MANIFEST.MF -C out/classes .
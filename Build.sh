@@ -0,0 +1,8 @@
+#!/bin/bash
+
+# Compiles the game into out/labyrinth.jar, which finds its libraries in LabyrinthGame/lib.
+# Any class-data-sharing archive of an older build is deleted, as it no longer matches.
+rm -rf out/classes out/labyrinth.jsa
+javac -classpath "LabyrinthGame/lib/*" -d out/classes LabyrinthGame/src/*.java || exit 1
+printf 'Class-Path: ../LabyrinthGame/lib/GameGraphics.jar ../LabyrinthGame/lib/json_simple-1.1.jar ../LabyrinthGame/lib/jl1.0.1.jar\n' > out/MANIFEST.MF
+jar --create --file out/labyrinth.jar --main-class Driver --manifest out/MANIFEST.MF -C out/classes .
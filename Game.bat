@@ -1,2 +1,27 @@
-javac -classpath "LabyrinthGame/lib/*" -d "./out" LabyrinthGame/src/*.java
-java -classpath "LabyrinthGame/lib/*;./out/" Driver
\ No newline at end of file
+rem Builds out\labyrinth.jar if it is missing or older than the sources, then runs the game.
+rem With "cds" as the first argument, the first launch records the classes it loads in a class-data-sharing archive,
+rem and later launches start from it.
+if not exist out\labyrinth.jar goto build
+powershell -NoProfile -Command "exit [int](@(Get-ChildItem -Recurse LabyrinthGame\src | Where-Object { $_.LastWriteTime -gt (Get-Item out\labyrinth.jar).LastWriteTime }).Count -gt 0)"
+if errorlevel 1 goto build
+goto built
+
+:build
+call Build.bat || exit /b 1
+
+:built
+
+set OPTIONS=
+set ARGUMENTS=
+if not "%~1"=="cds" goto collect
+shift
+if exist out\labyrinth.jsa (set OPTIONS=-XX:SharedArchiveFile=out\labyrinth.jsa) else (set OPTIONS=-XX:ArchiveClassesAtExit=out\labyrinth.jsa)
+
+:collect
+if "%~1"=="" goto run
+set ARGUMENTS=%ARGUMENTS% %1
+shift
+goto collect
+
+:run
+java %OPTIONS% -jar out\labyrinth.jar %ARGUMENTS%
@@ -1,4 +1,23 @@
 #!/bin/bash
 
-javac -classpath "LabyrinthGame/lib/*" -d "./out" LabyrinthGame/src/*.java
-java -classpath "LabyrinthGame/lib/*:./out/" Driver
\ No newline at end of file
+# Builds out/labyrinth.jar if it is missing or older than the sources, then runs the game.
+# With "cds" as the first argument, the first launch records the classes it loads in a class-data-sharing archive,
+# and later launches start from it.
+JAR=out/labyrinth.jar
+ARCHIVE=out/labyrinth.jsa
+
+if [ ! -f "$JAR" ] || [ -n "$(find LabyrinthGame/src -newer "$JAR")" ]; then
+    bash Build.sh || exit 1
+fi
+
+OPTIONS=()
+if [ "$1" = "cds" ]; then
+    shift
+    if [ -f "$ARCHIVE" ]; then
+        OPTIONS=(-XX:SharedArchiveFile="$ARCHIVE")
+    else
+        OPTIONS=(-XX:ArchiveClassesAtExit="$ARCHIVE")
+    fi
+fi
+
+java "${OPTIONS[@]}" -jar "$JAR" "$@"
@@ -5,11 +5,18 @@
  *
  *
  */
-public abstract class Actor extends Model<Actor>
+public abstract class Actor extends Model
 {
+    // Constants - START: Position of an actor that hasn't been placed on the board yet.
+    private static final Cell START = new Cell();
+
     // position: Cell position of this actor.
-    private Cell position = new Cell();
-    public Cell getPosition() { return new Cell(position); }
+    private Cell position = START;
+    public Cell getPosition() { return position; }
+
+    // placed: Whether this actor was moved since it was created or reset. Until it is, the view hasn't been sent its
+    //    position, so a move is published even if it goes to START, e.g. a player choosing (0, 0) as home.
+    private boolean placed = false;
 
     // id: Identification number for this actor.
     private int id;
@@ -20,11 +27,14 @@ public abstract class Actor extends Model<Actor>
     public ActorType getType() { return type; }
 
     // visible: Visibility status of this actor
-    private boolean visible = false;
+    protected boolean visible = false;
     public boolean getVisibility() { return visible; }
     public void setVisibility(boolean value) {
+        if(visible == value) {
+            return;
+        }
         visible = value;
-        triggerDataChange(this);
+        triggerDataChange();
     }
 
     // Constructor: Creates an actor with an ID.
@@ -32,9 +42,35 @@ public abstract class Actor extends Model<Actor>
         this.id = id;
     }
 
+    // reset(): Puts this actor back the way it was created, for a new game, without publishing anything; the view is
+    //    cleared for a new game anyway. Subclasses reset their own state too.
+    public void reset() {
+        position = START;
+        placed = false;
+        visible = false;
+    }
+
     // Move(Cell): Moves this actor to this cell position.
     public void move(Cell cell) {
-        position = new Cell(cell);
-        triggerDataChange(this);
+        if(placed && position.equals(cell)) {
+            return;
+        }
+
+        Cell from = position;
+        position = cell;
+        placed = true;
+
+        GameEvent.ActorMoved event = changed(GameEvent.ActorMoved.class);
+        if(event != null) {
+            publish(event.set(this, from.x, from.y, position.x, position.y));
+        }
+    }
+
+    // triggerDataChange(): Publishes that something other than this actor's position changed.
+    protected void triggerDataChange() {
+        GameEvent.ActorChanged event = changed(GameEvent.ActorChanged.class);
+        if(event != null) {
+            publish(event.set(this));
+        }
     }
 }
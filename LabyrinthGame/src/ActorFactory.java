@@ -3,6 +3,18 @@
  * Creates a Player or Foe depending on the passed ActorType.
  */
 public final class ActorFactory {
+    // rules: The rules the created players play by.
+    private final Rules rules;
+
+    // Constructor(): Creates a factory for actors playing by the default rules.
+    public ActorFactory() {
+        this(Rules.DEFAULT);
+    }
+
+    // Constructor(Rules): Creates a factory for actors playing by the given rules.
+    public ActorFactory(Rules rules) {
+        this.rules = rules;
+    }
 
     // createActor(ActorType, int) - Creates an actor of the given type with the given ID.
     public Actor createActor(ActorType type, int id) {
@@ -10,7 +22,7 @@ public final class ActorFactory {
 
         switch(type) {
             case FOE    -> result = new Foe(id);
-            case PLAYER -> result = new Player(id);
+            case PLAYER -> result = new Player(id, rules);
         }
 
         return result;
@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/* Class - AllocationCheck
+ *
+ *     Plays a scripted headless game and measures how much the gameplay thread allocates between one input and the
+ *     next while players move, with the thread allocation counter of the JVM. The turn loop is meant to allocate
+ *     nothing once warmed up; exits with status 1 if it averages MAX_BYTES_PER_INPUT or more.
+ *
+ *     Usage: AllocationCheck [inputs measured] [seed=N]
+ *     The first WARMUP inputs are given before measuring, so the JIT has settled. The players pick random moves, and
+ *     the game restarts by itself after every game over; choosing homes and game over screens aren't measured.
+ */
+public final class AllocationCheck implements IGameEventHandler {
+    // Constants
+
+    //    DEFAULT_INPUTS: Move inputs measured, unless given.
+    private static final int DEFAULT_INPUTS = 1000000;
+
+    //    WARMUP: Inputs given before measuring.
+    private static final int WARMUP = 200000;
+
+    //    MAX_BYTES_PER_INPUT: Average allocation that fails the check. Rare one-off allocations, e.g. while the JIT
+    //    swaps code, stay far below it.
+    private static final double MAX_BYTES_PER_INPUT = 1.0;
+
+    //    SEED_ARGUMENT: Prefix of the seed argument.
+    private static final String SEED_ARGUMENT = "seed=";
+
+    //    MOVE, CHOOSE_HOME, PRESS_NEXT: What the game is waiting for, told apart by the text it shows.
+    private static final int MOVE = 0;
+    private static final int CHOOSE_HOME = 1;
+    private static final int PRESS_NEXT = 2;
+
+
+    // Private Fields
+
+    //    threads: Counts the bytes allocated by the current thread.
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    //    random: Picks the scripted inputs.
+    private final SplittableRandom random;
+
+    //    cells: One Cell per position, made up front so the script itself allocates nothing on the gameplay thread.
+    private final Cell[] cells = new Cell[GameBoard.SIZE * GameBoard.SIZE];
+
+    //    measureLimit, inputs: How many inputs to measure, and how many were given in all.
+    private final int measureLimit;
+    private long inputs;
+
+    //    phase, homes, current: What the game is waiting for, the homes chosen so far this game, and the actor to play.
+    private int phase = CHOOSE_HOME;
+    private int homes;
+    private Actor current;
+
+    //    allocatedBefore, bytes, measured, allocating, largest: The thread's allocation count when the last input was
+    //    given (or -1 if that input isn't measured), and the bytes allocated over the measured inputs, how many there
+    //    were, how many allocated anything, and the most any one did.
+    private long allocatedBefore = -1;
+    private long bytes;
+    private long measured;
+    private long allocating;
+    private long largest;
+
+    //    passed, done: The outcome of the check, and signalled once it ran.
+    private boolean passed;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+
+    // Constructor(int, long): Creates a view that measures 'measureLimit' inputs, picked by 'seed'.
+    private AllocationCheck(int measureLimit, long seed) {
+        this.measureLimit = measureLimit;
+        this.random = new SplittableRandom(seed);
+
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell(i % GameBoard.SIZE, i / GameBoard.SIZE);
+        }
+    }
+
+
+    // main: Plays the scripted game on a session thread, and reports once enough inputs were measured.
+    public static void main(String[] args) throws InterruptedException {
+        int measureLimit = DEFAULT_INPUTS;
+        long seed = 1;
+
+        for(String arg : args) {
+            if(arg.startsWith(SEED_ARGUMENT)) {
+                seed = Long.parseLong(arg.substring(SEED_ARGUMENT.length()));
+            } else {
+                measureLimit = Integer.parseInt(arg);
+            }
+        }
+
+        AllocationCheck view = new AllocationCheck(measureLimit, seed);
+
+        // The session waits for an input that never comes once measuring ends, so its thread mustn't keep the process
+        // alive.
+        Thread thread = new Thread(() -> new Session(view, new int[0], GameBoard.SIZE, Rules.DEFAULT, null), "Session");
+        thread.setDaemon(true);
+        thread.start();
+
+        view.done.await();
+        System.exit(view.passed ? 0 : 1);
+    }
+
+
+    // Interface Fulfillment - IGameEventHandler
+
+    // @Override displayText(String): Tells what the game waits for from its messages.
+    @Override
+    public void displayText(String text) {
+        if(text.endsWith("Choose your home.")) {
+            phase = CHOOSE_HOME;
+        } else if (text.equals("Press NEXT.") || text.endsWith("(RESET or NEXT)")) {
+            phase = PRESS_NEXT;
+        } else if (text.equals("Find the treasure!")) {
+            phase = MOVE;
+        }
+    }
+
+    // @Override clearDisplay(): A new game begins.
+    @Override
+    public void clearDisplay() {
+        homes = 0;
+    }
+
+    @Override
+    public void playSound(SoundType soundType) {}
+
+    @Override
+    public void hibernate() {}
+
+    @Override
+    public void actorDataUpdate(Actor actor) {}
+
+    @Override
+    public void focusActor(Actor actor) {
+        current = actor;
+    }
+
+    @Override
+    public void boardDataUpdate(GameBoard board) {}
+
+    // @Override subscribeInput(InputPacket): Counts what was allocated since the last input, then gives the next
+    //    scripted one, or reports once enough were measured.
+    @Override
+    public void subscribeInput(InputPacket inputPacket) {
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        if(phase == MOVE && allocatedBefore >= 0) {
+            long input = allocated - allocatedBefore;
+            bytes += input;
+            ++measured;
+            if(input > 0) {
+                ++allocating;
+                largest = Math.max(largest, input);
+            }
+        }
+
+        if(measured == measureLimit) {
+            report();
+            return;
+        }
+        ++inputs;
+
+        if(phase == CHOOSE_HOME) {
+            inputPacket.setType(EventType.CELL);
+            inputPacket.setCell(cells[homes++ == 0 ? 0 : cells.length - 1]);
+        } else if (phase == PRESS_NEXT || random.nextInt(10) == 0) {
+            inputPacket.setType(EventType.NEXT);
+        } else {
+            Cell position = current.getPosition();
+            int direction = random.nextInt(4);
+            int x = position.x + (direction == 0 ? 1 : direction == 1 ? -1 : 0);
+            int y = position.y + (direction == 2 ? 1 : direction == 3 ? -1 : 0);
+
+            inputPacket.setType(EventType.CELL);
+            inputPacket.setCell(cells[Math.max(0, Math.min(GameBoard.SIZE - 1, y)) * GameBoard.SIZE
+                    + Math.max(0, Math.min(GameBoard.SIZE - 1, x))]);
+        }
+        inputPacket.sign();
+
+        // Measure from here, so only the game's own work up to the next input counts.
+        allocatedBefore = (phase == MOVE && inputs > WARMUP ? threads.getCurrentThreadAllocatedBytes() : -1);
+    }
+
+
+    // Private Methods
+
+    // report(): Prints what the measured inputs allocated, and whether that passes.
+    private void report() {
+        double perInput = (double)bytes / measured;
+        passed = perInput < MAX_BYTES_PER_INPUT;
+
+        System.out.printf("%d turn-loop inputs: %.2f bytes allocated per input, %d inputs allocated anything, at most %d bytes: %s%n",
+                measured, perInput, allocating, largest, (passed ? "OK" : "FAILED"));
+        done.countDown();
+    }
+}
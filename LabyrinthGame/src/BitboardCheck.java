@@ -0,0 +1,197 @@
+import java.util.SplittableRandom;
+
+/* Class - BitboardCheck
+ *
+ *     Differential check of the bitboard rules engine. Plays every game twice from the same deal, once by Bitboards and
+ *     once by the wall arrays (GameState.setBitboards(false)), with the same random actions, and compares the two
+ *     states after every step. Then checks Bitboards itself against GameBoard and MazeAnalyzer on fresh boards: the
+ *     open masks against moveValid(), distances and reachability against MazeAnalyzer.distances(), and square()
+ *     against Cell.squareDistance(). Exits with status 1 at the first difference.
+ *
+ *     Usage: BitboardCheck [games] [seed=N]
+ *     Games have 1 to 3 players and random Foe ranges and fatal injuries; every fifth is copied and determinized first,
+ *     the way MonteCarloAgent plays them.
+ */
+public final class BitboardCheck {
+    // Constants
+
+    //    DEFAULT_GAMES: Games played, and boards checked, unless given.
+    private static final int DEFAULT_GAMES = 20000;
+
+    //    MAX_STEPS: Steps after which a game is left unfinished.
+    private static final int MAX_STEPS = 400;
+
+    //    DETERMINIZE_EVERY, WALL_PERCENT: How often a game is determinized first, and with how many walls.
+    private static final int DETERMINIZE_EVERY = 5;
+    private static final int WALL_PERCENT = 40;
+
+    //    SEED_ARGUMENT: Prefix of the seed argument.
+    private static final String SEED_ARGUMENT = "seed=";
+
+    //    DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+
+    // main: Runs both checks.
+    public static void main(String[] args) {
+        int games = DEFAULT_GAMES;
+        long seed = 7;
+
+        for(String arg : args) {
+            if(arg.startsWith(SEED_ARGUMENT)) {
+                seed = Long.parseLong(arg.substring(SEED_ARGUMENT.length()));
+            } else {
+                games = Integer.parseInt(arg);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        String difference = playGames(random, games);
+        if(difference == null) {
+            difference = checkBoards(random, games);
+        }
+
+        if(difference != null) {
+            System.out.println("FAILED: " + difference);
+            System.exit(1);
+        }
+    }
+
+
+    // Private Methods
+
+    // playGames(SplittableRandom, int): Plays 'games' games both ways. Returns where they first differed, or null.
+    private static String playGames(SplittableRandom random, int games) {
+        long steps = 0;
+
+        for(int game = 0; game < games; game++) {
+            int players = 1 + random.nextInt(Session.MAX_PLAYERS);
+            Rules rules = Rules.DEFAULT.with("awakenRange", random.nextInt(9)).with("fatalInjury", 1 + random.nextInt(4));
+
+            GameState bitboards = GameState.deal(rules, players, game);
+            GameState arrays = GameState.deal(rules, players, game);
+            arrays.setBitboards(false);
+            if(!bitboards.getBitboards() || arrays.getBitboards()) {
+                return "game " + game + " didn't select the engines";
+            }
+
+            if(game % DETERMINIZE_EVERY == 0) {
+                long copySeed = random.nextLong();
+                bitboards = bitboards.copy(copySeed);
+                arrays = arrays.copy(copySeed);
+                bitboards.determinize(WALL_PERCENT);
+                arrays.determinize(WALL_PERCENT);
+            }
+
+            for(int step = 0; step < MAX_STEPS && !bitboards.isOver(); step++) {
+                int action = random.nextInt(GameState.ACTION_COUNT);
+                bitboards.step(action);
+                arrays.step(action);
+                ++steps;
+
+                if(!same(bitboards, arrays)) {
+                    return "game " + game + " differs after step " + step;
+                }
+            }
+        }
+
+        System.out.println("Bitboards and wall arrays played " + games + " games, " + steps + " steps, the same.");
+        return null;
+    }
+
+    // same(GameState, GameState): Whether two states are the same in everything a player or agent can see.
+    private static boolean same(GameState a, GameState b) {
+        boolean same = a.getCurrent() == b.getCurrent() && a.getMovesLeft() == b.getMovesLeft()
+                && a.getWinner() == b.getWinner() && a.getRound() == b.getRound()
+                && a.getBoardTreasure() == b.getBoardTreasure() && a.getFoeAwake() == b.getFoeAwake();
+
+        for(int actor = 0; actor < a.getActorCount(); actor++) {
+            same &= a.getX(actor) == b.getX(actor) && a.getY(actor) == b.getY(actor)
+                    && a.getInjury(actor) == b.getInjury(actor) && a.getFatigue(actor) == b.getFatigue(actor)
+                    && a.getTreasure(actor) == b.getTreasure(actor) && a.reward(actor) == b.reward(actor);
+            for(int action = 0; action < 4; action++) {
+                same &= a.isBlocked(actor, action) == b.isBlocked(actor, action);
+            }
+        }
+
+        for(int y = 0; y <= GameBoard.SIZE; y++) {
+            for(int x = 0; x <= GameBoard.SIZE; x++) {
+                same &= a.getWall(x, y, true) == b.getWall(x, y, true) && a.getWall(x, y, false) == b.getWall(x, y, false)
+                        && a.getRevealed(x, y, true) == b.getRevealed(x, y, true)
+                        && a.getRevealed(x, y, false) == b.getRevealed(x, y, false);
+            }
+        }
+
+        return same;
+    }
+
+    // checkBoards(SplittableRandom, int): Checks Bitboards against GameBoard and MazeAnalyzer on 'boards' fresh boards.
+    //    Returns the first difference, or null.
+    private static String checkBoards(SplittableRandom random, int boards) {
+        int row = GameBoard.SIZE + 1;
+        boolean[] wallsVertical = new boolean[row * row];
+        boolean[] wallsHorizontal = new boolean[row * row];
+
+        for(int i = 0; i < boards; i++) {
+            GameBoard board = new GameBoard(random.nextLong());
+            boolean[][][] wallData = board.getWallData();
+            for(int y = 0; y < row; y++) {
+                for(int x = 0; x < row; x++) {
+                    wallsVertical[y * row + x] = wallData[0][y][x];
+                    wallsHorizontal[y * row + x] = wallData[1][y][x];
+                }
+            }
+
+            long[] open = new long[4];
+            for(int direction = 0; direction < 4; direction++) {
+                open[direction] = Bitboards.open(wallsVertical, wallsHorizontal, direction);
+            }
+
+            for(int cell = 0; cell < GameBoard.SIZE * GameBoard.SIZE; cell++) {
+                int x = cell % GameBoard.SIZE;
+                int y = cell / GameBoard.SIZE;
+
+                for(int direction = 0; direction < 4; direction++) {
+                    int nextX = x + DELTA_X[direction];
+                    int nextY = y + DELTA_Y[direction];
+                    boolean valid = nextX >= 0 && nextX < GameBoard.SIZE && nextY >= 0 && nextY < GameBoard.SIZE
+                            && board.moveValid(board.getCell(x, y), board.getCell(nextX, nextY), false);
+
+                    if(valid != ((open[direction] & Bitboards.cell(x, y)) != 0)) {
+                        return "board " + i + ": open mask of (" + x + ", " + y + ") direction " + direction;
+                    }
+                }
+            }
+
+            int startX = random.nextInt(GameBoard.SIZE);
+            int startY = random.nextInt(GameBoard.SIZE);
+            long start = Bitboards.cell(startX, startY);
+            int[] distances = new MazeAnalyzer(board).distances(board.getCell(startX, startY));
+            long reachable = Bitboards.reachable(start, open[0], open[1], open[2], open[3]);
+
+            for(int cell = 0; cell < GameBoard.SIZE * GameBoard.SIZE; cell++) {
+                int distance = Bitboards.distance(start, 1L << cell, open[0], open[1], open[2], open[3]);
+                boolean reached = ((reachable >>> cell) & 1) == 1;
+
+                if(distance != distances[cell] || reached != (distances[cell] != MazeAnalyzer.UNREACHABLE)) {
+                    return "board " + i + ": distance to cell " + cell;
+                }
+            }
+
+            int range = random.nextInt(10) - 1;
+            long square = Bitboards.square(startX, startY, range);
+            for(int cell = 0; cell < GameBoard.SIZE * GameBoard.SIZE; cell++) {
+                Cell position = board.getCell(cell % GameBoard.SIZE, cell / GameBoard.SIZE);
+                boolean inside = position.squareDistance(board.getCell(startX, startY)) <= range;
+
+                if(inside != (((square >>> cell) & 1) == 1)) {
+                    return "board " + i + ": square of range " + range + " at cell " + cell;
+                }
+            }
+        }
+
+        System.out.println("Bitboards matched GameBoard and MazeAnalyzer on " + boards + " boards.");
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+/* Class - Bitboards
+ *
+ *     Rule arithmetic for standard boards, whose SIZE * SIZE = 64 cells fit in the bits of one long: bit y * SIZE + x
+ *     stands for cell (x, y). A set of cells (where the actors stand, which cells can be reached, the squares around
+ *     the Foe) is then a single long, and a step in every direction at once is four shifts and masks.
+ *
+ *     The walls are kept as one mask per direction of the cells that can be left that way, see open(). Directions
+ *     are in the order of the GameState movement actions: east, west, south, north. GameState plays by these on
+ *     standard boards.
+ */
+public final class Bitboards {
+    // Constants
+
+    //    SIZE: Width and height of the boards that fit, in cells.
+    public static final int SIZE = GameBoard.SIZE;
+
+    //    UNREACHABLE: Distance reported for cells that can't be reached.
+    public static final int UNREACHABLE = -1;
+
+    //    FIRST_COLUMN, LAST_COLUMN, FIRST_ROW, LAST_ROW: The cells along each edge of the board.
+    public static final long FIRST_COLUMN = 0x0101010101010101L;
+    public static final long LAST_COLUMN = FIRST_COLUMN << (SIZE - 1);
+    public static final long FIRST_ROW = 0xFFL;
+    public static final long LAST_ROW = FIRST_ROW << (SIZE * (SIZE - 1));
+
+
+    // Public Methods
+
+    // cell(int, int): The bit of cell (x, y).
+    public static long cell(int x, int y) {
+        return 1L << (y * SIZE + x);
+    }
+
+    // open(boolean[], boolean[], int): The cells that can be left in the given direction without walking into a wall
+    //    or off the board. Walls are flattened the same as in GameState: index = y * (SIZE + 1) + x, the vertical wall
+    //    at an index being the west side of cell (x, y) and the horizontal wall its north side.
+    public static long open(boolean[] wallsVertical, boolean[] wallsHorizontal, int direction) {
+        int row = SIZE + 1;
+        long open = 0;
+
+        for(int y = 0; y < SIZE; y++) {
+            for(int x = 0; x < SIZE; x++) {
+                boolean wall = switch(direction) {
+                    case 0 -> wallsVertical[y * row + x + 1];
+                    case 1 -> wallsVertical[y * row + x];
+                    case 2 -> wallsHorizontal[(y + 1) * row + x];
+                    default -> wallsHorizontal[y * row + x];
+                };
+
+                if(!wall) {
+                    open |= cell(x, y);
+                }
+            }
+        }
+
+        // Boards always have their outer walls, but a mask without them would wrap around the edges.
+        return open & ~switch(direction) {
+            case 0 -> LAST_COLUMN;
+            case 1 -> FIRST_COLUMN;
+            case 2 -> LAST_ROW;
+            default -> FIRST_ROW;
+        };
+    }
+
+    // step(long, long, long, long, long): The cells one step from 'cells' in any direction, 'cells' themselves
+    //    included, given the open masks of the four directions.
+    public static long step(long cells, long east, long west, long south, long north) {
+        return cells
+                | (cells & east) << 1
+                | (cells & west) >>> 1
+                | (cells & south) << SIZE
+                | (cells & north) >>> SIZE;
+    }
+
+    // reachable(long, long, long, long, long): Every cell that can be walked to from 'cells'.
+    public static long reachable(long cells, long east, long west, long south, long north) {
+        long reached = cells;
+
+        do {
+            cells = reached;
+            reached = step(cells, east, west, south, north);
+        } while(reached != cells);
+
+        return reached;
+    }
+
+    // distance(long, long, long, long, long, long): Number of steps from the cells in 'from' to the nearest cell in
+    //    'to', or UNREACHABLE. One step a round, every round widens the reached set by one step in every direction.
+    public static int distance(long from, long to, long east, long west, long south, long north) {
+        long reached = from;
+        int steps = 0;
+
+        while((reached & to) == 0) {
+            long next = step(reached, east, west, south, north);
+            if(next == reached) {
+                return UNREACHABLE;
+            }
+
+            reached = next;
+            ++steps;
+        }
+
+        return steps;
+    }
+
+    // square(int, int, int): The cells at most 'range' steps from cell (x, y) counting diagonal steps as one, the
+    //    same as Cell.squareDistance. Empty for a negative range.
+    public static long square(int x, int y, int range) {
+        if(range < 0) {
+            return 0;
+        }
+
+        int left = Math.max(0, x - range);
+        int right = Math.min(SIZE - 1, x + range);
+        int top = Math.max(0, y - range);
+        int bottom = Math.min(SIZE - 1, y + range);
+
+        long columns = ((1L << (right - left + 1)) - 1) << left;
+        long rows = -1L >>> (SIZE * (SIZE - 1 - bottom)) & -1L << (SIZE * top);
+
+        return columns * FIRST_COLUMN & rows;
+    }
+}
@@ -1,4 +1,5 @@
 import com.wwu.graphics.*;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,7 @@ import java.util.Set;
  *
  *    Binds the BoardGraphics interface to the IGameEventHandler interface.
  *    Handles display, sound, and input from the provided GUI
+ *    Tiles and walls are painted by a RenderScheduler at a fixed frame rate; updates only describe the next frame.
  *
  * Patterns:
  *    This is the 'View' in the Model-Controller-View pattern.
@@ -37,15 +39,27 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
         put(SoundType.GOAL, GraphicsSoundTypes.GOAL);
     }};
 
+    //   VIEWPORT_SIZE: Width and height of the part of the board that is on screen, in tiles. Fixed by GameGraphics.
+    private static final int VIEWPORT_SIZE = GameBoard.SIZE;
+
     // CLEAR_MESSAGE: Message used to clear the GUI console.
     private static final String CLEAR_MESSAGE = "\n\n\n\n\n\n\n\n\n";
 
+    // ORIGIN: Where the treasure room is kept after the display is cleared, hidden until a board is sent.
+    private static final Cell ORIGIN = new Cell();
+
     // gameGraphics: Private graphics driver used to affect the display.
     private GameGraphics gameGraphics;
 
+    // renderScheduler: Paints the tiles and walls described by render() on its own thread.
+    private RenderScheduler renderScheduler;
+
     // subscriber: A subscribed input packet that gets signed once an input is detected.
     private InputPacket subscriber;
 
+    // subscription: The wait 'subscriber' was subscribed for, see InputPacket.offer().
+    private long subscription;
+
     // actorPositions: Cached Actor positions used for updating the GUI.
     private Map<Integer, Cell> actorPositions = new HashMap<Integer, Cell>();
 
@@ -58,44 +72,110 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
     //treasureRoomVisible: Whether the treasure room is visible.
     private boolean treasureRoomVisible = false;
 
+    // board: The last GameBoard sent to the GUI, used to draw walls again when the viewport moves.
+    private GameBoard board;
+
+    // viewX, viewY: Board position of the top-left tile of the viewport.
+    private int viewX = 0, viewY = 0;
+
+    // focusId: ID of the actor the viewport stays centered on, -1 for none.
+    private int focusId = -1;
+
 
-    // Constructor: Creates a new GameGraphics and sets the initial wall layout.
+    // Constructor: Creates a new GameGraphics, sets the initial wall layout and starts painting.
     public BoardGUI() {
         gameGraphics = new GameGraphics(this);
-        setWalls();
+        renderScheduler = new RenderScheduler(gameGraphics, VIEWPORT_SIZE);
+        render();
+        renderScheduler.start();
     }
 
     // Private Methods
-    private void clearActors() {
-        int size = GameBoard.SIZE;
-        for(int r = 0; r < size; r++) {
-            for(int c = 0; c < size; c++) {
-                gameGraphics.changeTileImage(c, r, GraphicImageTypes.TILE);
+
+    // render(): Describes the viewport as it should look now, and hands it to the RenderScheduler.
+    private void render() {
+        RenderScheduler.Frame frame = renderScheduler.getBackFrame();
+
+        setWalls(frame);
+        setActors(frame);
+        renderScheduler.publish();
+    }
+
+    // setWalls(Frame): Shows every wall in the viewport that is revealed or on the outside of the board.
+    private void setWalls(RenderScheduler.Frame frame) {
+        int last = VIEWPORT_SIZE - 1;
+
+        for(int i = 0; i < VIEWPORT_SIZE; i++) {
+            for(int j = 0; j < VIEWPORT_SIZE; j++) {
+                frame.north[i * VIEWPORT_SIZE + j] = wallVisible(viewX + j, viewY + i, false);
+                frame.west[i * VIEWPORT_SIZE + j] = wallVisible(viewX + j, viewY + i, true);
             }
+            frame.east[i] = wallVisible(viewX + last + 1, viewY + i, true);
+            frame.south[i] = wallVisible(viewX + i, viewY + last + 1, false);
         }
     }
-    private void clearWalls() {
-        int size = GameBoard.SIZE;
 
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-                gameGraphics.wallGraphicSetVisible(j, i, GraphicsWallDirections.NORTH, false);
-                gameGraphics.wallGraphicSetVisible(j, i, GraphicsWallDirections.WEST, false);
-            }
+    // wallVisible(int, int, boolean): Whether the west (vertical) or north (horizontal) wall of board cell (x, y) is shown.
+    private boolean wallVisible(int x, int y, boolean vertical) {
+        int size = boardSize();
+        boolean outside = (vertical ? (x == 0 || x == size) && y < size : (y == 0 || y == size) && x < size);
+
+        if(board == null || x > size || y > size) {
+            return outside;
+        }
+        return board.getWall(x, y, vertical) && (outside || board.getRevealed(x, y, vertical));
+    }
+
+    // boardSize(): Size of the board being displayed.
+    private int boardSize() {
+        return (board == null ? GameBoard.SIZE : board.getSize());
+    }
+
+    // setActors(Frame): Shows the rooms and actors that are in the viewport, on otherwise empty tiles.
+    private void setActors(RenderScheduler.Frame frame) {
+        Arrays.fill(frame.tiles, GraphicImageTypes.TILE);
+
+        Set<Integer> roomKeys = roomPositions.keySet();
+        for(Integer key : roomKeys) {
+            setTile(frame, roomPositions.get(key), BASE_ICONS[key]);
+        }
+
+        if(treasureRoomVisible) {
+            setTile(frame, treasureRoomPosition, BASE_ICONS[0]);
+        } else {
+            setTile(frame, treasureRoomPosition, GraphicImageTypes.TILE);
+        }
+
+        Set<Integer> actorKeys = actorPositions.keySet();
+        for(Integer key : actorKeys) {
+            setTile(frame, actorPositions.get(key), ACTOR_ICONS[key]);
         }
     }
 
-    private void setWalls() {
-        int size = GameBoard.SIZE;
-        for(int i = 0; i < size; i++) {
-            gameGraphics.wallGraphicSetVisible(i, 0, GraphicsWallDirections.NORTH, true);
-            gameGraphics.wallGraphicSetVisible(size - 1, i, GraphicsWallDirections.EAST, true);
+    // setTile(Frame, Cell, GraphicImageTypes): Shows an image at a board position, if that position is in the viewport.
+    private void setTile(RenderScheduler.Frame frame, Cell position, GraphicImageTypes image) {
+        int x = position.x - viewX;
+        int y = position.y - viewY;
+
+        if(x >= 0 && x < VIEWPORT_SIZE && y >= 0 && y < VIEWPORT_SIZE) {
+            frame.tiles[y * VIEWPORT_SIZE + x] = image;
         }
+    }
 
-        for(int i = 0; i < size; i++) {
-            gameGraphics.wallGraphicSetVisible(i, size - 1, GraphicsWallDirections.SOUTH, true);
-            gameGraphics.wallGraphicSetVisible(0, i, GraphicsWallDirections.WEST, true);
+    // centerOn(Cell): Moves the viewport so 'position' is in its middle, as far as the edges of the board allow.
+    //    Returns whether the viewport moved.
+    private boolean centerOn(Cell position) {
+        int limit = Math.max(0, boardSize() - VIEWPORT_SIZE);
+        int x = Math.max(0, Math.min(limit, position.x - VIEWPORT_SIZE / 2));
+        int y = Math.max(0, Math.min(limit, position.y - VIEWPORT_SIZE / 2));
+
+        if(x == viewX && y == viewY) {
+            return false;
         }
+
+        viewX = x;
+        viewY = y;
+        return true;
     }
 
 
@@ -109,13 +189,17 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
     @Override
     public void buttonPressed(GraphicsClickTypes graphicsClickTypes) {
         if(this.subscriber != null) {
-            switch(graphicsClickTypes) {
-                case NEXT -> subscriber.setType(EventType.NEXT);
-                case RESET -> subscriber.setType(EventType.RESET);
-                case START -> subscriber.setType(EventType.START);
-                default -> System.out.println("INVALID GRAPHICS CLICK TYPE");
+            EventType type = switch(graphicsClickTypes) {
+                case NEXT -> EventType.NEXT;
+                case RESET -> EventType.RESET;
+                case START -> EventType.START;
+                default -> null;
+            };
+            if(type == null) {
+                System.out.println("INVALID GRAPHICS CLICK TYPE");
+                return;
             }
-            subscriber.sign();
+            subscriber.offer(subscription, type, null);
 
             subscriber = null;
         }
@@ -129,14 +213,12 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
     /* @Override tilePressed(int, int):
      *
      * Triggers when a tile is pressed on the GUI.
-     * Hands the tile to the current subscriber and signs said subscriber.
+     * Hands the board cell under the tile to the current subscriber and signs said subscriber.
      */
     @Override
     public void tilePressed(int x, int y) {
         if(this.subscriber != null) {
-            subscriber.setType(EventType.CELL);
-            subscriber.setCell(new Cell(x, y));
-            subscriber.sign();
+            subscriber.offer(subscription, EventType.CELL, new Cell(viewX + x, viewY + y));
 
             subscriber = null;
         }
@@ -155,11 +237,11 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
     // @Override subscribeInput(InputPacket): Subscribes an InputPacked for later signing.
     @Override
     public void subscribeInput(InputPacket inputPacket) {
-        if(this.subscriber != null) {
-            subscriber.setType(EventType.ORPHAN);
-            subscriber.sign();
+        if(this.subscriber != null && this.subscriber != inputPacket) {
+            subscriber.offer(subscription, EventType.ORPHAN, null);
         }
 
+        subscription = inputPacket.subscription();
         subscriber = inputPacket;
     }
 
@@ -173,46 +255,29 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
             actorPositions.remove(actor.getId());
         }
 
-        clearActors();
-
-        Set<Integer> roomKeys = roomPositions.keySet();
-        for(Integer key : roomKeys) {
-            Cell roomPosition = roomPositions.get(key);
-            gameGraphics.changeTileImage(roomPosition.x, roomPosition.y, BASE_ICONS[key]);
+        if(actor.getId() == focusId) {
+            centerOn(actor.getPosition());
         }
 
-        if(treasureRoomVisible) {
-            gameGraphics.changeTileImage(treasureRoomPosition.x, treasureRoomPosition.y, BASE_ICONS[0]);
-        } else {
-            gameGraphics.changeTileImage(treasureRoomPosition.x, treasureRoomPosition.y, GraphicImageTypes.TILE);
-        }
+        render();
+    }
 
-        Set<Integer> actorKeys = actorPositions.keySet();
-        for(Integer key : actorKeys) {
-            Cell position = actorPositions.get(key);
-            gameGraphics.changeTileImage(position.x, position.y, ACTOR_ICONS[key]);
+    // @Override focusActor(Actor): Centers the viewport on the actor whose turn it is, and keeps following them.
+    @Override
+    public void focusActor(Actor actor) {
+        focusId = actor.getId();
+
+        if(centerOn(actor.getPosition())) {
+            render();
         }
     }
 
     // @Override actorDataUpdate(GameBoard): Callback for when the GameBoard gets updated. Updates revelations of the layout.
     @Override
     public void boardDataUpdate(GameBoard board) {
-        int size = GameBoard.SIZE;
-        boolean[][][] wallData = board.getWallData();
-        boolean[][] wallsVertical = wallData[0];
-        boolean[][] wallsHorizontal = wallData[1];
-        boolean[][] revealedVertical = wallData[2];
-        boolean[][] revealedHorizontal = wallData[3];
         List<SecretRoom> secretRooms = board.getSecretRooms();
 
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-                gameGraphics.wallGraphicSetVisible(j, i, GraphicsWallDirections.NORTH, wallsHorizontal[i][j] && revealedHorizontal[i][j]);
-                gameGraphics.wallGraphicSetVisible(j, i, GraphicsWallDirections.WEST, wallsVertical[i][j] && revealedVertical[i][j]);
-            }
-        }
-
-        setWalls();
+        this.board = board;
 
         for(SecretRoom secretRoom : secretRooms) {
             roomPositions.put(secretRoom.getId(), secretRoom.getPosition());
@@ -220,23 +285,31 @@ public final class BoardGUI implements BoardGraphicsInf, IGameEventHandler {
 
         treasureRoomPosition = board.getTreasureRoom();
         treasureRoomVisible = board.getTreasureReturned();
+
+        render();
+    }
+
+    // @Override hibernate(): Lets go of the board. The screen keeps showing the last frame rendered from it.
+    @Override
+    public void hibernate() {
+        board = null;
     }
 
     // @Override clearDisplay(): Clears the GUI completely.
     @Override
     public void clearDisplay() {
-        int size = GameBoard.SIZE;
-
-        clearActors();
-
         actorPositions.clear();
         roomPositions.clear();
 
-        treasureRoomPosition = new Cell();
+        treasureRoomPosition = ORIGIN;
         treasureRoomVisible = false;
 
-        clearWalls();
-        setWalls();
+        board = null;
+        viewX = 0;
+        viewY = 0;
+        focusId = -1;
+
+        render();
 
         gameGraphics.addTextToInfoArea(CLEAR_MESSAGE);
     }
@@ -0,0 +1,95 @@
+/* Class - BotView
+ *
+ *     What an IBotStrategy gets to see of a game, always from the point of view of the player whose turn it is:
+ *     their position, moves, fatigue and injuries, where everyone is, and the walls that have been revealed.
+ *     Walls that haven't been revealed can't be looked at; guess() fills them in with guesses instead.
+ *     A view follows its GameState, so one view can be used for a whole game.
+ */
+public final class BotView {
+    // Constants - GUESS_WALL_PERCENT: Chance of an unseen inner wall being guessed as present by guess().
+    private static final int GUESS_WALL_PERCENT = 35;
+
+    // state: The game being viewed.
+    private final GameState state;
+
+    // Constructor(GameState): Creates a view of 'state'.
+    public BotView(GameState state) {
+        this.state = state;
+    }
+
+
+    // Getters - The player whose turn it is.
+
+    public int getPlayer() { return state.getActorId(state.getCurrent()); }
+    public Cell getPosition() { return new Cell(state.getX(state.getCurrent()), state.getY(state.getCurrent())); }
+    public Cell getHome() { return new Cell(state.getHomeX(state.getCurrent()), state.getHomeY(state.getCurrent())); }
+    public int getMovesLeft() { return state.getMovesLeft(); }
+    public int getMaxMoves() { return state.getMaxMoves(state.getCurrent()); }
+    public int getFatigue() { return state.getFatigue(state.getCurrent()); }
+    public int getInjury() { return state.getInjury(state.getCurrent()); }
+    public boolean getTreasure() { return state.getTreasure(state.getCurrent()); }
+
+
+    // Getters - The rest of the game. Actor 0 is the Foe.
+
+    public int getSize() { return state.getSize(); }
+    public boolean getBoardTreasure() { return state.getBoardTreasure(); }
+    public Cell getTreasureRoom() { return new Cell(state.getTreasureX(), state.getTreasureY()); }
+    public boolean getFoeAwake() { return state.getFoeAwake(); }
+    public int getActorCount() { return state.getActorCount(); }
+    public Cell getActorPosition(int actor) { return new Cell(state.getX(actor), state.getY(actor)); }
+    public boolean isAlive(int actor) { return actor == 0 || state.isAlive(actor); }
+    public boolean hasTreasure(int actor) { return actor != 0 && state.getTreasure(actor); }
+
+
+    // Public Methods
+
+    // isKnownBlocked(Cell, Cell): Whether a revealed wall (or the edge of the board) is between two neighbouring cells.
+    public boolean isKnownBlocked(Cell from, Cell to) {
+        int action = action(from, to);
+        return action == GameState.ACTION_NEXT || state.isKnownBlocked(from.x, from.y, action);
+    }
+
+    // guess(long): A copy of the game with every unrevealed wall replaced by a guess, for strategies that search ahead.
+    public GameState guess(long seed) {
+        GameState copy = state.copy(seed);
+        copy.determinize(GUESS_WALL_PERCENT);
+        return copy;
+    }
+
+    // toAction(Cell): The GameState action for a move chosen by a strategy. Anything but a step to a neighbouring cell
+    //    ends the turn.
+    public int toAction(Cell move) {
+        return (move == null ? GameState.ACTION_NEXT : action(getPosition(), move));
+    }
+
+    // toMove(int): The move a strategy would return for a GameState action.
+    public Cell toMove(int action) {
+        Cell position = getPosition();
+
+        return switch(action) {
+            case GameState.ACTION_EAST -> new Cell(position.x + 1, position.y);
+            case GameState.ACTION_WEST -> new Cell(position.x - 1, position.y);
+            case GameState.ACTION_SOUTH -> new Cell(position.x, position.y + 1);
+            case GameState.ACTION_NORTH -> new Cell(position.x, position.y - 1);
+            default -> null;
+        };
+    }
+
+
+    // Private Methods
+
+    // action(Cell, Cell): The movement action from one cell to a neighbouring one, or ACTION_NEXT if they aren't.
+    private static int action(Cell from, Cell to) {
+        int dX = to.x - from.x;
+        int dY = to.y - from.y;
+
+        if(Math.abs(dX) + Math.abs(dY) != 1) {
+            return GameState.ACTION_NEXT;
+        }
+        if(dX != 0) {
+            return (dX > 0 ? GameState.ACTION_EAST : GameState.ACTION_WEST);
+        }
+        return (dY > 0 ? GameState.ACTION_SOUTH : GameState.ACTION_NORTH);
+    }
+}
@@ -0,0 +1,51 @@
+/* Class - CautiousBot
+ *
+ *     A strategy that plays like GreedyBot, but won't step next to an awake Foe if it can help it. It would rather
+ *     step away, or wait, than be attacked.
+ */
+public final class CautiousBot implements IBotStrategy {
+    // Constants - DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+    // greedy: Picks the move when the Foe isn't a threat, and measures how far cells are from the goal.
+    private final GreedyBot greedy = new GreedyBot();
+
+    @Override
+    public String getName() { return "cautious"; }
+
+    // @Override chooseMove(BotView): The greedy move, unless it ends next to the awake Foe; then the move (or NEXT)
+    //    that stays furthest from the Foe, the one closest to the goal if there is a tie.
+    @Override
+    public Cell chooseMove(BotView view) {
+        Cell move = greedy.chooseMove(view);
+        Cell position = view.getPosition();
+        Cell foe = view.getActorPosition(0);
+
+        if(!view.getFoeAwake() || move == null || move.squareDistance(foe) > 1 || move.equals(view.getHome())) {
+            return move;
+        }
+
+        Cell best = null;
+        int bestFoeDistance = position.squareDistance(foe);
+        int bestGoalDistance = greedy.distance(view, position);
+
+        for(int direction = 0; direction < 4; direction++) {
+            Cell next = new Cell(position.x + DELTA_X[direction], position.y + DELTA_Y[direction]);
+            int goalDistance = greedy.distance(view, next);
+
+            if(view.isKnownBlocked(position, next) || goalDistance < 0) {
+                continue;
+            }
+
+            int foeDistance = next.squareDistance(foe);
+            if(foeDistance > bestFoeDistance || (foeDistance == bestFoeDistance && goalDistance < bestGoalDistance)) {
+                best = next;
+                bestFoeDistance = foeDistance;
+                bestGoalDistance = goalDistance;
+            }
+        }
+
+        return best;
+    }
+}
@@ -2,6 +2,7 @@
  *
  *    Holds a 2D position on the GameBoard.
  *    The x & y fields are public as they are final - this is to emulate a struct, a feature lacking in Java.
+ *    As a Cell never changes, it can be shared freely instead of copied.
  */
 public final class Cell {
     // x, y: 2D position of this Cell
@@ -28,7 +29,15 @@ public final class Cell {
 
     // distance(Cell): Computes the actual distance between two Cells.
     public double distance(Cell other) {
-        return Math.sqrt(Math.pow((this.y - other.y), 2) + Math.pow((this.x - other.x), 2));
+        return Math.sqrt(distanceSquared(other));
+    }
+
+    // distanceSquared(Cell): Computes the actual distance between two Cells, squared. Orders Cells by distance the same
+    //    way distance() does, without leaving integers.
+    public int distanceSquared(Cell other) {
+        int dX = this.x - other.x;
+        int dY = this.y - other.y;
+        return dX * dX + dY * dY;
     }
 
     // squareDistance(Cell): Computes the square distance between two Cells (maximum of x distance or y distance).
@@ -36,6 +45,11 @@ public final class Cell {
         return Math.max(Math.abs(this.x - other.x), Math.abs(this.y - other.y));
     }
 
+    // isAdjacent(Cell): Determines if another Cell is one orthogonal step away from this one.
+    public boolean isAdjacent(Cell other) {
+        return Math.abs(this.x - other.x) + Math.abs(this.y - other.y) == 1;
+    }
+
     // equal(Cell): Determines if this Cell and another share the same position on the GameBoard.
     public boolean equals(Cell other) {
         return (this.x == other.x && this.y == other.y);
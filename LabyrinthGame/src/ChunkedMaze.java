@@ -0,0 +1,309 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Class - ChunkedMaze
+ *
+ *     Wall layout of a very large labyrinth, split into square chunks of CHUNK_SIZE cells per side.
+ *     A chunk's walls are generated from its own seed the first time they are needed, and are dropped again when
+ *     they haven't been used for a while; generating them again gives back the exact same walls.
+ *     Revealed walls can't be regenerated, so they are kept, but only for chunks in which something was revealed.
+ *     Memory therefore grows with the explored area instead of the size of the labyrinth.
+ *
+ *     Every wall belongs to exactly one chunk: the west and north sides of a cell belong to that cell's chunk.
+ *     A passage between two chunks is only ever decided by one of them, so both sides always agree on it.
+ *     Each chunk is a maze on its own with at least one opening to its west and north neighbours, so the whole
+ *     labyrinth stays connected.
+ */
+public final class ChunkedMaze {
+    // Constants
+
+    //    CHUNK_SIZE: Width and height of a chunk in cells.
+    public static final int CHUNK_SIZE = 32;
+
+    //    CACHED_CHUNKS: How many chunks' walls are kept in memory before the least recently used are dropped.
+    public static final int CACHED_CHUNKS = 256;
+
+    //    BORDER_OPENINGS: How many passages each chunk opens to its west and north neighbours.
+    private static final int BORDER_OPENINGS = 2;
+
+    //    EXTRA_PASSAGES: How many walls are knocked out per chunk after the maze is carved, to create loops.
+    private static final int EXTRA_PASSAGES = 2 * CHUNK_SIZE;
+
+    //    DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+    //    GOLDEN_GAMMA: SplitMix64 increment.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+
+    // Private Fields
+
+    //    size: Width and height of the whole labyrinth in cells.
+    private final int size;
+    public int getSize() { return size; }
+
+    //    seed: Seed the chunk seeds are derived from.
+    private long seed;
+    public long getSeed() { return seed; }
+
+    //    chunks: Walls of the recently used chunks, in least recently used order.
+    private final Map<Long, MazeChunk> chunks = new LinkedHashMap<Long, MazeChunk>(CACHED_CHUNKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MazeChunk> eldest) {
+            return size() > CACHED_CHUNKS;
+        }
+    };
+
+    //    revealed: Revealed wall bits of every chunk that has any.
+    private final Map<Long, long[]> revealed = new HashMap<Long, long[]>();
+
+    //    generatedCount: How many times a chunk has been generated, including regenerations after eviction.
+    private long generatedCount;
+    public long getGeneratedCount() { return generatedCount; }
+    public int getCachedCount() { return chunks.size(); }
+    public int getRevealedCount() { return revealed.size(); }
+
+
+    // Constructor(int, long): Creates a labyrinth of 'size' by 'size' cells whose layout is decided by 'seed'.
+    public ChunkedMaze(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+    }
+
+
+    // Public Methods
+
+    // reset(long): Turns this into the labyrinth 'seed' decides, with nothing revealed. The chunks generated so far
+    //    belong to the old layout, so they are dropped.
+    public void reset(long seed) {
+        this.seed = seed;
+        chunks.clear();
+        revealed.clear();
+    }
+
+    // getWall(int, int, boolean): Whether there is a wall on the west (vertical) or north (horizontal) side of
+    //    cell (x, y). Cells just past the east and south edges can be used to get the outer walls there.
+    public boolean getWall(int x, int y, boolean vertical) {
+        if(border(x, y, vertical)) {
+            return true;
+        }
+        if(x >= size || y >= size) {
+            return false;
+        }
+        return chunk(x, y).getWall(x % CHUNK_SIZE, y % CHUNK_SIZE, vertical);
+    }
+
+    // getRevealed(int, int, boolean): Whether the wall on the west or north side of cell (x, y) was revealed.
+    //    The east and west outer walls always are, the same as on a normal GameBoard.
+    public boolean getRevealed(int x, int y, boolean vertical) {
+        if(vertical && (x == 0 || x == size)) {
+            return true;
+        }
+        if(!vertical && y == size) {
+            return true;
+        }
+        if(x >= size || y >= size) {
+            return false;
+        }
+
+        long[] bits = revealed.get(key(x / CHUNK_SIZE, y / CHUNK_SIZE));
+        int bit = bit(x % CHUNK_SIZE, y % CHUNK_SIZE, vertical);
+        return bits != null && (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // reveal(int, int, boolean): Reveals the wall on the west or north side of cell (x, y).
+    public void reveal(int x, int y, boolean vertical) {
+        if(x >= size || y >= size || getRevealed(x, y, vertical)) {
+            return;
+        }
+
+        long[] bits = revealed.computeIfAbsent(key(x / CHUNK_SIZE, y / CHUNK_SIZE),
+                (Long key) -> new long[2 * CHUNK_SIZE * CHUNK_SIZE / Long.SIZE]);
+        int bit = bit(x % CHUNK_SIZE, y % CHUNK_SIZE, vertical);
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+
+    // writeRevealed(DataOutputStream): Writes the revealed walls, the only part of the layout the seed can't restore.
+    public void writeRevealed(DataOutputStream out) throws IOException {
+        out.writeInt(revealed.size());
+        for(Map.Entry<Long, long[]> entry : revealed.entrySet()) {
+            out.writeLong(entry.getKey());
+            for(long word : entry.getValue()) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    // readRevealed(DataInputStream): Reads walls written by writeRevealed() back in, revealing them.
+    public void readRevealed(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for(int i = 0; i < count; i++) {
+            long[] bits = new long[2 * CHUNK_SIZE * CHUNK_SIZE / Long.SIZE];
+            long key = in.readLong();
+            for(int j = 0; j < bits.length; j++) {
+                bits[j] = in.readLong();
+            }
+            revealed.put(key, bits);
+        }
+    }
+
+
+    // Private Methods
+
+    // border(int, int, boolean): Whether the given wall is on the outside of the labyrinth.
+    private boolean border(int x, int y, boolean vertical) {
+        if(vertical) {
+            return (x == 0 || x == size) && y < size;
+        }
+        return (y == 0 || y == size) && x < size;
+    }
+
+    // chunk(int, int): The chunk that holds cell (x, y), generated if it isn't in memory.
+    private MazeChunk chunk(int x, int y) {
+        int chunkX = x / CHUNK_SIZE;
+        int chunkY = y / CHUNK_SIZE;
+        long key = key(chunkX, chunkY);
+        MazeChunk chunk = chunks.get(key);
+
+        if(chunk == null) {
+            chunk = new MazeChunk(chunkX, chunkY);
+            chunks.put(key, chunk);
+            ++generatedCount;
+        }
+
+        return chunk;
+    }
+
+    // key(int, int): Map key of a chunk.
+    private static long key(int chunkX, int chunkY) {
+        return ((long)chunkX << 32) | (chunkY & 0xffffffffL);
+    }
+
+    // bit(int, int, boolean): Bit index of a wall within a chunk.
+    private static int bit(int localX, int localY, boolean vertical) {
+        return 2 * (localY * CHUNK_SIZE + localX) + (vertical ? 0 : 1);
+    }
+
+
+    // Private Classes
+
+    // MazeChunk: The walls of one chunk.
+    private final class MazeChunk {
+        // walls: One bit per wall, using the same index as bit().
+        private final long[] walls = new long[2 * CHUNK_SIZE * CHUNK_SIZE / Long.SIZE];
+
+        // random: Generator state, seeded from the labyrinth seed and the chunk position.
+        private long random;
+
+        // Constructor(int, int): Generates the chunk at the given chunk coordinates.
+        private MazeChunk(int chunkX, int chunkY) {
+            int width = Math.min(CHUNK_SIZE, size - chunkX * CHUNK_SIZE);
+            int height = Math.min(CHUNK_SIZE, size - chunkY * CHUNK_SIZE);
+
+            random = mix(seed ^ key(chunkX, chunkY) * GOLDEN_GAMMA);
+            Arrays.fill(walls, -1L);
+
+            carve(width, height);
+
+            for(int i = 0; i < EXTRA_PASSAGES; i++) {
+                int localX = nextInt(width);
+                int localY = nextInt(height);
+                boolean vertical = nextInt(2) == 1;
+
+                if(vertical ? localX > 0 : localY > 0) {
+                    open(localX, localY, vertical);
+                }
+            }
+
+            for(int i = 0; i < BORDER_OPENINGS; i++) {
+                if(chunkX > 0) {
+                    open(0, nextInt(height), true);
+                }
+                if(chunkY > 0) {
+                    open(nextInt(width), 0, false);
+                }
+            }
+        }
+
+        // getWall(int, int, boolean): Whether the west or north side of a cell in this chunk is a wall.
+        private boolean getWall(int localX, int localY, boolean vertical) {
+            int bit = bit(localX, localY, vertical);
+            return (walls[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        // open(int, int, boolean): Removes the wall on the west or north side of a cell in this chunk.
+        private void open(int localX, int localY, boolean vertical) {
+            int bit = bit(localX, localY, vertical);
+            walls[bit >>> 6] &= ~(1L << bit);
+        }
+
+        // carve(int, int): Carves a maze through the chunk using the Recursive-Backtracking method, with an explicit
+        //    stack so large chunks can't overflow the thread's stack.
+        private void carve(int width, int height) {
+            boolean[] visited = new boolean[width * height];
+            int[] stack = new int[width * height];
+            int[] options = new int[4];
+            int top = 0;
+
+            int start = nextInt(width * height);
+            visited[start] = true;
+            stack[top++] = start;
+
+            while(top > 0) {
+                int cell = stack[top - 1];
+                int localX = cell % width;
+                int localY = cell / width;
+                int choices = 0;
+
+                for(int direction = 0; direction < 4; direction++) {
+                    int nextX = localX + DELTA_X[direction];
+                    int nextY = localY + DELTA_Y[direction];
+
+                    if(nextX >= 0 && nextX < width && nextY >= 0 && nextY < height && !visited[nextY * width + nextX]) {
+                        options[choices++] = direction;
+                    }
+                }
+
+                if(choices == 0) {
+                    --top;
+                    continue;
+                }
+
+                int direction = options[nextInt(choices)];
+                int nextX = localX + DELTA_X[direction];
+                int nextY = localY + DELTA_Y[direction];
+
+                switch(direction) {
+                    case 0 -> open(nextX, nextY, true);
+                    case 1 -> open(localX, localY, true);
+                    case 2 -> open(nextX, nextY, false);
+                    default -> open(localX, localY, false);
+                }
+
+                visited[nextY * width + nextX] = true;
+                stack[top++] = nextY * width + nextX;
+            }
+        }
+
+        // nextInt(int): Returns a pseudo-random number in [0, bound).
+        private int nextInt(int bound) {
+            random += GOLDEN_GAMMA;
+            return (int)((mix(random) >>> 33) % bound);
+        }
+    }
+
+    // mix(long): SplitMix64 finaliser, used to derive well spread seeds and random numbers.
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,13 +1,126 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 /* Class - Driver
  *
  * Main game driver.
+ * Any player numbers passed as arguments (e.g. "2") are played by the computer.
+ * A "size=N" argument plays on an N by N board; boards larger than the screen scroll with the active player.
+ * A "terminal" argument plays in the terminal instead of a window, for machines without a display.
+ * An "outcomes=FILE" argument records every finished game in FILE, see OutcomeStore.
+ * A "hibernate=SECONDS" argument writes the game to disk after a player was idle that long, see SessionManager.
+ * A "startup" argument exits as soon as the first board is on screen, for StartupBench.sh to time.
+ * A "heatmap=DIRECTORY" argument counts where things happen on the board, and writes the maps there on exit, see HeatMap.
+ * A "levels=N" argument plays N levels, moving on to a larger labyrinth with a stronger Foe after every win, see Levels.
+ * "turn=SECONDS" and "gameover=SECONDS" arguments end a human player's turn, and move on from the game over screen, after that long, see TurnTimer.
+ * An "export=DIRECTORY" argument keeps every session's state in a memory-mapped file there for other processes, see StateExport.
  */
 
 public final class Driver
 {
+    // Constants - SIZE_ARGUMENT: Prefix of the board size argument.
+    private static final String SIZE_ARGUMENT = "size=";
+
+    // Constants - TERMINAL_ARGUMENT: Argument that selects the terminal front end.
+    private static final String TERMINAL_ARGUMENT = "terminal";
+
+    // Constants - STARTUP_ARGUMENT: Argument that exits once the first board has been rendered, see StartupProbe.
+    private static final String STARTUP_ARGUMENT = "startup";
+
+    // Constants - OUTCOMES_ARGUMENT: Prefix of the argument naming the file finished games are recorded in.
+    private static final String OUTCOMES_ARGUMENT = "outcomes=";
+
+    // Constants - HIBERNATE_ARGUMENT: Prefix of the argument setting how many idle seconds a session hibernates after.
+    private static final String HIBERNATE_ARGUMENT = "hibernate=";
+
+    // Constants - HEATMAP_ARGUMENT: Prefix of the argument naming the directory heat maps are written to.
+    private static final String HEATMAP_ARGUMENT = "heatmap=";
+
+    // Constants - LEVELS_ARGUMENT: Prefix of the argument setting how many levels are played.
+    private static final String LEVELS_ARGUMENT = "levels=";
+
+    // Constants - EXPORT_ARGUMENT: Prefix of the argument naming the directory session states are exported to.
+    private static final String EXPORT_ARGUMENT = "export=";
+
+    // Constants - TURN_ARGUMENT, GAME_OVER_ARGUMENT: Prefixes of the arguments setting the time limits, in seconds.
+    private static final String TURN_ARGUMENT = "turn=";
+    private static final String GAME_OVER_ARGUMENT = "gameover=";
+
+    // Constants - MILLISECONDS: How many milliseconds occur in a second.
+    private static final long MILLISECONDS = 1000;
+
     // main: Starts the game.
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException, InterruptedException
     {
-        Session session = new Session(new BoardGUI());
+        int boardSize = GameBoard.SIZE;
+        int[] computerPlayers = new int[args.length];
+        int computerCount = 0;
+        boolean terminal = false;
+        OutcomeStore outcomeStore = null;
+        long hibernateSeconds = 0;
+        String heatMapDirectory = null;
+        int levelCount = 1;
+        long turnSeconds = 0;
+        long gameOverSeconds = 0;
+
+        for(String arg : args) {
+            if(arg.equals(TERMINAL_ARGUMENT)) {
+                terminal = true;
+            } else if(arg.equals(STARTUP_ARGUMENT)) {
+                StartupProbe.enable();
+            } else if(arg.startsWith(OUTCOMES_ARGUMENT)) {
+                outcomeStore = new OutcomeStore(Paths.get(arg.substring(OUTCOMES_ARGUMENT.length())));
+            } else if(arg.startsWith(HIBERNATE_ARGUMENT)) {
+                hibernateSeconds = Long.parseLong(arg.substring(HIBERNATE_ARGUMENT.length()));
+            } else if(arg.startsWith(HEATMAP_ARGUMENT)) {
+                heatMapDirectory = arg.substring(HEATMAP_ARGUMENT.length());
+            } else if(arg.startsWith(EXPORT_ARGUMENT)) {
+                StateExport.enable(Paths.get(arg.substring(EXPORT_ARGUMENT.length())));
+            } else if(arg.startsWith(TURN_ARGUMENT)) {
+                turnSeconds = Long.parseLong(arg.substring(TURN_ARGUMENT.length()));
+            } else if(arg.startsWith(GAME_OVER_ARGUMENT)) {
+                gameOverSeconds = Long.parseLong(arg.substring(GAME_OVER_ARGUMENT.length()));
+            } else if(arg.startsWith(LEVELS_ARGUMENT)) {
+                levelCount = Integer.parseInt(arg.substring(LEVELS_ARGUMENT.length()));
+            } else if(arg.startsWith(SIZE_ARGUMENT)) {
+                boardSize = Math.max(GameBoard.SIZE, Integer.parseInt(arg.substring(SIZE_ARGUMENT.length())));
+            } else {
+                computerPlayers[computerCount++] = Integer.parseInt(arg);
+            }
+        }
+
+        TurnTimer.enable(turnSeconds * MILLISECONDS, gameOverSeconds * MILLISECONDS);
+
+        IGameEventHandler gameEventHandler = (terminal ? new TerminalUI() : new BoardGUI());
+
+        Levels levels = (levelCount > 1 ? new Levels(levelCount, boardSize, Rules.DEFAULT) : null);
+
+        // Only one session plays at a time, so one stripe is enough. The map covers the largest level's board.
+        int heatMapSize = (levels == null ? boardSize : levels.boardSize(levels.getCount()));
+        HeatMap heatMap = (heatMapDirectory == null ? null : new HeatMap(heatMapSize, 1));
+        if(heatMap != null) {
+            Path directory = Paths.get(heatMapDirectory);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    heatMap.export(directory);
+                } catch (IOException exception) {
+                    System.out.println("Writing the heat maps failed: " + exception);
+                }
+            }));
+        }
+
+        if(hibernateSeconds > 0) {
+            SessionManager manager = new SessionManager(Files.createTempDirectory("labyrinth"), hibernateSeconds * MILLISECONDS);
+            manager.host(gameEventHandler, Arrays.copyOf(computerPlayers, computerCount), boardSize, Rules.DEFAULT, outcomeStore, heatMap, levels);
+
+            // A hibernating session has no thread left, so keep the program running for it to wake.
+            Thread.currentThread().join();
+        } else {
+            Session session = new Session(gameEventHandler, Arrays.copyOf(computerPlayers, computerCount), boardSize, Rules.DEFAULT, outcomeStore, heatMap, levels);
+        }
     }
 }
@@ -0,0 +1,111 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/* Class - EventBus
+ *
+ *     Typed publish/subscribe bus the Models report their changes on. Any number of subscribers can listen to each
+ *     type of GameEvent, and only hear about that type.
+ *     Each type has its own pool of event objects: publishing takes one from the pool and puts it back after
+ *     dispatch, so once the pools have warmed up the turn loop doesn't allocate anything to notify the view.
+ *
+ *     Not thread-safe; like the Models, it is only used from the gameplay thread.
+ *
+ * Patterns:
+ *     This is the 'Observer' pattern, connecting the 'Model' and 'View' in the Model-Controller-View pattern.
+ */
+public final class EventBus {
+    // Constants - MAX_POOLED: How many spare events of each type are kept for reuse.
+    private static final int MAX_POOLED = 16;
+
+    // channels: The subscribers and event pool of every event type.
+    private final Map<Class<?>, Channel<?>> channels = new IdentityHashMap<Class<?>, Channel<?>>();
+
+
+    // Constructor: Creates a bus for every GameEvent type.
+    public EventBus() {
+        register(GameEvent.ActorMoved.class, GameEvent.ActorMoved::new);
+        register(GameEvent.ActorChanged.class, GameEvent.ActorChanged::new);
+        register(GameEvent.PlayerWounded.class, GameEvent.PlayerWounded::new);
+        register(GameEvent.TreasureTaken.class, GameEvent.TreasureTaken::new);
+        register(GameEvent.FoeAwoke.class, GameEvent.FoeAwoke::new);
+        register(GameEvent.WallRevealed.class, GameEvent.WallRevealed::new);
+        register(GameEvent.BoardChanged.class, GameEvent.BoardChanged::new);
+    }
+
+
+    // Public Methods
+
+    // subscribe(Class<E>, IEventSubscriber<? super E>): Has 'subscriber' handle every published event of the given type.
+    public <E extends GameEvent> void subscribe(Class<E> type, IEventSubscriber<? super E> subscriber) {
+        channel(type).subscribers.add(subscriber);
+    }
+
+    // hasSubscribers(Class<?>): Whether anyone listens to the given event type; publishers can skip filling in events
+    //    nobody will see.
+    public boolean hasSubscribers(Class<? extends GameEvent> type) {
+        return !channel(type).subscribers.isEmpty();
+    }
+
+    // obtain(Class<E>): Gets an event of the given type from its pool, creating one if the pool is empty.
+    public <E extends GameEvent> E obtain(Class<E> type) {
+        Channel<E> channel = channel(type);
+        E event = channel.pool.pollFirst();
+
+        return (event != null ? event : channel.factory.get());
+    }
+
+    // publish(E): Hands an obtained event to every subscriber of its type, then recycles it.
+    public <E extends GameEvent> void publish(E event) {
+        @SuppressWarnings("unchecked")
+        Channel<E> channel = (Channel<E>)channels.get(event.getClass());
+        ArrayList<IEventSubscriber<? super E>> subscribers = channel.subscribers;
+        TurnTrace.ModelNotification trace = TurnTrace.modelNotification();
+
+        // Indexed, so that no iterator is allocated.
+        for(int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).handle(event);
+        }
+        TurnTrace.commit(trace);
+
+        event.reset();
+        if(channel.pool.size() < MAX_POOLED) {
+            channel.pool.addFirst(event);
+        }
+    }
+
+
+    // Private Methods
+
+    // register(Class<E>, Supplier<E>): Sets up the channel of an event type.
+    private <E extends GameEvent> void register(Class<E> type, Supplier<E> factory) {
+        channels.put(type, new Channel<E>(factory));
+    }
+
+    // channel(Class<E>): The channel of an event type.
+    private <E extends GameEvent> Channel<E> channel(Class<E> type) {
+        @SuppressWarnings("unchecked")
+        Channel<E> channel = (Channel<E>)channels.get(type);
+
+        if(channel == null) {
+            throw new IllegalArgumentException("Unknown event type: " + type.getName());
+        }
+        return channel;
+    }
+
+
+    // Private Classes
+
+    // Channel: The subscribers and spare events of one event type.
+    private static final class Channel<E extends GameEvent> {
+        private final Supplier<E> factory;
+        private final ArrayList<IEventSubscriber<? super E>> subscribers = new ArrayList<IEventSubscriber<? super E>>();
+        private final ArrayDeque<E> pool = new ArrayDeque<E>(MAX_POOLED);
+
+        private Channel(Supplier<E> factory) {
+            this.factory = factory;
+        }
+    }
+}
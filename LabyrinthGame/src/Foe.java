@@ -13,8 +13,26 @@ public final class Foe extends Actor {
     private boolean awake = false;
     public boolean getAwake() { return awake; }
     public void setAwake(boolean value) {
+        if(awake == value) {
+            return;
+        }
         awake = value;
-        triggerDataChange(this);
+
+        if(value) {
+            GameEvent.FoeAwoke event = changed(GameEvent.FoeAwoke.class);
+            if(event != null) {
+                publish(event.set(this));
+            }
+        } else {
+            triggerDataChange();
+        }
+    }
+
+    // @Override reset(): Puts this Foe back the way it was created, asleep and hidden.
+    @Override
+    public void reset() {
+        super.reset();
+        awake = false;
     }
 
     // Constructor: Creates a Foe with the given ID.
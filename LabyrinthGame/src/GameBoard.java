@@ -1,4 +1,9 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Random;
 
@@ -10,24 +15,49 @@ import java.util.Random;
  *     Part of the 'Model' in the Model-Controller-View pattern.
  */
 
-public final class GameBoard extends Model<GameBoard>
+public final class GameBoard extends Model
 {
     // Constants - Size: The size of the maze to be generated.
     public static final int SIZE = 8;
 
-    // walls(4): Holds the walls in the labyrinth layout.
-    private boolean[][] wallsVertical = new boolean[SIZE +1][SIZE +1];;
+    // Constants - MAX_FAIRNESS_ATTEMPTS: How many treasure rooms to try before settling for one that isn't fair.
+    private static final int MAX_FAIRNESS_ATTEMPTS = 100;
+
+    // Constants - MAX_ANALYZED_SIZE: Largest chunked board analyze() handles; all its chunks still fit the chunk cache.
+    private static final int MAX_ANALYZED_SIZE = 16 * ChunkedMaze.CHUNK_SIZE;
+
+    // Constants - OPTION_*: Bits for the directions generateMaze() can carve in, in the order it picks from them.
+    private static final int OPTION_EAST = 1;
+    private static final int OPTION_WEST = 2;
+    private static final int OPTION_NORTH = 4;
+    private static final int OPTION_SOUTH = 8;
+
+    // size: Width and height of this board in cells. SIZE, unless the board is chunked.
+    private final int size;
+    public int getSize() { return size; }
+
+    // walls(4): Holds the walls in the labyrinth layout. Null on a chunked board.
+    private boolean[][] wallsVertical;
     
-    private boolean[][] wallsHorizontal = new boolean[SIZE +1][SIZE +1];
+    private boolean[][] wallsHorizontal;
 
-    private boolean[][] revealedVertical = new boolean[SIZE +1][SIZE +1];
+    private boolean[][] revealedVertical;
 
-    private boolean[][] revealedHorizontal = new boolean[SIZE +1][SIZE +1];
+    private boolean[][] revealedHorizontal;
 
+    // getWallData(): Returns the four wall arrays. Chunked boards have no such arrays; use getWall/getRevealed instead.
+    //    The arrays are the live ones, for the gameplay thread; other threads read a Session's SnapshotPublisher.
     public boolean[][][] getWallData() {
+        if(chunkedMaze != null) {
+            throw new UnsupportedOperationException("A chunked GameBoard has no wall arrays.");
+        }
         return new boolean[][][] {wallsVertical, wallsHorizontal, revealedVertical, revealedHorizontal};
     }
 
+    // chunkedMaze: Holds the layout of a very large board, generated as it gets explored. Null on a normal board.
+    private ChunkedMaze chunkedMaze;
+    public boolean isChunked() { return chunkedMaze != null; }
+
     // treasureReturned: Holds whether the treasure was returned by the Foe.
     private boolean treasureReturned = false;
     public boolean getTreasureReturned() { return treasureReturned; }
@@ -37,84 +67,225 @@ public final class GameBoard extends Model<GameBoard>
     private boolean hasTreasure = true;
     public boolean getTreasure() { return hasTreasure; }
     public void setTreasure(boolean value) {
+        if(hasTreasure == value) {
+            return;
+        }
         if(!hasTreasure && value) {
             treasureReturned = true;
         }
         hasTreasure = value;
-        triggerDataChange(this);
+        triggerDataChange();
     }
 
     // treasureRoom: Holds the position of the treasure room.
     private Cell treasureRoom = new Cell();
-    public Cell getTreasureRoom() { return new Cell(treasureRoom); }
+    public Cell getTreasureRoom() { return treasureRoom; }
 
-    // secretRooms: Holds the secret rooms of all players.
+    // secretRooms: Holds the secret rooms of all players. The live list, the same as getWallData().
     private ArrayList<SecretRoom> secretRooms = new ArrayList<SecretRoom>();
     public ArrayList<SecretRoom> getSecretRooms() {
         return secretRooms;
     }
 
+    // cells: One shared Cell for every position on a normal board, indexed y * SIZE + x. Null on a chunked board.
+    private Cell[] cells;
+
     // random: Random instance used for this class.
-    private Random random = new Random();
+    private Random random;
+
+    // visited: Scratch space for generateMaze(), marking the cells the maze has reached. Null on a chunked board.
+    private boolean[][] visited;
+
+    // analysis: The layout's MazeAnalyzer, if analyze() built it ahead of time. Null otherwise.
+    private MazeAnalyzer analysis;
+
+    // seed: The seed this board's layout was generated from.
+    private long seed;
+    public long getSeed() { return seed; }
 
     // Constructor(): Creates a new GameBoard with a randomized layout.
     public GameBoard() {
+        this(new Random().nextLong());
+    }
+
+    // Constructor(long): Creates a new GameBoard whose layout and treasure room are decided by 'seed'.
+    public GameBoard(long seed) {
+        size = SIZE;
+        this.seed = seed;
+        random = new Random(seed);
+        wallsVertical = new boolean[SIZE +1][SIZE +1];
+        wallsHorizontal = new boolean[SIZE +1][SIZE +1];
+        revealedVertical = new boolean[SIZE +1][SIZE +1];
+        revealedHorizontal = new boolean[SIZE +1][SIZE +1];
+
+        visited = new boolean[SIZE][SIZE];
+
+        cells = new Cell[SIZE * SIZE];
+        for(int i = 0; i < cells.length; i++) {
+            cells[i] = new Cell(i % SIZE, i / SIZE);
+        }
+
+        generateMaze();
+    }
+
+    // Constructor(int, long): Creates a chunked GameBoard of 'size' by 'size' cells, whose layout is decided by 'seed'
+    //    and only generated around where the actors go.
+    public GameBoard(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.chunkedMaze = new ChunkedMaze(size, seed);
+    }
+
+    // reset(long): Turns this board into a new one whose layout and treasure room are decided by 'seed', the same as
+    //    a board newly created with it. The maze is generated into the arrays already there, so nothing is allocated on
+    //    a normal board; a chunked board drops its generated chunks.
+    public void reset(long seed) {
+        this.seed = seed;
+        random.setSeed(seed);
+
+        hasTreasure = true;
+        treasureReturned = false;
+        treasureRoom = getCell(0, 0);
+        secretRooms.clear();
+        analysis = null;
+
+        if(chunkedMaze != null) {
+            chunkedMaze.reset(seed);
+            triggerDataChange();
+            return;
+        }
+
+        for(int i = 0; i < SIZE + 1; i++) {
+            Arrays.fill(revealedVertical[i], false);
+            Arrays.fill(revealedHorizontal[i], false);
+        }
         generateMaze();
     }
 
+    // getCell(int, int): The Cell at (x, y). Shared on a normal board so moving around doesn't allocate; a chunked
+    //    board is too large to keep one per position, and positions off the board are never shared.
+    public Cell getCell(int x, int y) {
+        if(cells != null && x >= 0 && x < SIZE && y >= 0 && y < SIZE) {
+            return cells[y * SIZE + x];
+        }
+        return new Cell(x, y);
+    }
+
+    // getWall(int, int, boolean): Whether there is a wall on the west (vertical) or north (horizontal) side of cell (x, y).
+    public boolean getWall(int x, int y, boolean vertical) {
+        if(chunkedMaze != null) {
+            return chunkedMaze.getWall(x, y, vertical);
+        }
+        return (vertical ? wallsVertical[y][x] : wallsHorizontal[y][x]);
+    }
+
+    // getRevealed(int, int, boolean): Whether the wall on the west (vertical) or north (horizontal) side of cell (x, y)
+    //    has been revealed.
+    public boolean getRevealed(int x, int y, boolean vertical) {
+        if(chunkedMaze != null) {
+            return chunkedMaze.getRevealed(x, y, vertical);
+        }
+        return (vertical ? revealedVertical[y][x] : revealedHorizontal[y][x]);
+    }
+
+    // reveal(int, int, boolean): Reveals the wall on the west (vertical) or north (horizontal) side of cell (x, y).
+    private void reveal(int x, int y, boolean vertical) {
+        if(getRevealed(x, y, vertical)) {
+            return;
+        }
+
+        if(chunkedMaze != null) {
+            chunkedMaze.reveal(x, y, vertical);
+        } else if (vertical) {
+            revealedVertical[y][x] = true;
+        } else {
+            revealedHorizontal[y][x] = true;
+        }
+
+        GameEvent.WallRevealed event = changed(GameEvent.WallRevealed.class);
+        if(event != null) {
+            publish(event.set(this, x, y, vertical));
+        }
+    }
+
     // moveValid(Cell, Cell, boolean): Determines if an actor can move between two cells, and if there is a wall,
     //    that wall is revealed if 'reveal' is true.
     public boolean moveValid(Cell from, Cell to, boolean reveal) {
-        boolean blocked = true;
         int dX = to.x - from.x;
         int dY = to.y - from.y;
 
-        if(dX == -1) {
-            blocked = wallsVertical[from.y][from.x];
-            revealedVertical[from.y][from.x] = revealedVertical[from.y][from.x] || reveal;
-        } else if (dX == 1) {
-            blocked = wallsVertical[from.y][from.x + 1];
-            revealedVertical[from.y][from.x + 1] = revealedVertical[from.y][from.x + 1] || reveal;
-        } else if (dY == -1) {
-            blocked = wallsHorizontal[from.y][from.x];
-            revealedHorizontal[from.y][from.x] = revealedHorizontal[from.y][from.x] || reveal;
-        } else if (dY == 1) {
-            blocked = wallsHorizontal[from.y + 1][from.x];
-            revealedHorizontal[from.y + 1][from.x] = revealedHorizontal[from.y + 1][from.x] || reveal;
-        }
-        triggerDataChange(this);
+        // The wall between the cells is on the west or north side of one of them.
+        int wallX = from.x + (dX == 1 ? 1 : 0);
+        int wallY = from.y + (dY == 1 ? 1 : 0);
+        boolean vertical = (dX != 0);
+        boolean blocked = true;
+
+        if(Math.abs(dX) + Math.abs(dY) == 1) {
+            blocked = getWall(wallX, wallY, vertical);
+            if(reveal) {
+                reveal(wallX, wallY, vertical);
+            }
+        }
         return !blocked;
     }
 
     // selectTreasureRoom(): Randomly selects the treasure room, making sure it's at least 3 spaces from any secret room.
+    //    Rooms that the MazeAnalyzer finds unfair to reach are skipped, unless no fair one turns up in time.
     public void selectTreasureRoom() {
+        MazeAnalyzer analyzer = (analysis != null ? analysis : chunkedMaze == null ? new MazeAnalyzer(this) : null);
         Cell candidate = null;
         boolean suitable = false;
+        int attempts = 0;
 
         while(!suitable) {
-            candidate = new Cell(random.nextInt(GameBoard.SIZE), random.nextInt(GameBoard.SIZE));
+            candidate = getCell(random.nextInt(size), random.nextInt(size));
 
             double minDistance = Float.MAX_VALUE;
 
-            for(SecretRoom secretRoom : secretRooms) {
-                double distance = secretRoom.getPosition().squareDistance(candidate);
+            // Indexed, so that no iterator is allocated.
+            for(int i = 0; i < secretRooms.size(); i++) {
+                double distance = secretRooms.get(i).getPosition().squareDistance(candidate);
                 if(distance < minDistance) {
                     minDistance = distance;
                 }
             }
 
             if(minDistance > 3d) {
-                suitable = true;
+                suitable = (analyzer == null || ++attempts > MAX_FAIRNESS_ATTEMPTS || analyzer.isFair(candidate, secretRooms));
             }
         }
         treasureRoom = candidate;
     }
 
+    // analyze(): Analyses the layout ahead of time, for selectTreasureRoom() to use; on a chunked board, this also
+    //    generates every chunk. Chunked boards larger than MAX_ANALYZED_SIZE are left as they are. Resetting the
+    //    board drops the analysis.
+    public void analyze() {
+        if(chunkedMaze == null) {
+            analysis = new MazeAnalyzer(this);
+            return;
+        }
+        if(size > MAX_ANALYZED_SIZE) {
+            return;
+        }
+
+        boolean[][] vertical = new boolean[size + 1][size + 1];
+        boolean[][] horizontal = new boolean[size + 1][size + 1];
+        for(int y = 0; y <= size; y++) {
+            for(int x = 0; x <= size; x++) {
+                vertical[y][x] = chunkedMaze.getWall(x, y, true);
+                horizontal[y][x] = chunkedMaze.getWall(x, y, false);
+            }
+        }
+        analysis = new MazeAnalyzer(vertical, horizontal, size);
+    }
+
     // getSecretRoom(int): Returns the secret room associated with the player whose ID has been passed.
     public Cell getSecretRoom(int id) {
-        for(SecretRoom secretRoom : secretRooms) {
-            if(secretRoom.getId() == id){
-                return secretRoom.getPosition();
+        for(int i = 0; i < secretRooms.size(); i++) {
+            if(secretRooms.get(i).getId() == id){
+                return secretRooms.get(i).getPosition();
             }
         }
 
@@ -127,14 +298,90 @@ public final class GameBoard extends Model<GameBoard>
         SecretRoom home = new SecretRoom(position, id);
 	    secretRooms.add(home);
 
-        triggerDataChange(this);
+        triggerDataChange();
+    }
+
+    // writeTo(DataOutputStream): Writes this board compactly, for readFrom() to restore. The walls come back from the
+    //    seed, so only what has been revealed, the rooms and the treasure are written.
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(seed);
+        out.writeInt(treasureRoom.x);
+        out.writeInt(treasureRoom.y);
+        out.writeBoolean(hasTreasure);
+        out.writeBoolean(treasureReturned);
+
+        out.writeInt(secretRooms.size());
+        for(SecretRoom secretRoom : secretRooms) {
+            out.writeInt(secretRoom.getId());
+            out.writeInt(secretRoom.getPosition().x);
+            out.writeInt(secretRoom.getPosition().y);
+        }
+
+        if(chunkedMaze != null) {
+            chunkedMaze.writeRevealed(out);
+            return;
+        }
+
+        BitSet revealed = new BitSet();
+        for(int i = 0; i < SIZE + 1; i++) {
+            for(int j = 0; j < SIZE + 1; j++) {
+                revealed.set(2 * (i * (SIZE + 1) + j), revealedVertical[i][j]);
+                revealed.set(2 * (i * (SIZE + 1) + j) + 1, revealedHorizontal[i][j]);
+            }
+        }
+
+        long[] bits = revealed.toLongArray();
+        out.writeInt(bits.length);
+        for(long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    // readFrom(DataInputStream): Restores a board written by writeTo(). Nothing is published while restoring.
+    public static GameBoard readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        long seed = in.readLong();
+        GameBoard board = (size > SIZE ? new GameBoard(size, seed) : new GameBoard(seed));
+
+        board.treasureRoom = board.getCell(in.readInt(), in.readInt());
+        board.hasTreasure = in.readBoolean();
+        board.treasureReturned = in.readBoolean();
+
+        int rooms = in.readInt();
+        for(int i = 0; i < rooms; i++) {
+            int id = in.readInt();
+            board.secretRooms.add(new SecretRoom(board.getCell(in.readInt(), in.readInt()), id));
+        }
+
+        if(board.chunkedMaze != null) {
+            board.chunkedMaze.readRevealed(in);
+            return board;
+        }
+
+        long[] bits = new long[in.readInt()];
+        for(int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+
+        BitSet revealed = BitSet.valueOf(bits);
+        for(int i = 0; i < SIZE + 1; i++) {
+            for(int j = 0; j < SIZE + 1; j++) {
+                board.revealedVertical[i][j] = revealed.get(2 * (i * (SIZE + 1) + j));
+                board.revealedHorizontal[i][j] = revealed.get(2 * (i * (SIZE + 1) + j) + 1);
+            }
+        }
+        return board;
     }
 
     // generateMaze(): Generates the labyrinth layout.
     private void generateMaze()
     {
-        boolean[][] cells = new boolean[SIZE][SIZE];
-        Random rn = new Random();
+        Random rn = random;
+
+        for(boolean[] column : visited) {
+            Arrays.fill(column, false);
+        }
 
         int startX = rn.nextInt(SIZE);
         int startY = rn.nextInt(SIZE);
@@ -148,7 +395,7 @@ public final class GameBoard extends Model<GameBoard>
             }
         }
 
-        generateMaze(startX, startY, cells);
+        generateMaze(startX, startY);
 
         for(int i = 0; i < SIZE + 1; i++) {
             for (int j = 0; j < SIZE + 1; j++) {
@@ -176,57 +423,69 @@ public final class GameBoard extends Model<GameBoard>
                 wallsHorizontal[randPosX][randPosY] = false;
         }
 
-        triggerDataChange(this);
+        triggerDataChange();
     }
 
-    // generateMaze(int int, boolean[][]): Recursive subroutine for generating the maze; uses the Recursive-Backtracking method.
-    private void generateMaze(int x, int y, boolean[][] cells)
+    // triggerDataChange(): Publishes that something other than a revealed wall changed on this board.
+    private void triggerDataChange() {
+        GameEvent.BoardChanged event = changed(GameEvent.BoardChanged.class);
+        if(event != null) {
+            publish(event.set(this));
+        }
+    }
+
+    // generateMaze(int int): Recursive subroutine for generating the maze; uses the Recursive-Backtracking method.
+    //    The open directions are kept as bits (in the order E, W, N, S) rather than in a list, so nothing is allocated.
+    private void generateMaze(int x, int y)
     {
-        cells[x][y] = true;
-        ArrayList<Character> optionPool;
+        visited[x][y] = true;
         while(true) 
         {
-            optionPool = new ArrayList<Character>();
-            if(x + 1 < SIZE && !cells[x + 1][y])
+            int optionPool = 0;
+            if(x + 1 < SIZE && !visited[x + 1][y])
             {
-                optionPool.add('E');
+                optionPool |= OPTION_EAST;
             }
-            if(x - 1 >= 0 && !cells[x - 1][y])
+            if(x - 1 >= 0 && !visited[x - 1][y])
             {
-                optionPool.add('W');
+                optionPool |= OPTION_WEST;
             }
-            if(y + 1 < SIZE && !cells[x][y+1])
+            if(y + 1 < SIZE && !visited[x][y+1])
             {
-                optionPool.add('N');
+                optionPool |= OPTION_NORTH;
             }
-            if(y - 1 >= 0 && !cells[x][y-1])
+            if(y - 1 >= 0 && !visited[x][y-1])
             {
-                optionPool.add('S');
+                optionPool |= OPTION_SOUTH;
             }
 
-            if(optionPool.size() > 0)
+            if(optionPool != 0)
             {
-                char option = optionPool.get(random.nextInt(optionPool.size()));
+                int option = optionPool;
+                for(int skip = random.nextInt(Integer.bitCount(optionPool)); skip > 0; skip--) {
+                    option &= option - 1;
+                }
+                option = Integer.lowestOneBit(option);
 
-                if(option == 'N')
+                if(option == OPTION_NORTH)
                 {
                     wallsVertical[x][y + 1] = false;
-                    generateMaze(x, y + 1, cells);
+                    generateMaze(x, y + 1);
                 }
-                else if(option == 'S')
+                else if(option == OPTION_SOUTH)
                 {
                     wallsVertical[x][y] = false;
-                    generateMaze(x, y - 1, cells);
+                    generateMaze(x, y - 1);
                 }
-                else if(option == 'W')
+                else if(option == OPTION_WEST)
                 {
                     wallsHorizontal[x][y] = false;
-                    generateMaze(x - 1, y, cells);
+                    generateMaze(x - 1, y);
                 }
-                else if(option == 'E')
+                else if(option == OPTION_EAST)
                 {
                     wallsHorizontal[x + 1][y] = false;
-                    generateMaze(x + 1, y, cells);
+                    generateMaze(x + 1, y);
                 }
             } else {
                 break;
@@ -0,0 +1,137 @@
+/* Abstract Class - GameEvent
+ *
+ *     Base class of the events a Model publishes on an EventBus when its data changes.
+ *     Events are pooled: get one with EventBus.obtain(), fill it in with set(), and hand it to EventBus.publish(),
+ *     which recycles it once every subscriber has seen it. Subscribers must therefore not keep an event around.
+ */
+public abstract class GameEvent {
+
+    // reset(): Drops the references held by this event before it goes back into the pool.
+    protected abstract void reset();
+
+
+    // ActorMoved: An actor moved from one cell to another.
+    public static final class ActorMoved extends GameEvent {
+        private Actor actor;
+        private int fromX, fromY, toX, toY;
+
+        public Actor getActor() { return actor; }
+        public int getFromX() { return fromX; }
+        public int getFromY() { return fromY; }
+        public int getToX() { return toX; }
+        public int getToY() { return toY; }
+
+        public ActorMoved set(Actor actor, int fromX, int fromY, int toX, int toY) {
+            this.actor = actor;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+            return this;
+        }
+
+        @Override
+        protected void reset() { actor = null; }
+    }
+
+    // ActorChanged: Any other change to an actor, such as its visibility or whether it is safe.
+    public static final class ActorChanged extends GameEvent {
+        private Actor actor;
+
+        public Actor getActor() { return actor; }
+
+        public ActorChanged set(Actor actor) {
+            this.actor = actor;
+            return this;
+        }
+
+        @Override
+        protected void reset() { actor = null; }
+    }
+
+    // PlayerWounded: A player was wounded, and is now at the given injured level.
+    public static final class PlayerWounded extends GameEvent {
+        private Player player;
+        private int injuredLevel;
+
+        public Player getPlayer() { return player; }
+        public int getInjuredLevel() { return injuredLevel; }
+
+        public PlayerWounded set(Player player, int injuredLevel) {
+            this.player = player;
+            this.injuredLevel = injuredLevel;
+            return this;
+        }
+
+        @Override
+        protected void reset() { player = null; }
+    }
+
+    // TreasureTaken: A player picked up or was handed the treasure.
+    public static final class TreasureTaken extends GameEvent {
+        private Player player;
+
+        public Player getPlayer() { return player; }
+
+        public TreasureTaken set(Player player) {
+            this.player = player;
+            return this;
+        }
+
+        @Override
+        protected void reset() { player = null; }
+    }
+
+    // FoeAwoke: The Foe was awakened.
+    public static final class FoeAwoke extends GameEvent {
+        private Foe foe;
+
+        public Foe getFoe() { return foe; }
+
+        public FoeAwoke set(Foe foe) {
+            this.foe = foe;
+            return this;
+        }
+
+        @Override
+        protected void reset() { foe = null; }
+    }
+
+    // WallRevealed: The wall on the west (vertical) or north (horizontal) side of cell (x, y) was revealed.
+    public static final class WallRevealed extends GameEvent {
+        private GameBoard board;
+        private int x, y;
+        private boolean vertical;
+
+        public GameBoard getBoard() { return board; }
+        public int getX() { return x; }
+        public int getY() { return y; }
+        public boolean getVertical() { return vertical; }
+
+        public WallRevealed set(GameBoard board, int x, int y, boolean vertical) {
+            this.board = board;
+            this.x = x;
+            this.y = y;
+            this.vertical = vertical;
+            return this;
+        }
+
+        @Override
+        protected void reset() { board = null; }
+    }
+
+    // BoardChanged: Any other change to the board, such as a new layout, a secret room or the treasure moving.
+    public static final class BoardChanged extends GameEvent {
+        private GameBoard board;
+
+        public GameBoard getBoard() { return board; }
+
+        public BoardChanged set(GameBoard board) {
+            this.board = board;
+            return this;
+        }
+
+        @Override
+        protected void reset() { board = null; }
+    }
+}
@@ -0,0 +1,59 @@
+/* Data Class - GameOutcome
+ *
+ *    Holds what happened in one finished game, as recorded by an OutcomeStore.
+ *    Like Cell, it never changes once created.
+ */
+public final class GameOutcome {
+    // Constants
+
+    //    NEVER: Round of something that didn't happen, e.g. the Foe never waking.
+    public static final int NEVER = -1;
+
+    //    NO_HOME: Home distance of a seat nobody played.
+    public static final int NO_HOME = -1;
+
+
+    // Private Fields (+Getters)
+
+    //    winner: ID of the winning actor: 0 for the Foe, otherwise the winning player.
+    private final int winner;
+    public int getWinner() { return winner; }
+
+    //    rounds: Rounds played.
+    private final int rounds;
+    public int getRounds() { return rounds; }
+
+    //    foeAwokeRound: Round the Foe woke up in, or NEVER.
+    private final int foeAwokeRound;
+    public int getFoeAwokeRound() { return foeAwokeRound; }
+
+    //    wounds, steals, renewals: How often a player was wounded by the Foe, had the treasure stolen by another
+    //    player, and was rejuvenated.
+    private final int wounds, steals, renewals;
+    public int getWounds() { return wounds; }
+    public int getSteals() { return steals; }
+    public int getRenewals() { return renewals; }
+
+    //    homeDistances: Distance (see Cell.squareDistance) from each player's home to the treasure room, by player ID,
+    //    or NO_HOME.
+    private final int[] homeDistances;
+    public int getHomeDistance(int player) { return homeDistances[player]; }
+
+    //    boardSeed: Seed of the board the game was played on.
+    private final long boardSeed;
+    public long getBoardSeed() { return boardSeed; }
+
+
+    // Constructor: Creates an outcome. 'homeDistances' is copied.
+    public GameOutcome(int winner, int rounds, int foeAwokeRound, int wounds, int steals, int renewals,
+                       int[] homeDistances, long boardSeed) {
+        this.winner = winner;
+        this.rounds = rounds;
+        this.foeAwokeRound = foeAwokeRound;
+        this.wounds = wounds;
+        this.steals = steals;
+        this.renewals = renewals;
+        this.homeDistances = homeDistances.clone();
+        this.boardSeed = boardSeed;
+    }
+}
@@ -0,0 +1,838 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/* Class - GameState
+ *
+ *     A compact, copyable copy of a game in progress that plays out the same rules as Session, without any display
+ *     or input. Used by computer players to look ahead.
+ *
+ *     Actor index 0 is always the Foe; the players follow in turn order, the same as the actor list in Session.
+ *     Walls are stored flattened in the same layout as GameBoard: index = y * (size + 1) + x, where the vertical
+ *     wall at an index is the west side of cell (x, y) and the horizontal wall is its north side.
+ *
+ *     On standard boards, the walls are also kept as Bitboards, which reachability, moves and waking the Foe are
+ *     worked out with instead; setBitboards() switches back to the arrays, e.g. to cross-check the two.
+ */
+public final class GameState {
+    // Constants
+
+    //    ACTION_EAST/WEST/SOUTH/NORTH: Step one cell in the given direction.
+    public static final int ACTION_EAST = 0;
+    public static final int ACTION_WEST = 1;
+    public static final int ACTION_SOUTH = 2;
+    public static final int ACTION_NORTH = 3;
+
+    //    ACTION_NEXT: End the turn (NEXT button).
+    public static final int ACTION_NEXT = 4;
+
+    //    ACTION_COUNT: Number of different actions a player can take.
+    public static final int ACTION_COUNT = 5;
+
+    //    DELTA_X, DELTA_Y: Cell offsets of the four movement actions.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+    //    NO_WINNER: Winner value while the game is still being played.
+    public static final int NO_WINNER = -1;
+
+    //    ONE_HUNDRED: One-hundred, used for random percentages.
+    private static final int ONE_HUNDRED = 100;
+
+
+    // Private Fields
+
+    //    size: Width and height of the board in cells.
+    private final int size;
+
+    //    walls/revealed: Flattened wall layout and which walls have been revealed.
+    private final boolean[] wallsVertical;
+    private final boolean[] wallsHorizontal;
+    private final boolean[] revealedVertical;
+    private final boolean[] revealedHorizontal;
+
+    //    treasureX, treasureY: Position of the treasure room.
+    private int treasureX, treasureY;
+
+    //    boardTreasure: Whether the treasure is in the treasure room.
+    private boolean boardTreasure;
+
+    //    actorCount: Number of actors, including the Foe.
+    private final int actorCount;
+
+    //    actorIds: The id of each actor.
+    private final int[] actorIds;
+
+    //    x, y: Positions of each actor.
+    private final int[] x, y;
+
+    //    homeX, homeY: Secret room of each player (unused for the Foe).
+    private final int[] homeX, homeY;
+
+    //    injury, fatigue, treasure, safe: Player stats (unused for the Foe).
+    private final int[] injury;
+    private final int[] fatigue;
+    private final boolean[] treasure;
+    private final boolean[] safe;
+
+    //    foeAwake: Whether the Foe has been awakened.
+    private boolean foeAwake;
+
+    //    current: Index of the actor whose turn it is.
+    private int current;
+
+    //    movesLeft: Moves the current player has left this turn.
+    private int movesLeft;
+
+    //    winner: ID of the actor that won the game, or NO_WINNER.
+    private int winner = NO_WINNER;
+
+    //    round: Number of full rounds that have been played.
+    private int round;
+
+    //    rules: The rules the game is played by.
+    private final Rules rules;
+
+    //    seed: State of the random generator used for renewals, teleports and resolutions.
+    private long seed;
+
+    //    heatMap: Where the moves, wall bumps, attacks and steals of this game are counted. Null if they aren't; copies
+    //    never count, so look-ahead doesn't show up.
+    private HeatMap heatMap;
+
+    //    open: On standard boards, the Bitboards of the cells that can be left with each movement action, kept up
+    //    to date with the walls. Null on other boards.
+    private final long[] open;
+
+    //    bitboards: Whether the rules are worked out with 'open' rather than the wall arrays.
+    private boolean bitboards;
+
+    //    pathDistances, pathQueue: Scratch space for pathDistance(), created the first time it's needed.
+    private int[] pathDistances, pathQueue;
+
+    //    moveOptions: Scratch space for amicableResolution(), created the first time it's needed.
+    private int[] moveOptions;
+
+
+    // Constructor(int, int, int, int, Rules, long): Creates an empty state; use start(), capture() or copy() to get a
+    //    filled in one.
+    private GameState(int size, int actorCount, int treasureX, int treasureY, Rules rules, long seed) {
+        int edges = (size + 1) * (size + 1);
+
+        this.size = size;
+        this.rules = rules;
+        this.actorCount = actorCount;
+        this.treasureX = treasureX;
+        this.treasureY = treasureY;
+        this.seed = (seed == 0 ? 1 : seed);
+
+        wallsVertical = new boolean[edges];
+        wallsHorizontal = new boolean[edges];
+        revealedVertical = new boolean[edges];
+        revealedHorizontal = new boolean[edges];
+
+        actorIds = new int[actorCount];
+        x = new int[actorCount];
+        y = new int[actorCount];
+        homeX = new int[actorCount];
+        homeY = new int[actorCount];
+        injury = new int[actorCount];
+        fatigue = new int[actorCount];
+        treasure = new boolean[actorCount];
+        safe = new boolean[actorCount];
+
+        open = (size == Bitboards.SIZE ? new long[4] : null);
+        bitboards = (open != null);
+    }
+
+    // start(GameBoard, Rules, long): Creates a new game on a board whose secret rooms and treasure room have been
+    //    chosen, the same as Session sets one up. Player IDs follow the secret rooms, and PLAYER 1 moves first.
+    public static GameState start(GameBoard board, Rules rules, long seed) {
+        List<SecretRoom> secretRooms = board.getSecretRooms();
+        Cell treasureRoom = board.getTreasureRoom();
+        GameState state = new GameState(board.getSize(), secretRooms.size() + 1, treasureRoom.x, treasureRoom.y, rules, seed);
+
+        state.setUp(board, seed);
+        return state;
+    }
+
+    // deal(Rules, int, long): Creates a new game for 'players' players on a new standard board, with the secret rooms
+    //    on random free cells. Everything is decided by 'seed'.
+    public static GameState deal(Rules rules, int players, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        GameBoard board = new GameBoard(random.nextLong());
+        List<Cell> homes = new ArrayList<Cell>();
+
+        while(homes.size() < players) {
+            Cell home = new Cell(random.nextInt(GameBoard.SIZE), random.nextInt(GameBoard.SIZE));
+            if(homes.stream().noneMatch(home::equals)) {
+                homes.add(home);
+                board.setHomePosition(home, homes.size());
+            }
+        }
+        board.selectTreasureRoom();
+
+        return start(board, rules, random.nextLong());
+    }
+
+    // redeal(GameBoard, long): Deals a new game into this state, the same game deal() deals for 'seed', reusing this
+    //    state's arrays and 'board', a standard board kept for the purpose. The state must be a standard one with the
+    //    same number of players. Nothing but the board's rooms is allocated.
+    public void redeal(GameBoard board, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        board.reset(random.nextLong());
+
+        for(int player = 1; player < actorCount; ) {
+            int homeCellX = random.nextInt(GameBoard.SIZE);
+            int homeCellY = random.nextInt(GameBoard.SIZE);
+
+            boolean taken = false;
+            for(int other = 1; other < player; other++) {
+                taken |= (homeX[other] == homeCellX && homeY[other] == homeCellY);
+            }
+            if(!taken) {
+                homeX[player] = homeCellX;
+                homeY[player] = homeCellY;
+                board.setHomePosition(board.getCell(homeCellX, homeCellY), player++);
+            }
+        }
+        board.selectTreasureRoom();
+
+        treasureX = board.getTreasureRoom().x;
+        treasureY = board.getTreasureRoom().y;
+        setUp(board, random.nextLong());
+    }
+
+    // capture(GameBoard, List<Actor>, Player, int, Rules, long): Copies the live game, with 'player' to move and
+    //    'movesLeft' moves left. Only boards that aren't chunked can be copied.
+    public static GameState capture(GameBoard board, List<Actor> actors, Player player, int movesLeft, Rules rules, long seed) {
+        Cell treasureRoom = board.getTreasureRoom();
+        GameState state = new GameState(board.getSize(), actors.size(), treasureRoom.x, treasureRoom.y, rules, seed);
+
+        state.copyWalls(board);
+        state.boardTreasure = board.getTreasure();
+
+        for(int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            Cell position = actor.getPosition();
+
+            state.actorIds[i] = actor.getId();
+            state.x[i] = position.x;
+            state.y[i] = position.y;
+
+            if(actor.getType() == ActorType.FOE) {
+                state.foeAwake = ((Foe)actor).getAwake();
+            } else {
+                Player other = (Player)actor;
+                Cell home = board.getSecretRoom(other.getId());
+
+                state.homeX[i] = home.x;
+                state.homeY[i] = home.y;
+                state.injury[i] = other.getInjuredLevel();
+                state.fatigue[i] = other.getFatigue();
+                state.treasure[i] = other.getTreasure();
+                state.safe[i] = other.getSafe();
+            }
+
+            if(actor == player) {
+                state.current = i;
+            }
+        }
+        state.movesLeft = movesLeft;
+
+        return state;
+    }
+
+    // copy(long): Creates an independent copy of this state with its own random seed.
+    public GameState copy(long seed) {
+        GameState copy = new GameState(size, actorCount, treasureX, treasureY, rules, seed);
+
+        System.arraycopy(wallsVertical, 0, copy.wallsVertical, 0, wallsVertical.length);
+        System.arraycopy(wallsHorizontal, 0, copy.wallsHorizontal, 0, wallsHorizontal.length);
+        System.arraycopy(revealedVertical, 0, copy.revealedVertical, 0, revealedVertical.length);
+        System.arraycopy(revealedHorizontal, 0, copy.revealedHorizontal, 0, revealedHorizontal.length);
+        System.arraycopy(actorIds, 0, copy.actorIds, 0, actorCount);
+        System.arraycopy(x, 0, copy.x, 0, actorCount);
+        System.arraycopy(y, 0, copy.y, 0, actorCount);
+        System.arraycopy(homeX, 0, copy.homeX, 0, actorCount);
+        System.arraycopy(homeY, 0, copy.homeY, 0, actorCount);
+        System.arraycopy(injury, 0, copy.injury, 0, actorCount);
+        System.arraycopy(fatigue, 0, copy.fatigue, 0, actorCount);
+        System.arraycopy(treasure, 0, copy.treasure, 0, actorCount);
+        System.arraycopy(safe, 0, copy.safe, 0, actorCount);
+        if(open != null) {
+            System.arraycopy(open, 0, copy.open, 0, open.length);
+        }
+
+        copy.boardTreasure = boardTreasure;
+        copy.foeAwake = foeAwake;
+        copy.current = current;
+        copy.movesLeft = movesLeft;
+        copy.winner = winner;
+        copy.round = round;
+        copy.bitboards = bitboards;
+
+        return copy;
+    }
+
+    // setUp(GameBoard, long): Starts the game on 'board' in this state, see start(); the treasure room must be set.
+    private void setUp(GameBoard board, long seed) {
+        List<SecretRoom> secretRooms = board.getSecretRooms();
+
+        copyWalls(board);
+        this.seed = (seed == 0 ? 1 : seed);
+        boardTreasure = true;
+        foeAwake = false;
+        winner = NO_WINNER;
+        round = 0;
+        x[0] = treasureX;
+        y[0] = treasureY;
+
+        for(int i = 1; i < actorCount; i++) {
+            SecretRoom secretRoom = secretRooms.get(i - 1);
+            Cell home = secretRoom.getPosition();
+
+            actorIds[i] = secretRoom.getId();
+            x[i] = home.x;
+            y[i] = home.y;
+            homeX[i] = home.x;
+            homeY[i] = home.y;
+            injury[i] = 0;
+            fatigue[i] = rules.fatigueMax;
+            treasure[i] = false;
+            safe[i] = true;
+        }
+
+        current = 1;
+        movesLeft = maxMoves(1);
+    }
+
+    // copyWalls(GameBoard): Copies the walls of a board that isn't chunked.
+    private void copyWalls(GameBoard board) {
+        boolean[][][] wallData = board.getWallData();
+
+        for(int i = 0; i < size + 1; i++) {
+            for(int j = 0; j < size + 1; j++) {
+                int index = i * (size + 1) + j;
+                wallsVertical[index] = wallData[0][i][j];
+                wallsHorizontal[index] = wallData[1][i][j];
+                revealedVertical[index] = wallData[2][i][j];
+                revealedHorizontal[index] = wallData[3][i][j];
+            }
+        }
+
+        updateOpen();
+    }
+
+    // updateOpen(): Works the Bitboards of the walls out again, on standard boards.
+    private void updateOpen() {
+        if(open != null) {
+            for(int action = 0; action < open.length; action++) {
+                open[action] = Bitboards.open(wallsVertical, wallsHorizontal, action);
+            }
+        }
+    }
+
+    // determinize(int): Replaces every unrevealed inner wall with a guess, a wall being present 'wallPercent'% of
+    //    the time, so a computer player only plans with the walls it has actually seen.
+    public void determinize(int wallPercent) {
+        for(int i = 0; i < size + 1; i++) {
+            for(int j = 0; j < size + 1; j++) {
+                int index = i * (size + 1) + j;
+
+                if(j > 0 && j < size && !revealedVertical[index]) {
+                    wallsVertical[index] = nextInt(ONE_HUNDRED) < wallPercent;
+                }
+                if(i > 0 && i < size && !revealedHorizontal[index]) {
+                    wallsHorizontal[index] = nextInt(ONE_HUNDRED) < wallPercent;
+                }
+            }
+        }
+
+        updateOpen();
+    }
+
+
+    // Getters
+
+    public int getSize() { return size; }
+    public int getActorCount() { return actorCount; }
+    public int getCurrent() { return current; }
+    public int getMovesLeft() { return movesLeft; }
+    public int getWinner() { return winner; }
+    public int getRound() { return round; }
+    public boolean isOver() { return winner != NO_WINNER; }
+    public int getActorId(int actor) { return actorIds[actor]; }
+    public int getX(int actor) { return x[actor]; }
+    public int getY(int actor) { return y[actor]; }
+    public int getHomeX(int actor) { return homeX[actor]; }
+    public int getHomeY(int actor) { return homeY[actor]; }
+    public int getInjury(int actor) { return injury[actor]; }
+    public int getFatigue(int actor) { return fatigue[actor]; }
+    public boolean getTreasure(int actor) { return treasure[actor]; }
+    public boolean getBoardTreasure() { return boardTreasure; }
+    public boolean getFoeAwake() { return foeAwake; }
+    public int getMaxMoves(int actor) { return maxMoves(actor); }
+    public int getTreasureX() { return treasureX; }
+    public int getTreasureY() { return treasureY; }
+
+    // getWall(int, int, boolean), getRevealed(int, int, boolean): Same as on GameBoard, for cells (x, y) up to 'size'.
+    public boolean getWall(int cellX, int cellY, boolean vertical) {
+        int index = cellY * (size + 1) + cellX;
+        return (vertical ? wallsVertical[index] : wallsHorizontal[index]);
+    }
+    public boolean getRevealed(int cellX, int cellY, boolean vertical) {
+        int index = cellY * (size + 1) + cellX;
+        return (vertical ? revealedVertical[index] : revealedHorizontal[index]);
+    }
+
+    // setHeatMap(HeatMap): Counts what happens from now on in 'heatMap', or stops counting if it is null.
+    public void setHeatMap(HeatMap heatMap) { this.heatMap = heatMap; }
+
+    // setBitboards(boolean): Works the rules out with Bitboards (the default on standard boards) or with the wall
+    //    arrays. Either plays the same game; boards other than standard ones always use the arrays.
+    public void setBitboards(boolean enabled) { bitboards = enabled && open != null; }
+    public boolean getBitboards() { return bitboards; }
+
+    // isAlive(int): Whether the given player is still alive.
+    public boolean isAlive(int actor) { return injury[actor] < rules.fatalInjury; }
+
+    // isBlocked(int, int): Whether the given movement action would walk the actor into a wall.
+    public boolean isBlocked(int actor, int action) {
+        return !moveValid(x[actor], y[actor], action, false);
+    }
+
+    // isKnownBlocked(int, int, int): Whether leaving cell (cellX, cellY) with the given movement action runs into a
+    //    wall that has been revealed, or off the board. Unrevealed walls don't count, so scripted players can't cheat.
+    public boolean isKnownBlocked(int cellX, int cellY, int action) {
+        int row = size + 1;
+        int nextX = cellX + DELTA_X[action];
+        int nextY = cellY + DELTA_Y[action];
+
+        if(nextX < 0 || nextX >= size || nextY < 0 || nextY >= size) {
+            return true;
+        }
+
+        return switch(action) {
+            case ACTION_WEST -> revealedVertical[cellY * row + cellX] && wallsVertical[cellY * row + cellX];
+            case ACTION_EAST -> revealedVertical[cellY * row + nextX] && wallsVertical[cellY * row + nextX];
+            case ACTION_NORTH -> revealedHorizontal[cellY * row + cellX] && wallsHorizontal[cellY * row + cellX];
+            default -> revealedHorizontal[nextY * row + cellX] && wallsHorizontal[nextY * row + cellX];
+        };
+    }
+
+
+    // Public Methods
+
+    // step(int): The current player takes one action; mirrors one pass of the input loop in Session.playerMove.
+    //    When the turn ends, the Foe and any other players are advanced until a player has to act or the game ends.
+    public void step(int action) {
+        if(isOver()) {
+            return;
+        }
+
+        int player = current;
+        boolean skipTurn = false;
+
+        if(action == ACTION_NEXT) {
+            skipTurn = true;
+        } else if (moveValid(x[player], y[player], action, true)) {
+            x[player] += DELTA_X[action];
+            y[player] += DELTA_Y[action];
+            --movesLeft;
+            tire(player);
+            record(HeatMap.MOVE, player);
+        } else {
+            skipTurn = true;
+            record(HeatMap.WALL, player);
+        }
+
+        safe[player] = atHome(player);
+
+        if(x[player] == treasureX && y[player] == treasureY && boardTreasure) {
+            boardTreasure = false;
+            treasure[player] = true;
+            endTurn(player);
+            return;
+        }
+
+        if(safe[player] && treasure[player]) {
+            winner = actorIds[player];
+            return;
+        }
+
+        if(!doActorInteractions()) {
+            return;
+        }
+
+        boolean foughtPlayer = violentResolution(player);
+
+        if(skipTurn || !isAlive(player) || foughtPlayer || movesLeft <= 0) {
+            endTurn(player);
+        }
+    }
+
+    // reward(int): Scores the state between 0 and 1 for the given player; 1 is a win, 0 a loss or death.
+    public double reward(int actor) {
+        if(isOver()) {
+            return (winner == actorIds[actor] ? 1d : 0d);
+        }
+        if(!isAlive(actor)) {
+            return 0d;
+        }
+
+        double span = size * size;
+        double score;
+
+        if(treasure[actor]) {
+            score = 0.5d + 0.4d * (1d - pathDistance(actor, homeX[actor], homeY[actor]) / span);
+        } else if (boardTreasure) {
+            score = 0.4d * (1d - pathDistance(actor, treasureX, treasureY) / span);
+        } else {
+            score = 0.1d;
+        }
+
+        score -= 0.05d * injury[actor];
+
+        return Math.max(0d, Math.min(1d, score));
+    }
+
+
+    // Private Methods
+
+    // record(int, int): Counts an event of the given kind where an actor stands, if a heat map is set.
+    private void record(int kind, int actor) {
+        if(heatMap != null) {
+            heatMap.record(kind, x[actor], y[actor]);
+        }
+    }
+
+    // nextInt(int): Returns a pseudo-random number in [0, bound) using a xorshift generator.
+    private int nextInt(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int)((seed >>> 33) % bound);
+    }
+
+    // moveValid(int, int, int, boolean): Same as GameBoard.moveValid, for a movement action from (fromX, fromY).
+    private boolean moveValid(int fromX, int fromY, int action, boolean reveal) {
+        if(bitboards && !reveal) {
+            return action >= 0 && action < open.length && (open[action] & Bitboards.cell(fromX, fromY)) != 0;
+        }
+
+        int row = size + 1;
+        boolean blocked;
+
+        switch(action) {
+            case ACTION_WEST -> {
+                int index = fromY * row + fromX;
+                blocked = wallsVertical[index];
+                revealedVertical[index] = revealedVertical[index] || reveal;
+            }
+            case ACTION_EAST -> {
+                int index = fromY * row + fromX + 1;
+                blocked = wallsVertical[index];
+                revealedVertical[index] = revealedVertical[index] || reveal;
+            }
+            case ACTION_NORTH -> {
+                int index = fromY * row + fromX;
+                blocked = wallsHorizontal[index];
+                revealedHorizontal[index] = revealedHorizontal[index] || reveal;
+            }
+            case ACTION_SOUTH -> {
+                int index = (fromY + 1) * row + fromX;
+                blocked = wallsHorizontal[index];
+                revealedHorizontal[index] = revealedHorizontal[index] || reveal;
+            }
+            default -> blocked = true;
+        }
+
+        return !blocked;
+    }
+
+    // pathDistance(int, int, int): Number of steps from an actor to a cell through the walls of this state, found
+    //    with a breadth-first search. Returns size * size if the cell can't be reached.
+    private int pathDistance(int actor, int cellX, int cellY) {
+        if(bitboards) {
+            int distance = Bitboards.distance(Bitboards.cell(x[actor], y[actor]), Bitboards.cell(cellX, cellY),
+                    open[ACTION_EAST], open[ACTION_WEST], open[ACTION_SOUTH], open[ACTION_NORTH]);
+            return (distance == Bitboards.UNREACHABLE ? size * size : distance);
+        }
+
+        if(pathDistances == null) {
+            pathDistances = new int[size * size];
+            pathQueue = new int[size * size];
+        }
+
+        int[] distance = pathDistances;
+        int[] queue = pathQueue;
+        int head = 0;
+        int tail = 0;
+        int target = cellY * size + cellX;
+
+        Arrays.fill(distance, -1);
+        distance[y[actor] * size + x[actor]] = 0;
+        queue[tail++] = y[actor] * size + x[actor];
+
+        while(head < tail) {
+            int cell = queue[head++];
+            if(cell == target) {
+                return distance[cell];
+            }
+
+            for(int action = 0; action < 4; action++) {
+                int nextX = cell % size + DELTA_X[action];
+                int nextY = cell / size + DELTA_Y[action];
+
+                if(moveValid(cell % size, cell / size, action, false) && distance[nextY * size + nextX] < 0) {
+                    distance[nextY * size + nextX] = distance[cell] + 1;
+                    queue[tail++] = nextY * size + nextX;
+                }
+            }
+        }
+
+        return size * size;
+    }
+
+    // squareDistance(int, int, int, int): Same as Cell.squareDistance.
+    private static int squareDistance(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    // atHome(int): Whether a player stands in their secret room.
+    private boolean atHome(int player) {
+        return x[player] == homeX[player] && y[player] == homeY[player];
+    }
+
+    // maxMoves(int): Same as Player.getMaxMoves.
+    private int maxMoves(int player) {
+        if(treasure[player]) {
+            return rules.minimumMoves;
+        }
+        return Math.max(rules.maximumMoves - 2 * injury[player], rules.minimumMoves);
+    }
+
+    // tire(int): Same as Player.tire.
+    private void tire(int player) {
+        fatigue[player] = Math.max(fatigue[player] - 1 - injury[player], 0);
+    }
+
+    // endTurn(int): Ends a player's turn, then advances the game to the next player that has to act.
+    private void endTurn(int player) {
+        amicableResolution(player);
+
+        while(!isOver()) {
+            ++current;
+
+            if(current == actorCount) {
+                current = 0;
+                ++round;
+                renewPlayer();
+            }
+
+            if(current == 0) {
+                foeMove();
+            } else if (isAlive(current)) {
+                movesLeft = maxMoves(current);
+                return;
+            }
+        }
+    }
+
+    // renewPlayer(): Same as Session.renewPlayer.
+    private void renewPlayer() {
+        if(actorCount > 1 && nextInt(ONE_HUNDRED) < rules.renewalChance) {
+            int chosen = nextInt(actorCount - 1) + 1;
+
+            if(isAlive(chosen)) {
+                if(injury[chosen] > 0) {
+                    --injury[chosen];
+                }
+                fatigue[chosen] = rules.fatigueMax;
+            }
+        }
+    }
+
+    // foeMove(): Same as Session.foeMove.
+    private void foeMove() {
+        if(!foeAwake) {
+            return;
+        }
+
+        int targetX = treasureX;
+        int targetY = treasureY;
+        int minDistance = Integer.MAX_VALUE;
+
+        for(int i = 1; i < actorCount; i++) {
+            if(isAlive(i)) {
+                int dX = x[i] - x[0];
+                int dY = y[i] - y[0];
+                int distance = dX * dX + dY * dY;
+
+                if(treasure[i]) {
+                    targetX = x[i];
+                    targetY = y[i];
+                    break;
+                } else if (distance < minDistance && !safe[i]) {
+                    minDistance = distance;
+                    targetX = x[i];
+                    targetY = y[i];
+                }
+            }
+        }
+
+        x[0] += Integer.signum(targetX - x[0]);
+        y[0] += Integer.signum(targetY - y[0]);
+
+        doActorInteractions();
+    }
+
+    // allPlayersDead(): Same as Session.allPlayersDead.
+    private boolean allPlayersDead() {
+        for(int i = 1; i < actorCount; i++) {
+            if(isAlive(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // doActorInteractions(): Same as Session.doActorInteractions. Returns false once the Foe has won.
+    private boolean doActorInteractions() {
+        if(allPlayersDead()) {
+            winner = actorIds[0];
+            return false;
+        }
+
+        if(!foeAwake && bitboards) {
+            foeAwake = (occupancy() & Bitboards.square(x[0], y[0], rules.awakenRange)) != 0;
+        } else if (!foeAwake) {
+            int minDistance = Integer.MAX_VALUE;
+            for(int i = 1; i < actorCount; i++) {
+                if(isAlive(i)) {
+                    minDistance = Math.min(minDistance, squareDistance(x[i], y[i], x[0], y[0]));
+                }
+            }
+
+            if(minDistance <= rules.awakenRange) {
+                foeAwake = true;
+            }
+        }
+
+        for(int i = 1; i < actorCount; i++) {
+            if(isAlive(i)) {
+                safe[i] = atHome(i);
+
+                if(x[0] == x[i] && y[0] == y[i]) {
+                    ++injury[i];
+                    record(HeatMap.ATTACK, i);
+                    if(!isAlive(i)) {
+                        record(HeatMap.DEATH, i);
+                    }
+                    x[i] = homeX[i];
+                    y[i] = homeY[i];
+
+                    if(treasure[i]) {
+                        treasure[i] = false;
+                        boardTreasure = true;
+                    }
+                }
+            }
+        }
+
+        if(allPlayersDead()) {
+            winner = actorIds[0];
+            return false;
+        }
+
+        return true;
+    }
+
+    // occupancy(): The Bitboard of the cells living players stand on.
+    private long occupancy() {
+        long cells = 0;
+        for(int i = 1; i < actorCount; i++) {
+            if(isAlive(i)) {
+                cells |= Bitboards.cell(x[i], y[i]);
+            }
+        }
+        return cells;
+    }
+
+    // overlappingPlayer(int): Same as Session.getOverlappingPlayer; returns -1 if nobody overlaps.
+    private int overlappingPlayer(int player) {
+        for(int i = 1; i < actorCount; i++) {
+            if(i != player && isAlive(i) && x[i] == x[player] && y[i] == y[player]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // violentResolution(int): Same as Session.violentResolution.
+    private boolean violentResolution(int player) {
+        int other = overlappingPlayer(player);
+
+        if(other < 0 || !(treasure[player] || treasure[other])) {
+            return false;
+        }
+
+        int winnerIndex = (fatigue[player] > fatigue[other] ? player : other);
+        int loserIndex = (winnerIndex == player ? other : player);
+
+        if(treasure[loserIndex]) {
+            record(HeatMap.STEAL, winnerIndex);
+        }
+        treasure[winnerIndex] = true;
+        treasure[loserIndex] = false;
+
+        // Sampling the square around the winner gives the same distribution as sampling the whole board.
+        int reach = rules.teleportDistance + 1;
+        for(int attempt = 0; attempt < ONE_HUNDRED; attempt++) {
+            int candidateX = x[winnerIndex] + nextInt(2 * reach + 1) - reach;
+            int candidateY = y[winnerIndex] + nextInt(2 * reach + 1) - reach;
+            int distance = squareDistance(x[winnerIndex], y[winnerIndex], candidateX, candidateY);
+
+            if(candidateX >= 0 && candidateX < size && candidateY >= 0 && candidateY < size
+                    && distance >= rules.teleportDistance
+                    && !(candidateX == x[0] && candidateY == y[0])) {
+                x[loserIndex] = candidateX;
+                y[loserIndex] = candidateY;
+                break;
+            }
+        }
+
+        return true;
+    }
+
+    // amicableResolution(int): Same as Session.amicableResolution.
+    private void amicableResolution(int player) {
+        int other = overlappingPlayer(player);
+
+        if(other < 0) {
+            return;
+        }
+
+        int toMove = (atHome(player) ? other : player);
+        if(moveOptions == null) {
+            moveOptions = new int[4];
+        }
+
+        int choices = 0;
+        int[] options = moveOptions;
+
+        for(int action = 0; action < 4; action++) {
+            if(moveValid(x[toMove], y[toMove], action, false)) {
+                options[choices++] = action;
+            }
+        }
+
+        if(choices > 0) {
+            int action = options[nextInt(choices)];
+            x[toMove] += DELTA_X[action];
+            y[toMove] += DELTA_Y[action];
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/* Class - GreedyBot
+ *
+ *     A strategy that heads straight for its goal: the treasure room while the treasure is there, otherwise home.
+ *     Routes are searched through the walls it has seen, treating the walls it hasn't as open, so it learns the maze
+ *     by bumping into it the same way a human does.
+ */
+public final class GreedyBot implements IBotStrategy {
+    // Constants - DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+    // distance, queue: Scratch space for the search, reused between moves.
+    private int[] distance = new int[0];
+    private int[] queue = new int[0];
+
+    @Override
+    public String getName() { return "greedy"; }
+
+    // @Override chooseMove(BotView): Takes the step that gets closest to the goal; NEXT if none gets closer.
+    @Override
+    public Cell chooseMove(BotView view) {
+        Cell position = view.getPosition();
+        Cell best = null;
+
+        search(view, goal(view));
+        int bestDistance = distance(view, position);
+
+        for(int direction = 0; direction < 4; direction++) {
+            Cell next = new Cell(position.x + DELTA_X[direction], position.y + DELTA_Y[direction]);
+
+            if(!view.isKnownBlocked(position, next) && distance(view, next) >= 0 && distance(view, next) < bestDistance) {
+                bestDistance = distance(view, next);
+                best = next;
+            }
+        }
+
+        return best;
+    }
+
+    // goal(BotView): Where the player wants to go.
+    public static Cell goal(BotView view) {
+        return (view.getTreasure() || !view.getBoardTreasure() ? view.getHome() : view.getTreasureRoom());
+    }
+
+    // search(BotView, Cell): Searches back from 'goal' through the known walls. Afterwards distance() gives the number
+    //    of steps from any cell to the goal, or -1 if it can't be reached.
+    public void search(BotView view, Cell goal) {
+        int size = view.getSize();
+        int head = 0;
+        int tail = 0;
+
+        if(distance.length != size * size) {
+            distance = new int[size * size];
+            queue = new int[size * size];
+        }
+
+        Arrays.fill(distance, -1);
+        distance[goal.y * size + goal.x] = 0;
+        queue[tail++] = goal.y * size + goal.x;
+
+        while(head < tail) {
+            int cell = queue[head++];
+            Cell from = new Cell(cell % size, cell / size);
+
+            for(int direction = 0; direction < 4; direction++) {
+                Cell next = new Cell(from.x + DELTA_X[direction], from.y + DELTA_Y[direction]);
+
+                if(!view.isKnownBlocked(from, next) && distance[next.y * size + next.x] < 0) {
+                    distance[next.y * size + next.x] = distance[cell] + 1;
+                    queue[tail++] = next.y * size + next.x;
+                }
+            }
+        }
+    }
+
+    // distance(BotView, Cell): Steps from 'cell' to the goal of the last search(), or -1.
+    public int distance(BotView view, Cell cell) {
+        int size = view.getSize();
+
+        if(cell.x < 0 || cell.x >= size || cell.y < 0 || cell.y >= size) {
+            return -1;
+        }
+        return distance[cell.y * size + cell.x];
+    }
+}
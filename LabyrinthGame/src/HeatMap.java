@@ -0,0 +1,196 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.imageio.ImageIO;
+
+/* Class - HeatMap
+ *
+ *     Counts, per board cell, where things happen across many games: where players move, bump into walls, are
+ *     attacked and killed by the Foe, and have the treasure stolen. Session and GameState record into it as they play,
+ *     and export() writes every map as a CSV grid and as a PNG drawn with the board's own tile.
+ *
+ *     Any number of threads can record at once without waiting for each other: the counters are striped, every
+ *     thread counting into the stripe its ID picks, and the stripes are only added up when the map is read. Stripes
+ *     are padded apart so that threads on different stripes never share a cache line.
+ */
+public final class HeatMap {
+    // Constants
+
+    //    MOVE, WALL, ATTACK, DEATH, STEAL: The kinds of event counted. A death is also counted as an attack.
+    public static final int MOVE = 0;
+    public static final int WALL = 1;
+    public static final int ATTACK = 2;
+    public static final int DEATH = 3;
+    public static final int STEAL = 4;
+
+    //    KIND_NAMES: Name of every kind of event, used for the exported files.
+    public static final String[] KIND_NAMES = {"moves", "walls", "attacks", "deaths", "steals"};
+
+    //    CACHE_LINE_LONGS: Counters per cache line, the padding between stripes.
+    private static final int CACHE_LINE_LONGS = 8;
+
+    //    TILE_IMAGE: The board's tile, drawn under every cell of the PNG maps.
+    private static final Path TILE_IMAGE = Paths.get("images", "tile.png");
+
+    //    TILE_PIXELS, MAX_IMAGE_PIXELS: Size of a cell in the PNG maps, shrunk for boards that would be wider than
+    //    MAX_IMAGE_PIXELS.
+    private static final int TILE_PIXELS = 40;
+    private static final int MAX_IMAGE_PIXELS = 4096;
+
+    //    HEAT_COLOR, MAX_HEAT_ALPHA: Color laid over the tiles, and its opacity over the hottest cell.
+    private static final Color HEAT_COLOR = Color.RED;
+    private static final float MAX_HEAT_ALPHA = 0.85f;
+
+
+    // Private Fields
+
+    //    size: Width and height of the boards counted, in cells.
+    private final int size;
+    public int getSize() { return size; }
+
+    //    stripeMask: Number of stripes minus one; the number of stripes is a power of two.
+    private final int stripeMask;
+
+    //    stripeLength: Counters per stripe, padding included.
+    private final int stripeLength;
+
+    //    counters: All stripes, each holding a size * size grid for every kind of event.
+    private final AtomicLongArray counters;
+
+
+    // Constructor(int): Creates a map for boards of 'size' cells per side, with enough stripes for every core.
+    public HeatMap(int size) {
+        this(size, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    // Constructor(int, int): Creates a map for boards of 'size' cells per side, with at least 'stripes' stripes. A map
+    //    only recorded into by one thread at a time needs just one.
+    public HeatMap(int size, int stripes) {
+        int cells = KIND_NAMES.length * size * size;
+
+        this.size = size;
+        this.stripeMask = (stripes <= 1 ? 0 : Integer.highestOneBit(stripes - 1) * 2 - 1);
+        this.stripeLength = (cells + CACHE_LINE_LONGS - 1) / CACHE_LINE_LONGS * CACHE_LINE_LONGS + CACHE_LINE_LONGS;
+        this.counters = new AtomicLongArray((stripeMask + 1) * stripeLength);
+    }
+
+
+    // Public Methods
+
+    // record(int, int, int): Counts an event of the given kind in cell (x, y). Cells off the board aren't counted.
+    public void record(int kind, int x, int y) {
+        if(x < 0 || x >= size || y < 0 || y >= size) {
+            return;
+        }
+
+        // Threads are numbered consecutively, so threads started together (e.g. a pool's) get stripes of their own.
+        int stripe = (int)Thread.currentThread().getId() & stripeMask;
+        counters.incrementAndGet(stripe * stripeLength + (kind * size + y) * size + x);
+    }
+
+    // record(int, Cell): Counts an event of the given kind in a cell.
+    public void record(int kind, Cell cell) {
+        record(kind, cell.x, cell.y);
+    }
+
+    // count(int, int, int): How often an event of the given kind happened in cell (x, y), over every stripe.
+    public long count(int kind, int x, int y) {
+        long count = 0;
+        int index = (kind * size + y) * size + x;
+
+        for(int stripe = 0; stripe <= stripeMask; stripe++) {
+            count += counters.get(stripe * stripeLength + index);
+        }
+        return count;
+    }
+
+    // counts(int): The counts of every cell for the given kind of event, indexed y * size + x.
+    public long[] counts(int kind) {
+        long[] counts = new long[size * size];
+
+        for(int stripe = 0; stripe <= stripeMask; stripe++) {
+            int offset = stripe * stripeLength + kind * size * size;
+            for(int cell = 0; cell < counts.length; cell++) {
+                counts[cell] += counters.get(offset + cell);
+            }
+        }
+        return counts;
+    }
+
+    // export(Path): Writes every kind of event into 'directory' as <kind>.csv and <kind>.png.
+    public void export(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        BufferedImage tile = (Files.exists(TILE_IMAGE) ? ImageIO.read(TILE_IMAGE.toFile()) : null);
+
+        for(int kind = 0; kind < KIND_NAMES.length; kind++) {
+            long[] counts = counts(kind);
+            writeCsv(counts, directory.resolve(KIND_NAMES[kind] + ".csv"));
+            ImageIO.write(draw(counts, tile), "png", directory.resolve(KIND_NAMES[kind] + ".png").toFile());
+        }
+    }
+
+
+    // Private Methods
+
+    // writeCsv(long[], Path): Writes counts as a grid, one line per row of the board, after a line of column numbers.
+    private void writeCsv(long[] counts, Path file) throws IOException {
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            StringBuilder line = new StringBuilder("y\\x");
+            for(int x = 0; x < size; x++) {
+                line.append(',').append(x);
+            }
+            out.println(line);
+
+            for(int y = 0; y < size; y++) {
+                line.setLength(0);
+                line.append(y);
+                for(int x = 0; x < size; x++) {
+                    line.append(',').append(counts[y * size + x]);
+                }
+                out.println(line);
+            }
+        }
+    }
+
+    // draw(long[], BufferedImage): Draws counts as the board, every cell a tile (plain grey without one) laid over
+    //    with HEAT_COLOR as opaque as its count is high, next to the highest count.
+    private BufferedImage draw(long[] counts, BufferedImage tile) {
+        int pixels = Math.max(1, Math.min(TILE_PIXELS, MAX_IMAGE_PIXELS / size));
+        BufferedImage image = new BufferedImage(size * pixels, size * pixels, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        long max = 0;
+        for(long count : counts) {
+            max = Math.max(max, count);
+        }
+        for(int y = 0; y < size; y++) {
+            for(int x = 0; x < size; x++) {
+                graphics.setComposite(AlphaComposite.Src);
+                if(tile != null) {
+                    graphics.drawImage(tile, x * pixels, y * pixels, pixels, pixels, null);
+                } else {
+                    graphics.setColor(Color.LIGHT_GRAY);
+                    graphics.fillRect(x * pixels, y * pixels, pixels, pixels);
+                }
+
+                long count = counts[y * size + x];
+                if(count > 0) {
+                    float alpha = MAX_HEAT_ALPHA * count / max;
+                    graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+                    graphics.setColor(HEAT_COLOR);
+                    graphics.fillRect(x * pixels, y * pixels, pixels, pixels);
+                }
+            }
+        }
+
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,13 @@
+/* IBotStrategy
+ *
+ *     Interface for an automated player strategy, so different strategies can be played against each other.
+ *     A strategy sees the game through a BotView: the same things Session.playerMove works with for a human player.
+ *     Instances are only used by one game at a time, so they may keep state between moves.
+ */
+public interface IBotStrategy {
+    // getName(): Short name used in reports.
+    public String getName();
+
+    // chooseMove(BotView): The cell to step to, which must be next to the player's position, or null to press NEXT.
+    public Cell chooseMove(BotView view);
+}
@@ -0,0 +1,9 @@
+/* IEventSubscriber
+ *
+ *     Interface for anything that wants to hear about one type of GameEvent from an EventBus.
+ *     The event is recycled as soon as handle() returns, so it must not be kept.
+ */
+@FunctionalInterface
+public interface IEventSubscriber<E extends GameEvent> {
+    public void handle(E event);
+}
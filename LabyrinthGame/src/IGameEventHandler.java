@@ -15,5 +15,11 @@ public interface IGameEventHandler {
 
     public void actorDataUpdate(Actor actor);
 
+    public void focusActor(Actor actor);
+
     public void boardDataUpdate(GameBoard board);
+
+    // hibernate(): The session went to sleep. Let go of the game's models but keep showing them; the session sends
+    //    everything again when an input wakes it.
+    public void hibernate();
 }
@@ -1,4 +0,0 @@
-@FunctionalInterface
-public interface IModelCallback<T> {
-    public void execute(T object, IGameEventHandler handler);
-}
@@ -4,6 +4,14 @@ import java.io.FileInputStream;
  *
  *     Used to wait on an input from an IGameEventHandler.
  *     Once the handler signs a packet, the waiting stops, and input data can be extracted from the packet.
+ *     A packet that has been read can be reset and subscribed again, so waiting on input doesn't allocate.
+ *
+ *     A packet can also be armed with a TurnTimer deadline. Once that runs out, the packet is expired: it is signed
+ *     as NEXT if nobody signed it yet, and every wait on it ends right away, resets included, until it is disarmed.
+ *
+ *     Views sign through offer(), with the subscription the packet had when they were given it. Session reuses one
+ *     packet for every wait, so a view still holding it after its wait ended (expired, or answered by a computer
+ *     player) would otherwise sign the next wait, meant for someone else.
  */
 public final class InputPacket {
     // Constants
@@ -14,9 +22,123 @@ public final class InputPacket {
     //    MILLISECONDS: How many milliseconds occur in a second.
     private static final long MILLISECONDS = 1000;
 
+    //    NOT_ARMED: Token of a packet no deadline can expire; TurnTimer never hands it out.
+    private static final long NOT_ARMED = 0;
+
     // [volatile] signed: Whether or not this packet has been signed. Volatile as it's value is set by another thread.
     private volatile boolean signed = false;
-    public void sign() { signed = true; }
+    public boolean isSigned() { return signed; }
+
+    // listener: Run once this packet is signed, on the signing thread, instead of anyone waiting for it. See whenSigned().
+    private Runnable listener;
+
+    // armedToken: Token of the deadline that can expire this packet, or NOT_ARMED. Guarded by this packet.
+    private long armedToken = NOT_ARMED;
+
+    // subscription: Counts the waits on this packet; reset() starts a new one. Guarded by this packet.
+    private long subscription = 0;
+
+    // [volatile] expired: Whether the armed deadline ran out. Volatile as it's set by the timer thread.
+    private volatile boolean expired = false;
+    public boolean isExpired() { return expired; }
+
+    // handoffTrace, inputTrace: The TurnTrace events begun when this packet was signed; null unless recorded.
+    private TurnTrace.InputHandoff handoffTrace;
+    private TurnTrace.InputToPixel inputTrace;
+
+    // sign(): Signs this packet, ending the wait for it.
+    public void sign() {
+        handoffTrace = TurnTrace.inputHandoff();
+        inputTrace = TurnTrace.inputToPixel();
+
+        Runnable listener;
+        synchronized(this) {
+            signed = true;
+            listener = this.listener;
+            this.listener = null;
+        }
+
+        if(listener != null) {
+            listener.run();
+        }
+    }
+
+    // subscription(): The wait this packet is for now, to hand back to offer().
+    public synchronized long subscription() {
+        return subscription;
+    }
+
+    // offer(long, EventType, Cell): Signs this packet with an input from a view, but only while it is still unsigned
+    //    and waiting for 'subscription'. Returns whether it was signed.
+    public boolean offer(long subscription, EventType type, Cell cell) {
+        Runnable listener;
+        synchronized(this) {
+            if(signed || subscription != this.subscription) {
+                return false;
+            }
+
+            this.type = type;
+            this.cell = cell;
+            handoffTrace = TurnTrace.inputHandoff();
+            inputTrace = TurnTrace.inputToPixel();
+            signed = true;
+            listener = this.listener;
+            this.listener = null;
+        }
+
+        if(listener != null) {
+            listener.run();
+        }
+        return true;
+    }
+
+    // arm(long): Lets the deadline scheduled with 'token' expire this packet, and no other.
+    public synchronized void arm(long token) {
+        armedToken = token;
+        expired = false;
+    }
+
+    // disarm(): Keeps any deadline from expiring this packet, and ends an expiry.
+    public synchronized void disarm() {
+        armedToken = NOT_ARMED;
+        expired = false;
+    }
+
+    // expire(long): Called by the deadline scheduled with 'token' when it runs out. If the packet is still armed with
+    //    it, the packet is expired and, unless it was already, signed as NEXT. The waiting side has to check
+    //    isExpired() before getType(), as a view can still be setting its own input.
+    public void expire(long token) {
+        Runnable listener = null;
+
+        synchronized(this) {
+            if(token != armedToken) {
+                return;
+            }
+
+            expired = true;
+            if(!signed) {
+                type = EventType.NEXT;
+                cell = null;
+                signed = true;
+                listener = this.listener;
+                this.listener = null;
+            }
+        }
+
+        if(listener != null) {
+            listener.run();
+        }
+    }
+
+    // whenSigned(Runnable): Runs 'listener' once this packet is signed, for when no thread is left waiting for it.
+    //    Returns false, without keeping the listener, if the packet is already signed.
+    public synchronized boolean whenSigned(Runnable listener) {
+        if(signed) {
+            return false;
+        }
+        this.listener = listener;
+        return true;
+    }
 
     // type: The type of input issued.
     private EventType type;
@@ -28,16 +150,44 @@ public final class InputPacket {
     public Cell getCell() { return cell;}
     public void setCell(Cell cell) { this.cell = cell; }
 
+    // reset(): Clears this packet so it can be subscribed again. Only call it once the packet is signed and read. An
+    //    expired packet stays signed as NEXT. Inputs offered for the wait before are refused from now on.
+    public synchronized void reset() {
+        ++subscription;
+        type = (expired ? EventType.NEXT : null);
+        cell = null;
+        listener = null;
+        handoffTrace = null;
+        inputTrace = null;
+        signed = expired;
+    }
+
+    // received(): Called by the waiting side once it has picked up the signed input; see TurnTrace.inputReceived().
+    public void received() {
+        TurnTrace.inputReceived(handoffTrace, inputTrace);
+    }
+
     // awaitSigned(): Sleeps the main thread until this input packet is signed.
     public void awaitSigned() {
+        awaitSigned(Long.MAX_VALUE);
+    }
+
+    // awaitSigned(long): Sleeps the main thread until this input packet is signed, or 'timeoutMillis' have passed.
+    //    Returns whether the packet was signed.
+    public boolean awaitSigned(long timeoutMillis) {
         long millisecondsToWait = MILLISECONDS/FRAMES_PER_SECOND;
+        long start = System.currentTimeMillis();
         try {
             while (!signed) {
+                if(System.currentTimeMillis() - start >= timeoutMillis) {
+                    return false;
+                }
                 Thread.sleep(millisecondsToWait, 0);
             }
         } catch (InterruptedException interruptedException) {
             System.out.println("Gameplay thread interrupted.");
             Thread.currentThread().interrupt();
         }
+        return signed;
     }
 }
@@ -0,0 +1,98 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* Class - Levels
+ *
+ *     The levels a Session progresses through. Every game a player wins moves the players on to the next level, a
+ *     larger labyrinth with a stronger Foe: it wakes from further away, its attacks are deadlier, and players are
+ *     renewed less often. After the last level, play starts over at the first.
+ *
+ *     While a level is played, the board of the next one is generated and analysed on a background thread, so that
+ *     moving on to it never stalls the gameplay thread. Any number of sessions can share one Levels and its thread.
+ */
+public final class Levels {
+    // Constants
+
+    //    SIZE_GROWTH: How many cells per side every level adds to the board.
+    public static final int SIZE_GROWTH = GameBoard.SIZE;
+
+    //    AWAKEN_RANGE_GROWTH: How much further away the Foe wakes every level.
+    public static final int AWAKEN_RANGE_GROWTH = 1;
+
+    //    RENEWAL_CHANCE_DROP, MIN_RENEWAL_CHANCE: How much less likely renewal gets every level, and the least it gets.
+    public static final int RENEWAL_CHANCE_DROP = 5;
+    public static final int MIN_RENEWAL_CHANCE = 0;
+
+    //    LEVELS_PER_INJURY, MIN_FATAL_INJURY: How many levels it takes for a Foe to need one attack less to kill, and
+    //    the fewest it can need.
+    public static final int LEVELS_PER_INJURY = 2;
+    public static final int MIN_FATAL_INJURY = 1;
+
+
+    // Private Fields
+
+    //    count: Number of levels.
+    private final int count;
+    public int getCount() { return count; }
+
+    //    firstSize, firstRules: Board size and rules of the first level, which the later levels grow from.
+    private final int firstSize;
+    private final Rules firstRules;
+
+    //    generator: The thread boards of upcoming levels are generated on.
+    private final ExecutorService generator;
+
+
+    // Constructor(int, int, Rules): Creates 'count' levels, the first played on boards of 'firstSize' cells per side
+    //    by 'firstRules'.
+    public Levels(int count, int firstSize, Rules firstRules) {
+        this.count = Math.max(1, count);
+        this.firstSize = firstSize;
+        this.firstRules = firstRules;
+
+        generator = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "Levels");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    // Public Methods
+
+    // next(int): The level after 'level'; the first again after the last.
+    public int next(int level) {
+        return level % count + 1;
+    }
+
+    // boardSize(int): Width and height of the boards of a level (counted from 1), in cells.
+    public int boardSize(int level) {
+        return firstSize + (level - 1) * SIZE_GROWTH;
+    }
+
+    // rules(int): The rules a level (counted from 1) is played by.
+    public Rules rules(int level) {
+        int grown = level - 1;
+
+        return firstRules
+                .with("awakenRange", firstRules.awakenRange + grown * AWAKEN_RANGE_GROWTH)
+                .with("renewalChance", Math.max(MIN_RENEWAL_CHANCE, firstRules.renewalChance - grown * RENEWAL_CHANCE_DROP))
+                .with("fatalInjury", Math.max(MIN_FATAL_INJURY, firstRules.fatalInjury - grown / LEVELS_PER_INJURY));
+    }
+
+    // pregenerate(int, long): Starts generating and analysing a board of a level, whose layout is decided by 'seed',
+    //    in the background. Nothing else may use the board until the future hands it over.
+    public Future<GameBoard> pregenerate(int level, long seed) {
+        return generator.submit(() -> generate(level, seed));
+    }
+
+    // generate(int, long): Generates and analyses a board of a level right away, on the calling thread.
+    public GameBoard generate(int level, long seed) {
+        int size = boardSize(level);
+        GameBoard board = (size > GameBoard.SIZE ? new GameBoard(size, seed) : new GameBoard(seed));
+
+        board.analyze();
+        return board;
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.Arrays;
+import java.util.List;
+
+/* Class - MazeAnalyzer
+ *
+ *     Measures a maze layout: how many separate areas and loops it has, how many dead ends, and how far apart cells
+ *     are when walking through it. Everything runs in time linear in the number of cells: a union-find over the open
+ *     passages for connectivity and loops, and a breadth-first search (from any number of starting cells) for paths.
+ *
+ *     Walls use the same layout as GameBoard.getWallData(): wallsVertical[y][x] is the west side of cell (x, y) and
+ *     wallsHorizontal[y][x] is its north side.
+ */
+public final class MazeAnalyzer {
+    // Constants
+
+    //    FAIRNESS_TOLERANCE: How many more steps one secret room may be from the treasure room than another.
+    public static final int FAIRNESS_TOLERANCE = 4;
+
+    //    UNREACHABLE: Distance reported for cells that can't be reached.
+    public static final int UNREACHABLE = -1;
+
+
+    // Private Fields
+
+    //    size: Width and height of the maze in cells.
+    private final int size;
+
+    //    wallsVertical, wallsHorizontal: The analysed wall layout.
+    private final boolean[][] wallsVertical;
+    private final boolean[][] wallsHorizontal;
+
+    //    componentCount: Number of separate areas that can't be walked between.
+    private int componentCount;
+    public int getComponentCount() { return componentCount; }
+
+    //    loopCount: Number of independent loops (passages beyond what a maze without loops would need).
+    private int loopCount;
+    public int getLoopCount() { return loopCount; }
+
+    //    deadEndCount: Number of cells with exactly one way out.
+    private int deadEndCount;
+    public int getDeadEndCount() { return deadEndCount; }
+    public double getDeadEndDensity() { return (double)deadEndCount / ((long)size * size); }
+
+    //    component: The area each cell belongs to, as a union-find root.
+    private final int[] component;
+
+    //    fairDistance, fairQueue: Scratch space for isFair(), created the first time it's needed.
+    private int[] fairDistance, fairQueue;
+
+
+    // Constructor(GameBoard): Analyses the wall layout of a GameBoard.
+    public MazeAnalyzer(GameBoard board) {
+        this(board.getWallData()[0], board.getWallData()[1], GameBoard.SIZE);
+    }
+
+    // Constructor(boolean[][], boolean[][], int): Analyses a wall layout of any size.
+    public MazeAnalyzer(boolean[][] wallsVertical, boolean[][] wallsHorizontal, int size) {
+        this.size = size;
+        this.wallsVertical = wallsVertical;
+        this.wallsHorizontal = wallsHorizontal;
+        this.component = new int[size * size];
+
+        int[] rank = new int[size * size];
+        int passages = 0;
+
+        for(int cell = 0; cell < component.length; cell++) {
+            component[cell] = cell;
+        }
+
+        for(int y = 0; y < size; y++) {
+            for(int x = 0; x < size; x++) {
+                int exits = 0;
+
+                if(x + 1 < size && !wallsVertical[y][x + 1]) {
+                    union(y * size + x, y * size + x + 1, rank);
+                    ++passages;
+                }
+                if(y + 1 < size && !wallsHorizontal[y + 1][x]) {
+                    union(y * size + x, (y + 1) * size + x, rank);
+                    ++passages;
+                }
+
+                for(int direction = 0; direction < 4; direction++) {
+                    if(open(x, y, direction)) {
+                        ++exits;
+                    }
+                }
+                if(exits == 1) {
+                    ++deadEndCount;
+                }
+            }
+        }
+
+        for(int cell = 0; cell < component.length; cell++) {
+            if(find(cell) == cell) {
+                ++componentCount;
+            }
+        }
+
+        loopCount = passages - component.length + componentCount;
+    }
+
+
+    // Public Methods
+
+    // connected(Cell, Cell): Whether there is any path between two cells.
+    public boolean connected(Cell from, Cell to) {
+        return find(index(from)) == find(index(to));
+    }
+
+    // distances(Cell...): Breadth-first search from every given cell at once. Returns, for every cell
+    //    (index y * size + x), the number of steps to the nearest source, or UNREACHABLE.
+    public int[] distances(Cell... sources) {
+        int[] distance = new int[size * size];
+        int[] queue = new int[size * size];
+        int tail = 0;
+
+        Arrays.fill(distance, UNREACHABLE);
+        for(Cell source : sources) {
+            if(distance[index(source)] == UNREACHABLE) {
+                distance[index(source)] = 0;
+                queue[tail++] = index(source);
+            }
+        }
+
+        search(distance, queue, tail);
+        return distance;
+    }
+
+    // pathLength(Cell, Cell): Length of the shortest path between two cells, or UNREACHABLE.
+    public int pathLength(Cell from, Cell to) {
+        if(!connected(from, to)) {
+            return UNREACHABLE;
+        }
+        return distances(from)[index(to)];
+    }
+
+    // isFair(Cell, List<SecretRoom>): Whether every secret room can reach the treasure room, and none of them is
+    //    more than FAIRNESS_TOLERANCE steps further from it than another.
+    //    Allocates nothing after the first call, as boards try many treasure rooms.
+    public boolean isFair(Cell treasureRoom, List<SecretRoom> secretRooms) {
+        if(fairDistance == null) {
+            fairDistance = new int[size * size];
+            fairQueue = new int[size * size];
+        }
+
+        int[] distance = fairDistance;
+        int nearest = Integer.MAX_VALUE;
+        int furthest = 0;
+
+        Arrays.fill(distance, UNREACHABLE);
+        distance[index(treasureRoom)] = 0;
+        fairQueue[0] = index(treasureRoom);
+        search(distance, fairQueue, 1);
+
+        for(int i = 0; i < secretRooms.size(); i++) {
+            int roomDistance = distance[index(secretRooms.get(i).getPosition())];
+
+            if(roomDistance == UNREACHABLE) {
+                return false;
+            }
+            nearest = Math.min(nearest, roomDistance);
+            furthest = Math.max(furthest, roomDistance);
+        }
+
+        return secretRooms.isEmpty() || furthest - nearest <= FAIRNESS_TOLERANCE;
+    }
+
+
+    // Private Methods
+
+    // search(int[], int[], int): Continues a breadth-first search from the first 'tail' cells of 'queue', whose
+    //    distances are already in 'distance'; every cell not yet found must be UNREACHABLE there.
+    private void search(int[] distance, int[] queue, int tail) {
+        int head = 0;
+
+        while(head < tail) {
+            int cell = queue[head++];
+            int x = cell % size;
+            int y = cell / size;
+
+            for(int direction = 0; direction < 4; direction++) {
+                if(open(x, y, direction)) {
+                    int next = neighbour(cell, direction);
+                    if(distance[next] == UNREACHABLE) {
+                        distance[next] = distance[cell] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    // index(Cell): Flattened index of a cell.
+    private int index(Cell cell) {
+        return cell.y * size + cell.x;
+    }
+
+    // open(int, int, int): Whether cell (x, y) can be left to the east (0), west (1), south (2) or north (3).
+    private boolean open(int x, int y, int direction) {
+        return switch(direction) {
+            case 0 -> x + 1 < size && !wallsVertical[y][x + 1];
+            case 1 -> x > 0 && !wallsVertical[y][x];
+            case 2 -> y + 1 < size && !wallsHorizontal[y + 1][x];
+            default -> y > 0 && !wallsHorizontal[y][x];
+        };
+    }
+
+    // neighbour(int, int): Flattened index of the cell next to 'cell' in the given direction.
+    private int neighbour(int cell, int direction) {
+        return switch(direction) {
+            case 0 -> cell + 1;
+            case 1 -> cell - 1;
+            case 2 -> cell + size;
+            default -> cell - size;
+        };
+    }
+
+    // find(int): Union-find root of a cell, halving the path on the way.
+    private int find(int cell) {
+        while(component[cell] != cell) {
+            component[cell] = component[component[cell]];
+            cell = component[cell];
+        }
+        return cell;
+    }
+
+    // union(int, int, int[]): Joins the areas of two cells, by rank.
+    private void union(int a, int b, int[] rank) {
+        int rootA = find(a);
+        int rootB = find(b);
+
+        if(rootA == rootB) {
+            return;
+        }
+        if(rank[rootA] < rank[rootB]) {
+            component[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            component[rootB] = rootA;
+        } else {
+            component[rootB] = rootA;
+            ++rank[rootA];
+        }
+    }
+}
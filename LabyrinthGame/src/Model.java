@@ -1,30 +1,30 @@
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.function.Consumer;
-
-
 /* Abstract Class - Model
  *
- * Abstract SuperClass for Classes that need to notify an IGameEventHandler that their data has changed.
+ * Abstract SuperClass for Classes that publish changes to their data on an EventBus.
+ * Subclasses only report real changes: setting a value to what it already was is not a change.
  */
-public abstract class Model<T> {
-    // gameEventHandler: Reference to the handler that will be notified of changes
-    private IGameEventHandler gameEventHandler;
+public abstract class Model {
+    // eventBus: The bus changes are published on. Until one is set, nothing is published.
+    private EventBus eventBus;
+    public void setEventBus(EventBus eventBus) { this.eventBus = eventBus; }
 
-    // callback: The method on the handler that should be used to send the updated data.
-    private IModelCallback<T> callback;
+    // version: Counts the changes made to this model, so a reader can tell whether anything changed since it last looked.
+    private long version;
+    public long getVersion() { return version; }
 
+    // changed(Class<E>): Records a change to this model, and gets a pooled event to publish it with, or null if no one
+    //    would hear it, in which case publishing can be skipped.
+    protected <E extends GameEvent> E changed(Class<E> type) {
+        ++version;
 
-    // setCallback(IGameEventHandler, Method): Sets the callback handler and method.
-    public void setCallback(IModelCallback<T> callback, IGameEventHandler gameEventHandler) {
-        this.callback = callback;
-        this.gameEventHandler = gameEventHandler;
+        if(eventBus == null || !eventBus.hasSubscribers(type)) {
+            return null;
+        }
+        return eventBus.obtain(type);
     }
 
-    // triggerDataChange(Object): Passes the updated data to the handler using the callback.
-    public void triggerDataChange(T data) {
-        if(callback != null && gameEventHandler != null) {
-            callback.execute(data, gameEventHandler);
-        }
+    // publish(GameEvent): Publishes an event gotten from changed().
+    protected void publish(GameEvent event) {
+        eventBus.publish(event);
     }
 }
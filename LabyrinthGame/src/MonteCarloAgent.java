@@ -0,0 +1,335 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/* Class - MonteCarloAgent
+ *
+ *     A computer player that picks its moves with Monte Carlo tree search over GameState.
+ *     Uses root parallelism: every worker of the fork-join pool grows its own tree from its own guess of the unseen
+ *     walls until the time budget runs out, then the visit counts of the first moves are summed up.
+ *
+ *     Decisions are handed back the same way BoardGUI hands back a click: by filling in and signing an InputPacket.
+ *     It can also be played as an IBotStrategy, searching on the calling thread's behalf.
+ */
+public final class MonteCarloAgent implements IBotStrategy {
+    // Constants
+
+    //    DEFAULT_BUDGET_MILLIS: Default thinking time per move.
+    public static final long DEFAULT_BUDGET_MILLIS = 400;
+
+    //    EXPLORATION: UCT exploration constant.
+    private static final double EXPLORATION = 1.4d;
+
+    //    ROLLOUT_STEPS: Maximum number of actions played out after leaving the tree.
+    private static final int ROLLOUT_STEPS = 12;
+
+    //    GREEDY_PERCENT: How often a rollout step heads straight for the player's goal instead of moving randomly.
+    private static final int GREEDY_PERCENT = 75;
+
+    //    WALL_PERCENT: Chance of an unseen inner wall being guessed as present.
+    private static final int WALL_PERCENT = 35;
+
+    //    NANOSECONDS: How many nanoseconds occur in a millisecond.
+    private static final long NANOSECONDS = 1000000L;
+
+    //    ONE_HUNDRED: One-hundred, used for random percentages.
+    private static final int ONE_HUNDRED = 100;
+
+
+    // Private Fields
+
+    //    pool: Fork-join pool the searches run on.
+    private final ForkJoinPool pool;
+
+    //    budgetMillis: Thinking time per move.
+    private final long budgetMillis;
+
+    //    random: Random instance used to seed the searches.
+    private final SplittableRandom random = new SplittableRandom();
+
+
+    // Constructor(): Creates an agent that searches on the common pool with the default budget.
+    public MonteCarloAgent() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BUDGET_MILLIS);
+    }
+
+    // Constructor(ForkJoinPool, long): Creates an agent that searches on 'pool' for 'budgetMillis' per move.
+    public MonteCarloAgent(ForkJoinPool pool, long budgetMillis) {
+        this.pool = pool;
+        this.budgetMillis = budgetMillis;
+    }
+
+
+    // Public Methods
+
+    // chooseHome(GameBoard, InputPacket): Picks a free cell for a secret room and signs it into the packet.
+    public void chooseHome(GameBoard board, InputPacket inputPacket) {
+        Cell candidate;
+        boolean taken;
+
+        do {
+            candidate = new Cell(random.nextInt(board.getSize()), random.nextInt(board.getSize()));
+            taken = false;
+
+            for(SecretRoom secretRoom : board.getSecretRooms()) {
+                taken = taken || secretRoom.getPosition().equals(candidate);
+            }
+        } while(taken);
+
+        inputPacket.setType(EventType.CELL);
+        inputPacket.setCell(candidate);
+        inputPacket.sign();
+    }
+
+    // decide(GameState, InputPacket): Searches in the background and signs the chosen move into the packet.
+    public void decide(GameState state, InputPacket inputPacket) {
+        pool.execute(new DecisionTask(state, inputPacket, random.split()));
+    }
+
+    // search(GameState): Runs a time-boxed search on the calling thread's pool and returns the best action.
+    public int search(GameState state) {
+        return pool.invoke(new RootTask(state, random.split()));
+    }
+
+    @Override
+    public String getName() { return "mcts"; }
+
+    // @Override chooseMove(BotView): Searches a guess of the game, as the view doesn't show the unseen walls.
+    @Override
+    public Cell chooseMove(BotView view) {
+        return view.toMove(search(view.guess(random.nextLong())));
+    }
+
+
+    // Private Classes
+
+    // Node: One node of a search tree. 'reward' is from the point of view of the actor whose action led here.
+    private static final class Node {
+        private final Node[] children = new Node[GameState.ACTION_COUNT];
+        private final int mover;
+        private int untried = GameState.ACTION_COUNT;
+        private int visits;
+        private double reward;
+
+        private Node(int mover) {
+            this.mover = mover;
+        }
+    }
+
+    // DecisionTask: Searches, then converts the chosen action into an input for the waiting Session.
+    private final class DecisionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GameState state;
+        private final InputPacket inputPacket;
+        private final SplittableRandom taskRandom;
+
+        private DecisionTask(GameState state, InputPacket inputPacket, SplittableRandom taskRandom) {
+            this.state = state;
+            this.inputPacket = inputPacket;
+            this.taskRandom = taskRandom;
+        }
+
+        @Override
+        protected void compute() {
+            int action = new RootTask(state, taskRandom).invoke();
+            int player = state.getCurrent();
+
+            if(action == GameState.ACTION_NEXT) {
+                inputPacket.setType(EventType.NEXT);
+            } else {
+                Cell target = switch(action) {
+                    case GameState.ACTION_EAST -> new Cell(state.getX(player) + 1, state.getY(player));
+                    case GameState.ACTION_WEST -> new Cell(state.getX(player) - 1, state.getY(player));
+                    case GameState.ACTION_SOUTH -> new Cell(state.getX(player), state.getY(player) + 1);
+                    default -> new Cell(state.getX(player), state.getY(player) - 1);
+                };
+                inputPacket.setType(EventType.CELL);
+                inputPacket.setCell(target);
+            }
+            inputPacket.sign();
+        }
+    }
+
+    // RootTask: Forks one SearchTask per worker and picks the most visited first action across all of them.
+    private final class RootTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameState state;
+        private final SplittableRandom taskRandom;
+
+        private RootTask(GameState state, SplittableRandom taskRandom) {
+            this.state = state;
+            this.taskRandom = taskRandom;
+        }
+
+        @Override
+        protected Integer compute() {
+            long deadline = System.nanoTime() + budgetMillis * NANOSECONDS;
+            List<SearchTask> searches = new ArrayList<SearchTask>();
+
+            for(int i = 0; i < Math.max(1, pool.getParallelism()); i++) {
+                searches.add(new SearchTask(state, deadline, taskRandom.split()));
+            }
+            invokeAll(searches);
+
+            long[] visits = new long[GameState.ACTION_COUNT];
+            for(SearchTask search : searches) {
+                int[] result = search.join();
+                for(int action = 0; action < GameState.ACTION_COUNT; action++) {
+                    visits[action] += result[action];
+                }
+            }
+
+            int best = GameState.ACTION_NEXT;
+            for(int action = 0; action < GameState.ACTION_COUNT; action++) {
+                if(visits[action] > visits[best]) {
+                    best = action;
+                }
+            }
+            return best;
+        }
+    }
+
+    // SearchTask: Grows one UCT tree from its own guess of the unseen walls, returns the root's visit counts.
+    private static final class SearchTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final GameState root;
+        private final long deadline;
+        private final SplittableRandom taskRandom;
+
+        private SearchTask(GameState state, long deadline, SplittableRandom taskRandom) {
+            this.root = state.copy(taskRandom.nextLong());
+            this.root.determinize(WALL_PERCENT);
+            this.deadline = deadline;
+            this.taskRandom = taskRandom;
+        }
+
+        @Override
+        protected int[] compute() {
+            Node tree = new Node(root.getCurrent());
+            Node[] path = new Node[ROLLOUT_STEPS + 1];
+            double[] rewards = new double[root.getActorCount()];
+
+            do {
+                iterate(tree, path, rewards);
+            } while(System.nanoTime() < deadline);
+
+            int[] visits = new int[GameState.ACTION_COUNT];
+            for(int action = 0; action < GameState.ACTION_COUNT; action++) {
+                if(tree.children[action] != null) {
+                    visits[action] = tree.children[action].visits;
+                }
+            }
+            return visits;
+        }
+
+        // iterate(Node, Node[], double[]): One selection, expansion, rollout and backpropagation pass.
+        private void iterate(Node tree, Node[] path, double[] rewards) {
+            GameState state = root.copy(taskRandom.nextLong());
+            Node node = tree;
+            int depth = 0;
+            path[depth++] = node;
+
+            // Selection and expansion.
+            while(!state.isOver() && depth < path.length) {
+                int mover = state.getCurrent();
+
+                if(node.untried > 0) {
+                    int action = pickUntried(node);
+                    state.step(action);
+                    node.children[action] = new Node(mover);
+                    --node.untried;
+                    node = node.children[action];
+                    path[depth++] = node;
+                    break;
+                }
+
+                int action = select(node);
+                state.step(action);
+                node = node.children[action];
+                path[depth++] = node;
+            }
+
+            // Rollout.
+            for(int step = 0; step < ROLLOUT_STEPS && !state.isOver(); step++) {
+                state.step(rolloutAction(state));
+            }
+
+            for(int actor = 0; actor < rewards.length; actor++) {
+                rewards[actor] = state.reward(actor);
+            }
+
+            // Backpropagation.
+            for(int i = 0; i < depth; i++) {
+                path[i].visits++;
+                path[i].reward += rewards[path[i].mover];
+            }
+        }
+
+        // pickUntried(Node): Picks a random action that hasn't been expanded yet.
+        private int pickUntried(Node node) {
+            int choice = taskRandom.nextInt(node.untried);
+            for(int action = 0; action < GameState.ACTION_COUNT; action++) {
+                if(node.children[action] == null && choice-- == 0) {
+                    return action;
+                }
+            }
+            return GameState.ACTION_NEXT;
+        }
+
+        // select(Node): Picks the child with the best upper confidence bound.
+        private int select(Node node) {
+            double logVisits = Math.log(node.visits);
+            double bestScore = Double.NEGATIVE_INFINITY;
+            int best = GameState.ACTION_NEXT;
+
+            for(int action = 0; action < GameState.ACTION_COUNT; action++) {
+                Node child = node.children[action];
+                double score = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+
+                if(score > bestScore) {
+                    bestScore = score;
+                    best = action;
+                }
+            }
+            return best;
+        }
+
+        // rolloutAction(GameState): Default policy; mostly walks toward the current player's goal, avoiding walls.
+        private int rolloutAction(GameState state) {
+            int player = state.getCurrent();
+            int goalX = state.getTreasureX();
+            int goalY = state.getTreasureY();
+
+            if(state.getTreasure(player)) {
+                goalX = state.getHomeX(player);
+                goalY = state.getHomeY(player);
+            }
+
+            int dX = Integer.signum(goalX - state.getX(player));
+            int dY = Integer.signum(goalY - state.getY(player));
+            boolean greedy = taskRandom.nextInt(ONE_HUNDRED) < GREEDY_PERCENT;
+
+            if(greedy && dX != 0 && !state.isBlocked(player, dX > 0 ? GameState.ACTION_EAST : GameState.ACTION_WEST)) {
+                return (dX > 0 ? GameState.ACTION_EAST : GameState.ACTION_WEST);
+            }
+            if(greedy && dY != 0 && !state.isBlocked(player, dY > 0 ? GameState.ACTION_SOUTH : GameState.ACTION_NORTH)) {
+                return (dY > 0 ? GameState.ACTION_SOUTH : GameState.ACTION_NORTH);
+            }
+
+            int start = taskRandom.nextInt(GameState.ACTION_NEXT);
+            for(int i = 0; i < GameState.ACTION_NEXT; i++) {
+                int action = (start + i) % GameState.ACTION_NEXT;
+                if(!state.isBlocked(player, action)) {
+                    return action;
+                }
+            }
+            return GameState.ACTION_NEXT;
+        }
+    }
+}
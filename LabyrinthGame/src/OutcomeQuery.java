@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/* Class - OutcomeQuery
+ *
+ *     Answers aggregate questions about the games an OutcomeStore recorded, such as how often a player wins depending
+ *     on how far their home is from the treasure room.
+ *
+ *     Usage: OutcomeQuery <outcome file>
+ *
+ *     The file is mapped read-only as it is when the query is opened, and every query scans only the columns it needs.
+ *     Records the store appends later are not seen; open a new query for them.
+ */
+public final class OutcomeQuery {
+    // Constants
+
+    //    REPEATS: How often main() repeats the home distance query to time it.
+    private static final int REPEATS = 10;
+
+    //    NANOSECONDS: How many nanoseconds occur in a second.
+    private static final double NANOSECONDS = 1e9d;
+
+    //    UNSIGNED_BYTE: Reads a stored byte as unsigned.
+    private static final int UNSIGNED_BYTE = 0xFF;
+
+
+    // Private Fields
+
+    //    count: Records in the file.
+    private final long count;
+
+    //    blocks: The mapped blocks of the file.
+    private final MappedByteBuffer[] blocks;
+
+
+    // Constructor(Path): Opens the outcome file at 'path' for querying.
+    public OutcomeQuery(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() < OutcomeStore.HEADER_SIZE) {
+                throw new IOException(path + " is not an outcome file.");
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, OutcomeStore.HEADER_SIZE);
+
+            if(header.getInt(OutcomeStore.MAGIC_OFFSET) != OutcomeStore.MAGIC
+                    || header.getInt(OutcomeStore.VERSION_OFFSET) != OutcomeStore.VERSION) {
+                throw new IOException(path + " is not an outcome file.");
+            }
+
+            count = header.getLong(OutcomeStore.COUNT_OFFSET);
+            blocks = new MappedByteBuffer[(int)((count + OutcomeStore.BLOCK_RECORDS - 1) / OutcomeStore.BLOCK_RECORDS)];
+
+            for(int i = 0; i < blocks.length; i++) {
+                blocks[i] = channel.map(FileChannel.MapMode.READ_ONLY, OutcomeStore.blockOffset(i), OutcomeStore.BLOCK_SIZE);
+            }
+        }
+    }
+
+
+    // main: Prints a summary of an outcome file, and how fast it can be queried.
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1) {
+            System.err.println("Usage: OutcomeQuery <outcome file>");
+            System.exit(1);
+        }
+
+        OutcomeQuery query = new OutcomeQuery(Paths.get(args[0]));
+
+        System.out.printf("games: %d%n", query.getCount());
+        for(int winner = 0; winner <= OutcomeStore.PLAYERS; winner++) {
+            System.out.printf("%s wins: %.4f%n", (winner == 0 ? "Foe" : "PLAYER " + winner), query.winRate(winner));
+        }
+        System.out.printf("mean rounds: %.2f%n", query.meanRounds());
+        System.out.printf("foe woke in: %.4f of games%n", query.foeWakeRate());
+
+        System.out.println("home distance,player win rate");
+        double[] byDistance = query.winRateByHomeDistance();
+        for(int distance = 0; distance < byDistance.length; distance++) {
+            if(!Double.isNaN(byDistance[distance])) {
+                System.out.printf("%d,%.4f%n", distance, byDistance[distance]);
+            }
+        }
+
+        long start = System.nanoTime();
+        for(int i = 0; i < REPEATS; i++) {
+            query.winRateByHomeDistance();
+        }
+        double seconds = (System.nanoTime() - start) / NANOSECONDS;
+        System.out.printf("home distance query: %.0f records/s%n", REPEATS * query.getCount() / seconds);
+    }
+
+
+    // Public Methods
+
+    // getCount(): How many games the file holds.
+    public long getCount() {
+        return count;
+    }
+
+    // winRate(int): Share of the games won by the given actor ID (0 for the Foe).
+    public double winRate(int winner) {
+        long wins = 0;
+
+        for(int block = 0; block < blocks.length; block++) {
+            int offset = OutcomeStore.COLUMN_OFFSETS[OutcomeStore.COLUMN_WINNER];
+            for(int record = 0, records = recordsIn(block); record < records; record++) {
+                if((blocks[block].get(offset + record) & UNSIGNED_BYTE) == winner) {
+                    ++wins;
+                }
+            }
+        }
+
+        return (double)wins / count;
+    }
+
+    // meanRounds(): Mean number of rounds played per game.
+    public double meanRounds() {
+        long rounds = 0;
+
+        for(int block = 0; block < blocks.length; block++) {
+            int offset = OutcomeStore.COLUMN_OFFSETS[OutcomeStore.COLUMN_ROUNDS];
+            for(int record = 0, records = recordsIn(block); record < records; record++) {
+                rounds += blocks[block].getChar(offset + 2 * record);
+            }
+        }
+
+        return (double)rounds / count;
+    }
+
+    // foeWakeRate(): Share of the games the Foe woke up in.
+    public double foeWakeRate() {
+        long woke = 0;
+
+        for(int block = 0; block < blocks.length; block++) {
+            int offset = OutcomeStore.COLUMN_OFFSETS[OutcomeStore.COLUMN_FOE_AWOKE];
+            for(int record = 0, records = recordsIn(block); record < records; record++) {
+                if(blocks[block].getChar(offset + 2 * record) != OutcomeStore.NONE_SHORT) {
+                    ++woke;
+                }
+            }
+        }
+
+        return (double)woke / count;
+    }
+
+    // winRateByHomeDistance(): For every distance from a home to the treasure room, the share of the players whose home
+    //    was that far away that won. NaN for distances no home had.
+    public double[] winRateByHomeDistance() {
+        long[] players = new long[OutcomeStore.NONE_BYTE];
+        long[] wins = new long[OutcomeStore.NONE_BYTE];
+        int maxDistance = -1;
+
+        for(int block = 0; block < blocks.length; block++) {
+            MappedByteBuffer buffer = blocks[block];
+            int winnerOffset = OutcomeStore.COLUMN_OFFSETS[OutcomeStore.COLUMN_WINNER];
+            int records = recordsIn(block);
+
+            for(int player = 1; player <= OutcomeStore.PLAYERS; player++) {
+                int distanceOffset = OutcomeStore.COLUMN_OFFSETS[OutcomeStore.COLUMN_HOME_DISTANCE + player - 1];
+
+                for(int record = 0; record < records; record++) {
+                    int distance = buffer.get(distanceOffset + record) & UNSIGNED_BYTE;
+
+                    if(distance != OutcomeStore.NONE_BYTE) {
+                        ++players[distance];
+                        if((buffer.get(winnerOffset + record) & UNSIGNED_BYTE) == player) {
+                            ++wins[distance];
+                        }
+                        maxDistance = Math.max(maxDistance, distance);
+                    }
+                }
+            }
+        }
+
+        double[] rates = new double[maxDistance + 1];
+        for(int distance = 0; distance <= maxDistance; distance++) {
+            rates[distance] = (players[distance] == 0 ? Double.NaN : (double)wins[distance] / players[distance]);
+        }
+        return rates;
+    }
+
+
+    // Private Methods
+
+    // recordsIn(int): How many records of a block are filled in.
+    private int recordsIn(int block) {
+        return (int)Math.min(OutcomeStore.BLOCK_RECORDS, count - (long)block * OutcomeStore.BLOCK_RECORDS);
+    }
+}
@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/* Class - OutcomeStore
+ *
+ *     Records every finished game in an append-only, memory-mapped file, for OutcomeQuery to analyse.
+ *     record() only hands the outcome to the store's own thread, so recording never holds up play.
+ *
+ *     The file is columnar: after a header, it is a sequence of blocks of BLOCK_RECORDS games each, and within a
+ *     block every column is stored contiguously, so a query reads only the columns it needs. Every column has its
+ *     own encoding, just wide enough for its values (see COLUMN_WIDTHS); values too large for a column are stored as
+ *     its largest value. The record count in the header is only written once a record is complete, so a crash never
+ *     leaves a half-written record visible.
+ */
+public final class OutcomeStore {
+    // Constants - File Layout (shared with OutcomeQuery)
+
+    //    MAGIC, VERSION: Identify an outcome file and its layout.
+    static final int MAGIC = 0x4C4F5554;
+    static final int VERSION = 1;
+
+    //    MAGIC_OFFSET, VERSION_OFFSET, COUNT_OFFSET: Where the header fields are. COUNT is the number of complete records.
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int COUNT_OFFSET = 8;
+
+    //    HEADER_SIZE: Size of the header, a page so that blocks start on page boundaries.
+    static final int HEADER_SIZE = 4096;
+
+    //    BLOCK_RECORDS: Records per block.
+    static final int BLOCK_RECORDS = 65536;
+
+    //    PLAYERS: Seats recorded per game.
+    static final int PLAYERS = 2;
+
+    //    COLUMN_*: The columns, in the order they are stored within a block.
+    //    WINNER: Winning actor ID (unsigned byte). ROUNDS: Rounds played (unsigned short).
+    //    FOE_AWOKE: Round the Foe woke in (unsigned short, NONE_SHORT if never).
+    //    WOUNDS, STEALS, RENEWALS: Counts (unsigned byte).
+    //    HOME_DISTANCE: Home to treasure room distance of seats 1 and 2 (unsigned byte, NONE_BYTE if unplayed).
+    //    BOARD_SEED: Seed of the board (long).
+    static final int COLUMN_WINNER = 0;
+    static final int COLUMN_ROUNDS = 1;
+    static final int COLUMN_FOE_AWOKE = 2;
+    static final int COLUMN_WOUNDS = 3;
+    static final int COLUMN_STEALS = 4;
+    static final int COLUMN_RENEWALS = 5;
+    static final int COLUMN_HOME_DISTANCE = 6;
+    static final int COLUMN_BOARD_SEED = COLUMN_HOME_DISTANCE + PLAYERS;
+
+    //    COLUMN_WIDTHS: Bytes per value of every column.
+    static final int[] COLUMN_WIDTHS = {1, 2, 2, 1, 1, 1, 1, 1, 8};
+
+    //    COLUMN_OFFSETS: Where every column starts within a block.
+    static final int[] COLUMN_OFFSETS = new int[COLUMN_WIDTHS.length];
+    static {
+        for(int i = 1; i < COLUMN_WIDTHS.length; i++) {
+            COLUMN_OFFSETS[i] = COLUMN_OFFSETS[i - 1] + BLOCK_RECORDS * COLUMN_WIDTHS[i - 1];
+        }
+    }
+
+    //    BLOCK_SIZE: Bytes per block.
+    static final long BLOCK_SIZE = (long)BLOCK_RECORDS * Arrays.stream(COLUMN_WIDTHS).sum();
+
+    //    NONE_BYTE, NONE_SHORT: Stored in the foe awoke and home distance columns for values that don't exist.
+    static final int NONE_BYTE = 0xFF;
+    static final int NONE_SHORT = 0xFFFF;
+
+    //    CLOSE_TIMEOUT_SECONDS: How long closing waits for outcomes that are still being written.
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+
+    // Private Fields
+
+    //    channel: The open outcome file.
+    private final FileChannel channel;
+
+    //    header: The mapped header.
+    private final MappedByteBuffer header;
+
+    //    block, blockIndex: The mapped block being appended to, and its index; null until the first write.
+    private MappedByteBuffer block;
+    private long blockIndex = -1;
+
+    //    count: Records in the file. Only used from the writer thread after construction.
+    private long count;
+
+    //    writer: The thread outcomes are written on.
+    private final ExecutorService writer;
+
+
+    // Constructor(Path): Opens the outcome file at 'path', creating it if it doesn't exist, and appends to it from
+    //    then on. Outcomes still being written when the program exits are finished first.
+    public OutcomeStore(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if(channel.size() > 0 && channel.size() < HEADER_SIZE) {
+            channel.close();
+            throw new IOException(path + " is not an outcome file.");
+        }
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        if(header.getInt(MAGIC_OFFSET) == 0 && header.getLong(COUNT_OFFSET) == 0) {
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(MAGIC_OFFSET, MAGIC);
+        } else if(header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+            channel.close();
+            throw new IOException(path + " is not an outcome file.");
+        }
+        count = header.getLong(COUNT_OFFSET);
+
+        writer = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "Outcomes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+
+    // Public Methods
+
+    // record(GameOutcome): Appends an outcome to the file in the background.
+    public void record(GameOutcome outcome) {
+        writer.execute(() -> write(outcome));
+    }
+
+    // close(): Finishes writing the outcomes recorded so far and flushes them to disk.
+    public void close() {
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            header.force();
+            if(block != null) {
+                block.force();
+            }
+            channel.close();
+        } catch (IOException exception) {
+            System.out.println("Closing the outcome file failed: " + exception);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    // Package-Private Methods
+
+    // blockOffset(long): Where a block starts in the file.
+    static long blockOffset(long block) {
+        return HEADER_SIZE + block * BLOCK_SIZE;
+    }
+
+
+    // Private Methods
+
+    // write(GameOutcome): Appends an outcome to the file. Runs on the writer thread.
+    private void write(GameOutcome outcome) {
+        try {
+            if(count / BLOCK_RECORDS != blockIndex) {
+                blockIndex = count / BLOCK_RECORDS;
+                block = channel.map(FileChannel.MapMode.READ_WRITE, blockOffset(blockIndex), BLOCK_SIZE);
+            }
+        } catch (IOException exception) {
+            System.out.println("Recording a game failed: " + exception);
+            return;
+        }
+
+        int record = (int)(count % BLOCK_RECORDS);
+
+        block.put(COLUMN_OFFSETS[COLUMN_WINNER] + record, (byte)saturate(outcome.getWinner(), NONE_BYTE));
+        block.putChar(COLUMN_OFFSETS[COLUMN_ROUNDS] + 2 * record, (char)saturate(outcome.getRounds(), NONE_SHORT));
+        block.putChar(COLUMN_OFFSETS[COLUMN_FOE_AWOKE] + 2 * record, (char)(outcome.getFoeAwokeRound() == GameOutcome.NEVER
+                ? NONE_SHORT : saturate(outcome.getFoeAwokeRound(), NONE_SHORT - 1)));
+        block.put(COLUMN_OFFSETS[COLUMN_WOUNDS] + record, (byte)saturate(outcome.getWounds(), NONE_BYTE));
+        block.put(COLUMN_OFFSETS[COLUMN_STEALS] + record, (byte)saturate(outcome.getSteals(), NONE_BYTE));
+        block.put(COLUMN_OFFSETS[COLUMN_RENEWALS] + record, (byte)saturate(outcome.getRenewals(), NONE_BYTE));
+
+        for(int player = 1; player <= PLAYERS; player++) {
+            int distance = outcome.getHomeDistance(player);
+            block.put(COLUMN_OFFSETS[COLUMN_HOME_DISTANCE + player - 1] + record,
+                    (byte)(distance == GameOutcome.NO_HOME ? NONE_BYTE : saturate(distance, NONE_BYTE - 1)));
+        }
+
+        block.putLong(COLUMN_OFFSETS[COLUMN_BOARD_SEED] + 8 * record, outcome.getBoardSeed());
+
+        // Only now is the record complete, so only now is it counted.
+        header.putLong(COUNT_OFFSET, ++count);
+    }
+
+    // saturate(int, int): 'value', or 'max' if it is larger.
+    private static int saturate(int value, int max) {
+        return Math.min(Math.max(value, 0), max);
+    }
+}
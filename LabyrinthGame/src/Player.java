@@ -8,14 +8,14 @@ public final class Player extends Actor {
 
     // Constants
 
-    //    FATIGUE_MAX: Maximum/Full fatigue value.
-    private static final int FATIGUE_MAX = 50;
+    //    FATIGUE_MAX: Maximum/Full fatigue value. This and the below are the defaults, see Rules.
+    public static final int FATIGUE_MAX = 50;
 
     //    MAXIMUM_MOVES: Maximum moves a player gets per turn
-    private static final int MAXIMUM_MOVES = 8;
+    public static final int MAXIMUM_MOVES = 8;
 
     //    MINIMUM_MOVES: Minimum moves a player gets per turn
-    private static final int MINIMUM_MOVES = 4;
+    public static final int MINIMUM_MOVES = 4;
 
     //    FATAL_INJURY: Injury level that kills a player.
     public static final int FATAL_INJURY = 3;
@@ -23,33 +23,58 @@ public final class Player extends Actor {
 
     // Private Fields (+Getters/Setters)
 
+    //    rules: The rules this player is playing by.
+    private final Rules rules;
+
     //    injuredLevel: Internal variable that holds how many times this player has been attacked.
     private int injuredLevel;
+    public int getInjuredLevel() { return injuredLevel; }
 
     //    fatigue: Current fatigue level of this player.
-    private int fatigue = FATIGUE_MAX;
+    private int fatigue;
     public int getFatigue() { return fatigue; }
-    public void resetFatigue() { fatigue = FATIGUE_MAX; }
+    public void resetFatigue() { fatigue = rules.fatigueMax; }
 
     //    hasTreasure: Holds whether or not this player has the treasure.
     private boolean hasTreasure;
     public boolean getTreasure() { return hasTreasure; }
     public void setTreasure(boolean value) {
+        if(hasTreasure == value) {
+            return;
+        }
         hasTreasure = value;
-        triggerDataChange(this);
+
+        if(value) {
+            GameEvent.TreasureTaken event = changed(GameEvent.TreasureTaken.class);
+            if(event != null) {
+                publish(event.set(this));
+            }
+        } else {
+            triggerDataChange();
+        }
     }
 
     //    safe: Holds whether or not this player is safe (in their secret room).
     public boolean safe;
     public boolean getSafe() { return safe; }
     public void setSafe(boolean value) {
+        if(safe == value) {
+            return;
+        }
         safe = value;
-        triggerDataChange(this);
+        triggerDataChange();
     }
 
-    // Constructor(int): Creates a Player with the given ID.
+    // Constructor(int): Creates a Player with the given ID, playing by the default rules.
     public Player(int id) {
+        this(id, Rules.DEFAULT);
+    }
+
+    // Constructor(int, Rules): Creates a Player with the given ID, playing by the given rules.
+    public Player(int id, Rules rules) {
         super(id);
+        this.rules = rules;
+        this.fatigue = rules.fatigueMax;
         this.type = ActorType.PLAYER;
         this.setVisibility(true);
     }
@@ -58,35 +83,60 @@ public final class Player extends Actor {
     // getMaxMoves(): Computes this Player's maximum moves based on their injured level and treasure status.
     public int getMaxMoves() {
         if(hasTreasure) {
-            return MINIMUM_MOVES;
+            return rules.minimumMoves;
         } else {
-            int moves = MAXIMUM_MOVES - 2 * injuredLevel;
+            int moves = rules.maximumMoves - 2 * injuredLevel;
 
-            if(moves < MINIMUM_MOVES) {
-                moves = MINIMUM_MOVES;
+            if(moves < rules.minimumMoves) {
+                moves = rules.minimumMoves;
             }
 
             return moves;
         }
     }
 
-    // wound(): Wounds a player by one injured level.
+    // wound(): Wounds a player by one injured level. A player that dies of it disappears from the board.
     public void wound() {
         ++injuredLevel;
-        triggerDataChange(this);
+
+        GameEvent.PlayerWounded event = changed(GameEvent.PlayerWounded.class);
+        if(event != null) {
+            publish(event.set(this, injuredLevel));
+        }
+
+        if(!isAlive()) {
+            setVisibility(false);
+        }
     }
 
     // heal(): Heals a player by one injured level.
     public boolean heal() {
         if(injuredLevel > 0) {
             --injuredLevel;
-            triggerDataChange(this);
+            triggerDataChange();
             return true;
         }
-        triggerDataChange(this);
         return false;
     }
 
+    // @Override reset(): Puts this Player back the way it was created: unhurt, rested, visible and without the treasure.
+    @Override
+    public void reset() {
+        super.reset();
+        injuredLevel = 0;
+        fatigue = rules.fatigueMax;
+        hasTreasure = false;
+        safe = false;
+        visible = true;
+    }
+
+    // restore(int, int): Sets this Player's injured level and fatigue directly, when a hibernated session is restored.
+    public void restore(int injuredLevel, int fatigue) {
+        this.injuredLevel = injuredLevel;
+        this.fatigue = fatigue;
+        triggerDataChange();
+    }
+
     // tire(): Tires a player depending on their injuredLevel.
     public void tire() {
         fatigue -= 1 + injuredLevel;
@@ -97,9 +147,8 @@ public final class Player extends Actor {
     }
 
     // isAlive(): Returns whether or not this Player is dead (injured level has exceeded FATAL_INJURY.)
+    //    Only a query; wound() hides a player once they die.
     public boolean isAlive() {
-        boolean alive =  (injuredLevel < FATAL_INJURY);
-        this.setVisibility(alive);
-        return alive;
+        return injuredLevel < rules.fatalInjury;
     }
 }
@@ -0,0 +1,49 @@
+import java.util.SplittableRandom;
+
+/* Class - RandomBot
+ *
+ *     A strategy that wanders: it steps to a random neighbouring cell without a known wall in between, and now and
+ *     then ends its turn early. A baseline the other strategies should beat.
+ */
+public final class RandomBot implements IBotStrategy {
+    // Constants - NEXT_PERCENT: How often it ends its turn instead of moving.
+    private static final int NEXT_PERCENT = 10;
+
+    // Constants - ONE_HUNDRED: One-hundred, used for random percentages.
+    private static final int ONE_HUNDRED = 100;
+
+    // Constants - DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+    // random: Random instance used for the moves.
+    private final SplittableRandom random;
+
+    // Constructor(long): Creates a bot whose moves are decided by 'seed'.
+    public RandomBot(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public String getName() { return "random"; }
+
+    // @Override chooseMove(BotView): A random open neighbour, or NEXT.
+    @Override
+    public Cell chooseMove(BotView view) {
+        Cell position = view.getPosition();
+        Cell[] options = new Cell[4];
+        int count = 0;
+
+        for(int direction = 0; direction < 4; direction++) {
+            Cell next = new Cell(position.x + DELTA_X[direction], position.y + DELTA_Y[direction]);
+            if(!view.isKnownBlocked(position, next)) {
+                options[count++] = next;
+            }
+        }
+
+        if(count == 0 || random.nextInt(ONE_HUNDRED) < NEXT_PERCENT) {
+            return null;
+        }
+        return options[random.nextInt(count)];
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/* Class - RedrawCounter
+ *
+ *     Plays a scripted headless game and counts what the view is sent: how many times actors and the board are
+ *     redrawn, and how many changes the models count. It then checks that questions asked of the models
+ *     (Player.isAlive(), getSafe(), ...) and setters given the value already there publish nothing and change no
+ *     version, and exits with status 1 if they do. Keeps the change suppression in Actor, Player, Foe and GameBoard
+ *     from slipping back.
+ *
+ *     Usage: RedrawCounter [inputs] [seed=N]
+ *     The players pick random moves; the game restarts by itself after every game over.
+ */
+public final class RedrawCounter implements IGameEventHandler {
+    // Constants
+
+    //    DEFAULT_INPUTS: Inputs given before counting stops, unless given.
+    private static final int DEFAULT_INPUTS = 20000;
+
+    //    QUERIES: How many times every question is asked, and every setter repeated, while checking.
+    private static final int QUERIES = 1000;
+
+    //    SEED_ARGUMENT: Prefix of the seed argument.
+    private static final String SEED_ARGUMENT = "seed=";
+
+    //    MOVE, CHOOSE_HOME, PRESS_NEXT: What the game is waiting for, told apart by the text it shows.
+    private static final int MOVE = 0;
+    private static final int CHOOSE_HOME = 1;
+    private static final int PRESS_NEXT = 2;
+
+
+    // Private Fields
+
+    //    random: Picks the scripted inputs.
+    private final SplittableRandom random;
+
+    //    inputLimit, inputs: How many inputs to give, and how many were given.
+    private final int inputLimit;
+    private int inputs;
+
+    //    phase, homes, current: What the game is waiting for, the homes chosen so far this game, and the actor to play.
+    private int phase = CHOOSE_HOME;
+    private int homes;
+    private Actor current;
+
+    //    actorRedraws, boardRedraws: Times the view was told to redraw an actor or the board.
+    private long actorRedraws;
+    private long boardRedraws;
+
+    //    actors, board: The models the view was sent.
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private GameBoard board;
+
+    //    passed, done: The outcome of the checks, and signalled once they ran.
+    private boolean passed;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+
+    // Constructor(int, long): Creates a view that gives 'inputLimit' scripted inputs picked by 'seed'.
+    private RedrawCounter(int inputLimit, long seed) {
+        this.inputLimit = inputLimit;
+        this.random = new SplittableRandom(seed);
+    }
+
+
+    // main: Plays the scripted game on a session thread, and reports once the inputs are used up.
+    public static void main(String[] args) throws InterruptedException {
+        int inputLimit = DEFAULT_INPUTS;
+        long seed = 1;
+
+        for(String arg : args) {
+            if(arg.startsWith(SEED_ARGUMENT)) {
+                seed = Long.parseLong(arg.substring(SEED_ARGUMENT.length()));
+            } else {
+                inputLimit = Integer.parseInt(arg);
+            }
+        }
+
+        RedrawCounter view = new RedrawCounter(inputLimit, seed);
+
+        // The session waits for an input that never comes once the inputs are used up, so its thread mustn't keep the
+        // process alive.
+        Thread thread = new Thread(() -> new Session(view, new int[0], GameBoard.SIZE, Rules.DEFAULT, null), "Session");
+        thread.setDaemon(true);
+        thread.start();
+
+        view.done.await();
+        System.exit(view.passed ? 0 : 1);
+    }
+
+
+    // Interface Fulfillment - IGameEventHandler
+
+    // @Override displayText(String): Tells what the game waits for from its messages.
+    @Override
+    public void displayText(String text) {
+        if(text.endsWith("Choose your home.")) {
+            phase = CHOOSE_HOME;
+        } else if (text.equals("Press NEXT.") || text.endsWith("(RESET or NEXT)")) {
+            phase = PRESS_NEXT;
+        } else if (text.equals("Find the treasure!")) {
+            phase = MOVE;
+        }
+    }
+
+    // @Override clearDisplay(): A new game begins.
+    @Override
+    public void clearDisplay() {
+        homes = 0;
+    }
+
+    @Override
+    public void playSound(SoundType soundType) {}
+
+    @Override
+    public void hibernate() {}
+
+    // @Override actorDataUpdate(Actor): Counts an actor redraw.
+    @Override
+    public void actorDataUpdate(Actor actor) {
+        ++actorRedraws;
+        if(!actors.contains(actor)) {
+            actors.add(actor);
+        }
+    }
+
+    @Override
+    public void focusActor(Actor actor) {
+        current = actor;
+    }
+
+    // @Override boardDataUpdate(GameBoard): Counts a board redraw.
+    @Override
+    public void boardDataUpdate(GameBoard board) {
+        ++boardRedraws;
+        this.board = board;
+    }
+
+    // @Override subscribeInput(InputPacket): Gives the next scripted input, or reports and stops once they are used up.
+    @Override
+    public void subscribeInput(InputPacket inputPacket) {
+        if(inputs == inputLimit) {
+            report();
+            return;
+        }
+        ++inputs;
+
+        if(phase == CHOOSE_HOME) {
+            inputPacket.setType(EventType.CELL);
+            inputPacket.setCell(homes++ == 0 ? new Cell(0, 0) : new Cell(GameBoard.SIZE - 1, GameBoard.SIZE - 1));
+        } else if (phase == PRESS_NEXT || random.nextInt(10) == 0) {
+            inputPacket.setType(EventType.NEXT);
+        } else {
+            Cell position = current.getPosition();
+            int direction = random.nextInt(4);
+            int x = position.x + (direction == 0 ? 1 : direction == 1 ? -1 : 0);
+            int y = position.y + (direction == 2 ? 1 : direction == 3 ? -1 : 0);
+
+            inputPacket.setType(EventType.CELL);
+            inputPacket.setCell(new Cell(Math.max(0, Math.min(GameBoard.SIZE - 1, x)), Math.max(0, Math.min(GameBoard.SIZE - 1, y))));
+        }
+        inputPacket.sign();
+    }
+
+
+    // Private Methods
+
+    // report(): Prints the counts, then asks every question and repeats every setter, checking that nothing is
+    //    published. Runs on the session thread, which owns the models.
+    private void report() {
+        System.out.printf("%d inputs: %d actor redraws, %d board redraws, %.2f redraws per input%n", inputs,
+                actorRedraws, boardRedraws, (double)(actorRedraws + boardRedraws) / inputs);
+
+        long redraws = actorRedraws + boardRedraws;
+        long versions = versions();
+
+        for(int i = 0; i < QUERIES; i++) {
+            board.setTreasure(board.getTreasure());
+
+            for(Actor actor : actors) {
+                actor.move(actor.getPosition());
+                actor.setVisibility(actor.getVisibility());
+
+                if(actor instanceof Player player) {
+                    player.isAlive();
+                    player.setSafe(player.getSafe());
+                    player.setTreasure(player.getTreasure());
+                } else if (actor instanceof Foe foe) {
+                    foe.setAwake(foe.getAwake());
+                }
+            }
+        }
+
+        long extraRedraws = actorRedraws + boardRedraws - redraws;
+        long extraVersions = versions() - versions;
+        passed = extraRedraws == 0 && extraVersions == 0;
+
+        System.out.printf("%d rounds of queries and unchanged sets on %d actors and the board: %d redraws, %d changes: %s%n",
+                QUERIES, actors.size(), extraRedraws, extraVersions, (passed ? "OK" : "FAILED"));
+        done.countDown();
+    }
+
+    // versions(): The change counts of every model, added up.
+    private long versions() {
+        long versions = board.getVersion();
+        for(Actor actor : actors) {
+            versions += actor.getVersion();
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,220 @@
+import com.wwu.graphics.GameGraphics;
+import com.wwu.graphics.GraphicImageTypes;
+import com.wwu.graphics.GraphicsWallDirections;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Class - RenderScheduler
+ *
+ *     Paints GameGraphics at a fixed frame rate on its own thread, so the gameplay thread never waits on graphics calls.
+ *     The gameplay thread describes what the screen should show in a Frame and publishes it; every frame, the render
+ *     thread picks up the newest published Frame and paints only what differs from what is already on screen.
+ *     Any number of publishes between two frames collapse into one repaint, and a change is on screen at most one
+ *     frame later.
+ *
+ *     Frames are handed over through a triple buffer: the gameplay thread fills the back frame, the render thread
+ *     paints the front frame, and the middle frame is swapped between them atomically. Neither side ever waits for the
+ *     other, a frame is never written while the other side can see it, and no frames are allocated after start-up.
+ *     Published frames are numbered, so that the TurnTrace Render events of every frame up to the one painted can be
+ *     ended once it is on screen.
+ */
+public final class RenderScheduler {
+    // Constants
+
+    //    FRAMES_PER_SECOND: How many times a second the render thread checks for a new frame.
+    public static final long FRAMES_PER_SECOND = 30;
+
+    //    NANOSECONDS: How many nanoseconds occur in a second.
+    private static final long NANOSECONDS = 1000000000L;
+
+    //    INDEX_MASK, DIRTY, SEQUENCE_SHIFT: The middle slot holds a frame index, plus the DIRTY bit while it holds an
+    //    unpainted frame, and above SEQUENCE_SHIFT that frame's number.
+    private static final long INDEX_MASK = 3;
+    private static final long DIRTY = 4;
+    private static final int SEQUENCE_SHIFT = 3;
+
+
+    // Private Fields
+
+    //    gameGraphics: The graphics driver painted on. Only used from the render thread.
+    private final GameGraphics gameGraphics;
+
+    //    viewportSize: Width and height of the painted area in tiles.
+    private final int viewportSize;
+
+    //    frames: The three frames of the triple buffer.
+    private final Frame[] frames = new Frame[3];
+
+    //    back: Index of the frame the gameplay thread fills. Only used from the gameplay thread.
+    private int back = 0;
+
+    //    front: Index of the frame the render thread paints from. Only used from the render thread.
+    private int front = 1;
+
+    //    middle: Index of the frame waiting to be picked up, whether it is new, and its number.
+    private final AtomicLong middle = new AtomicLong(2);
+
+    //    published: Number of the last frame published. Only used from the gameplay thread.
+    private long published = 0;
+
+    //    traces: Render events of published frames, in order, until a frame at least as new is painted. Empty unless
+    //    a recording wants them.
+    private final ConcurrentLinkedQueue<TurnTrace.Render> traces = new ConcurrentLinkedQueue<TurnTrace.Render>();
+
+    //    shown: What is currently on screen, to only paint differences. Only used from the render thread.
+    private final Frame shown;
+
+    //    painted: Whether anything has been painted yet; the first frame is painted in full.
+    private boolean painted = false;
+
+    //    executor: Runs the render thread.
+    private final ScheduledExecutorService executor;
+
+
+    // Constructor(GameGraphics, int): Creates a scheduler painting a 'viewportSize' by 'viewportSize' area on
+    //    'gameGraphics'. Nothing is painted until start() is called.
+    public RenderScheduler(GameGraphics gameGraphics, int viewportSize) {
+        this.gameGraphics = gameGraphics;
+        this.viewportSize = viewportSize;
+        this.shown = new Frame(viewportSize);
+
+        for(int i = 0; i < frames.length; i++) {
+            frames[i] = new Frame(viewportSize);
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "Render");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    // Public Methods
+
+    // start(): Starts painting at FRAMES_PER_SECOND.
+    public void start() {
+        long period = NANOSECONDS / FRAMES_PER_SECOND;
+        executor.scheduleAtFixedRate(this::renderFrame, 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    // stop(): Stops painting.
+    public void stop() {
+        executor.shutdown();
+    }
+
+    // getBackFrame(): The frame to describe the next screen in. It has to be filled in completely, then published.
+    //    Gameplay thread only.
+    public Frame getBackFrame() {
+        return frames[back];
+    }
+
+    // publish(): Hands the back frame to the render thread, replacing any frame it hasn't picked up yet.
+    //    Gameplay thread only.
+    public void publish() {
+        ++published;
+
+        // Queued before the frame can be painted, so that the render thread can't miss it.
+        TurnTrace.Render trace = TurnTrace.framePublished();
+        if(trace != null) {
+            trace.frame = published;
+            traces.add(trace);
+        }
+
+        back = (int)(middle.getAndSet(back | DIRTY | published << SEQUENCE_SHIFT) & INDEX_MASK);
+    }
+
+
+    // Private Methods
+
+    // renderFrame(): Paints the newest published frame, if there is one. Runs on the render thread.
+    private void renderFrame() {
+        if((middle.get() & DIRTY) == 0) {
+            return;
+        }
+
+        long taken = middle.getAndSet(front);
+        front = (int)(taken & INDEX_MASK);
+
+        try {
+            paint(frames[front]);
+        } catch (RuntimeException exception) {
+            // An exception would silently cancel every later frame, so report it and keep going.
+            System.out.println("Render failed: " + exception);
+        }
+
+        // Frames published before the one painted never will be; what they showed is on screen now.
+        long sequence = taken >>> SEQUENCE_SHIFT;
+        TurnTrace.Render trace;
+        while((trace = traces.peek()) != null && trace.frame <= sequence) {
+            traces.poll();
+            TurnTrace.framePainted(trace);
+        }
+
+        StartupProbe.boardRendered();
+    }
+
+    // paint(Frame): Paints the tiles and walls of 'frame' that differ from what is on screen.
+    private void paint(Frame frame) {
+        int last = viewportSize - 1;
+
+        for(int y = 0; y < viewportSize; y++) {
+            for(int x = 0; x < viewportSize; x++) {
+                int tile = y * viewportSize + x;
+
+                if(!painted || shown.tiles[tile] != frame.tiles[tile]) {
+                    gameGraphics.changeTileImage(x, y, frame.tiles[tile]);
+                }
+                if(!painted || shown.north[tile] != frame.north[tile]) {
+                    gameGraphics.wallGraphicSetVisible(x, y, GraphicsWallDirections.NORTH, frame.north[tile]);
+                }
+                if(!painted || shown.west[tile] != frame.west[tile]) {
+                    gameGraphics.wallGraphicSetVisible(x, y, GraphicsWallDirections.WEST, frame.west[tile]);
+                }
+            }
+
+            if(!painted || shown.east[y] != frame.east[y]) {
+                gameGraphics.wallGraphicSetVisible(last, y, GraphicsWallDirections.EAST, frame.east[y]);
+            }
+            if(!painted || shown.south[y] != frame.south[y]) {
+                gameGraphics.wallGraphicSetVisible(y, last, GraphicsWallDirections.SOUTH, frame.south[y]);
+            }
+        }
+
+        shown.copyFrom(frame);
+        painted = true;
+    }
+
+
+    // Public Classes
+
+    // Frame: What the screen shows. Tiles and walls are indexed y * viewportSize + x; 'east' is the east wall of the
+    //    last column and 'south' the south wall of the last row.
+    public static final class Frame {
+        public final GraphicImageTypes[] tiles;
+        public final boolean[] north, west;
+        public final boolean[] east, south;
+
+        private Frame(int viewportSize) {
+            tiles = new GraphicImageTypes[viewportSize * viewportSize];
+            north = new boolean[viewportSize * viewportSize];
+            west = new boolean[viewportSize * viewportSize];
+            east = new boolean[viewportSize];
+            south = new boolean[viewportSize];
+            Arrays.fill(tiles, GraphicImageTypes.TILE);
+        }
+
+        // copyFrom(Frame): Makes this frame show the same as 'other'.
+        private void copyFrom(Frame other) {
+            System.arraycopy(other.tiles, 0, tiles, 0, tiles.length);
+            System.arraycopy(other.north, 0, north, 0, north.length);
+            System.arraycopy(other.west, 0, west, 0, west.length);
+            System.arraycopy(other.east, 0, east, 0, east.length);
+            System.arraycopy(other.south, 0, south, 0, south.length);
+        }
+    }
+}
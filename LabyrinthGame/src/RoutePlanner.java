@@ -0,0 +1,350 @@
+import java.util.Arrays;
+import java.util.Collection;
+
+/* Class - RoutePlanner
+ *
+ *     Plans the shortest route to a clicked cell through the walls that have been revealed so far; walls that haven't
+ *     been revealed are assumed to be open, so players can't learn anything from a plan they couldn't see themselves.
+ *
+ *     Planning keeps a breadth-first search from the destination over a window of the board around the player and
+ *     the destination. Clicking the same cell again (usually on the next turn) reuses it. When a wall is revealed
+ *     inside the window, only the cells whose shortest route ran through it are searched again, so plans stay
+ *     instant however large the board is. A route found in the window is only used once no route leaving it could
+ *     be shorter; until then the window is widened. Destinations a window can't settle without growing too large
+ *     are planned by a SectorGraph.
+ */
+public final class RoutePlanner {
+    // Constants
+
+    //    PLAN_MARGIN: How many cells around the player and the destination the window reaches at first, to allow
+    //    detours.
+    private static final int PLAN_MARGIN = 8;
+
+    //    MAX_PLAN_SIZE: Largest window side, in cells; destinations that need a larger one are planned by 'sectors'.
+    private static final int MAX_PLAN_SIZE = 256;
+
+    //    UNREACHABLE: Distance of cells the destination can't be reached from.
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    //    DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+
+    // Private Fields
+
+    //    board, seed: The board the cached search was made on, and the layout it had; reset() lays a board out again in
+    //    place. Null while nothing is cached.
+    private GameBoard board;
+    private long seed;
+
+    //    originX, originY, width, height: The window of the board the search covers.
+    private int originX, originY, width, height;
+
+    //    targetX, targetY: The destination the search started from.
+    private int targetX, targetY;
+
+    //    distance: Steps from every cell in the window to the destination, or UNREACHABLE. Indexed y * width + x.
+    private int[] distance;
+
+    //    queue, invalid, seeds: Scratch space for searching again after a wall is revealed. The queue holds the affected
+    //    cells, followed by the cells queued while searching them again.
+    private int[] queue;
+    private boolean[] invalid;
+    private long[] seeds;
+
+    //    sectors: Plans the routes no window up to MAX_PLAN_SIZE settles: to destinations far away, or ones only
+    //    reached by a detour longer than such a window allows for.
+    private final SectorGraph sectors;
+
+
+    // Constructor(EventBus): Creates a planner that repairs its search whenever a wall is revealed on 'eventBus'.
+    public RoutePlanner(EventBus eventBus) {
+        eventBus.subscribe(GameEvent.WallRevealed.class, this::wallRevealed);
+        sectors = new SectorGraph(eventBus);
+    }
+
+
+    // Public Methods
+
+    // plan(GameBoard, Cell, Cell, int, Collection<Cell>): Adds the first 'maxSteps' steps of the shortest known route
+    //    from 'from' to 'to' to 'route', or of a nearly shortest one if no window small enough settles it. Returns
+    //    false, adding nothing, if there is no such route.
+    public boolean plan(GameBoard board, Cell from, Cell to, int maxSteps, Collection<Cell> route) {
+        if(!cached(board, from, to) && !search(board, from, to)) {
+            return sectors.plan(board, from, to, maxSteps, route);
+        }
+
+        int x = from.x - originX;
+        int y = from.y - originY;
+
+        if(distance[y * width + x] == UNREACHABLE || distance[y * width + x] == 0) {
+            return false;
+        }
+
+        for(int step = 0; step < maxSteps && distance[y * width + x] > 0; step++) {
+            int cell = y * width + x;
+            int direction = 0;
+
+            while(!open(x, y, direction) || distance[cell + offset(direction)] != distance[cell] - 1) {
+                ++direction;
+            }
+
+            x += DELTA_X[direction];
+            y += DELTA_Y[direction];
+            route.add(board.getCell(originX + x, originY + y));
+        }
+
+        return true;
+    }
+
+
+    // Private Methods
+
+    // cached(GameBoard, Cell, Cell): Whether the cached search can plan from 'from' to 'to'.
+    private boolean cached(GameBoard board, Cell from, Cell to) {
+        return this.board == board && board.getSeed() == seed && to.x == targetX && to.y == targetY
+                && from.x >= originX && from.x < originX + width && from.y >= originY && from.y < originY + height
+                && settled(from.x - originX, from.y - originY);
+    }
+
+    // search(GameBoard, Cell, Cell): Searches windows from 'to', wider each time, until one settles the route from
+    //    'from'. Returns false if the window would grow too large, or 'to' is off the board.
+    private boolean search(GameBoard board, Cell from, Cell to) {
+        int size = board.getSize();
+        int margin = PLAN_MARGIN;
+        this.board = null;
+
+        if(to.x < 0 || to.x >= size || to.y < 0 || to.y >= size) {
+            return false;
+        }
+
+        while(searchWindow(board, from, to, margin)) {
+            if(settled(from.x - originX, from.y - originY)) {
+                return true;
+            }
+
+            // A route that leaves a window 'margin' cells around both ends is at least 2 * (margin + 1) steps longer
+            // than the direct distance, so the next margin settles a route of 'steps'. Without one, keep doubling.
+            int steps = distance[(from.y - originY) * width + (from.x - originX)];
+            int direct = Math.abs(from.x - to.x) + Math.abs(from.y - to.y);
+            margin = (steps == UNREACHABLE ? 2 * margin : Math.max(margin + 1, (steps - direct + 1) / 2));
+        }
+
+        return false;
+    }
+
+    // searchWindow(GameBoard, Cell, Cell, int): Searches the window 'margin' cells around 'from' and 'to'. Returns
+    //    false, searching nothing, if the window would be too large.
+    private boolean searchWindow(GameBoard board, Cell from, Cell to, int margin) {
+        int size = board.getSize();
+        int left = Math.max(0, Math.min(from.x, to.x) - margin);
+        int top = Math.max(0, Math.min(from.y, to.y) - margin);
+        int right = Math.min(size - 1, Math.max(from.x, to.x) + margin);
+        int bottom = Math.min(size - 1, Math.max(from.y, to.y) + margin);
+
+        this.board = null;
+        if(right - left + 1 > MAX_PLAN_SIZE || bottom - top + 1 > MAX_PLAN_SIZE) {
+            return false;
+        }
+
+        this.board = board;
+        seed = board.getSeed();
+        originX = left;
+        originY = top;
+        width = right - left + 1;
+        height = bottom - top + 1;
+        targetX = to.x;
+        targetY = to.y;
+
+        if(distance == null || distance.length < width * height) {
+            distance = new int[width * height];
+            queue = new int[2 * width * height];
+            invalid = new boolean[width * height];
+            seeds = new long[width * height];
+        }
+
+        int head = 0;
+        int tail = 0;
+        int target = (to.y - originY) * width + (to.x - originX);
+
+        Arrays.fill(distance, 0, width * height, UNREACHABLE);
+        distance[target] = 0;
+        queue[tail++] = target;
+
+        while(head < tail) {
+            int cell = queue[head++];
+
+            for(int direction = 0; direction < 4; direction++) {
+                int next = cell + offset(direction);
+                if(open(cell % width, cell / width, direction) && distance[next] == UNREACHABLE) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // settled(int, int): Whether the search's distance from window cell (x, y) is the board's: no route that leaves the
+    //    window could be shorter. Stepping past a side of the window and back costs at least the direct distance to
+    //    the column or row beyond it. Sides on the board's edge can't be left.
+    private boolean settled(int x, int y) {
+        int size = board.getSize();
+        int fromX = originX + x;
+        int fromY = originY + y;
+        int acrossX = Math.abs(fromX - targetX);
+        int acrossY = Math.abs(fromY - targetY);
+        int shortestOutside = UNREACHABLE;
+
+        if(originX > 0) {
+            shortestOutside = Math.min(shortestOutside, (fromX - originX + 1) + (targetX - originX + 1) + acrossY);
+        }
+        if(originX + width < size) {
+            shortestOutside = Math.min(shortestOutside, (originX + width - fromX) + (originX + width - targetX) + acrossY);
+        }
+        if(originY > 0) {
+            shortestOutside = Math.min(shortestOutside, (fromY - originY + 1) + (targetY - originY + 1) + acrossX);
+        }
+        if(originY + height < size) {
+            shortestOutside = Math.min(shortestOutside, (originY + height - fromY) + (originY + height - targetY) + acrossX);
+        }
+
+        // Ties are fine: the route in the window is then as short as any.
+        return distance[y * width + x] <= shortestOutside;
+    }
+
+    // wallRevealed(WallRevealed): Repairs the cached search if a revealed wall blocks a route it knew about.
+    //    Blocking a passage can only make cells further away: the cells that lost their only way closer to the
+    //    destination are found, then searched again from their neighbours that kept their distance.
+    private void wallRevealed(GameEvent.WallRevealed event) {
+        if(event.getBoard() != board || board.getSeed() != seed || !board.getWall(event.getX(), event.getY(), event.getVertical())) {
+            return;
+        }
+
+        int x = event.getX() - originX;
+        int y = event.getY() - originY;
+        int fromX = (event.getVertical() ? x - 1 : x);
+        int fromY = (event.getVertical() ? y : y - 1);
+
+        if(fromX < 0 || fromY < 0 || x >= width || y >= height) {
+            return;
+        }
+
+        int a = fromY * width + fromX;
+        int b = y * width + x;
+        if(distance[a] == distance[b]) {
+            return;
+        }
+
+        int child = (distance[a] > distance[b] ? a : b);
+        if(hasParent(child)) {
+            return;
+        }
+
+        // Find every cell whose distance depended on the blocked passage.
+        int head = 0;
+        int tail = 0;
+        invalid[child] = true;
+        queue[tail++] = child;
+
+        while(head < tail) {
+            int cell = queue[head++];
+
+            for(int direction = 0; direction < 4; direction++) {
+                int next = cell + offset(direction);
+                if(open(cell % width, cell / width, direction) && !invalid[next]
+                        && distance[next] == distance[cell] + 1 && !hasParent(next)) {
+                    invalid[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // Give each of them the best distance its unaffected neighbours offer, then spread those in distance order.
+        int seedCount = 0;
+        for(int i = 0; i < tail; i++) {
+            int cell = queue[i];
+            int best = UNREACHABLE;
+
+            for(int direction = 0; direction < 4; direction++) {
+                int next = cell + offset(direction);
+                if(open(cell % width, cell / width, direction) && !invalid[next] && distance[next] != UNREACHABLE) {
+                    best = Math.min(best, distance[next] + 1);
+                }
+            }
+
+            distance[cell] = best;
+            if(best != UNREACHABLE) {
+                seeds[seedCount++] = ((long)best << 32) | cell;
+            }
+        }
+        Arrays.sort(seeds, 0, seedCount);
+
+        int affected = tail;
+        int seed = 0;
+        head = affected;
+        tail = affected;
+
+        while(seed < seedCount || head < tail) {
+            int cell;
+
+            // Take whichever of the next seed and the next queued cell is closer; both are in distance order.
+            if(head == tail || (seed < seedCount && (int)(seeds[seed] >>> 32) <= distance[queue[head]])) {
+                cell = (int)seeds[seed];
+                if((int)(seeds[seed++] >>> 32) != distance[cell]) {
+                    continue;
+                }
+            } else {
+                cell = queue[head++];
+            }
+
+            for(int direction = 0; direction < 4; direction++) {
+                int next = cell + offset(direction);
+                if(open(cell % width, cell / width, direction) && invalid[next] && distance[next] > distance[cell] + 1) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        for(int i = 0; i < affected; i++) {
+            invalid[queue[i]] = false;
+        }
+    }
+
+    // hasParent(int): Whether a cell still has a neighbour one step closer to the destination that can be relied on.
+    private boolean hasParent(int cell) {
+        for(int direction = 0; direction < 4; direction++) {
+            int next = cell + offset(direction);
+            if(open(cell % width, cell / width, direction) && !invalid[next] && distance[next] == distance[cell] - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // open(int, int, int): Whether window cell (x, y) can be left to the east (0), west (1), south (2) or north (3)
+    //    as far as anyone knows: the neighbour is in the window and no wall there has been revealed.
+    private boolean open(int x, int y, int direction) {
+        int nextX = x + DELTA_X[direction];
+        int nextY = y + DELTA_Y[direction];
+
+        if(nextX < 0 || nextX >= width || nextY < 0 || nextY >= height) {
+            return false;
+        }
+
+        // The wall between the cells is on the west or north side of the one further east or south.
+        int wallX = originX + Math.max(x, nextX);
+        int wallY = originY + Math.max(y, nextY);
+        boolean vertical = (direction < 2);
+
+        return !(board.getRevealed(wallX, wallY, vertical) && board.getWall(wallX, wallY, vertical));
+    }
+
+    // offset(int): Index offset of the neighbour in the given direction.
+    private int offset(int direction) {
+        return DELTA_Y[direction] * width + DELTA_X[direction];
+    }
+}
@@ -0,0 +1,72 @@
+/* Data Class - Rules
+ *
+ *    Holds the numbers that balance the game, so they can be changed without recompiling.
+ *    DEFAULT holds the values the game was designed with (the constants in Player, Foe and Session).
+ *    The fields are public as they are final - the same as Cell, this emulates a struct.
+ */
+public final class Rules {
+    // Constants - DEFAULT: The standard rules.
+    public static final Rules DEFAULT = new Rules(Player.FATIGUE_MAX, Player.MAXIMUM_MOVES, Player.MINIMUM_MOVES,
+            Player.FATAL_INJURY, Foe.AWAKEN_RANGE, Session.RENEWAL_CHANCE, Session.TELEPORT_DISTANCE);
+
+    // Constants - NAMES: Names of the rules, in the order used by get() and with().
+    public static final String[] NAMES = {"fatigueMax", "maximumMoves", "minimumMoves", "fatalInjury", "awakenRange",
+            "renewalChance", "teleportDistance"};
+
+    // fatigueMax: Maximum/Full fatigue value of a player.
+    public final int fatigueMax;
+
+    // maximumMoves, minimumMoves: Maximum and minimum moves a player gets per turn.
+    public final int maximumMoves, minimumMoves;
+
+    // fatalInjury: Injury level that kills a player.
+    public final int fatalInjury;
+
+    // awakenRange: Distance that when encroached upon awakens the Foe.
+    public final int awakenRange;
+
+    // renewalChance: The percent chance of a player being renewed each round.
+    public final int renewalChance;
+
+    // teleportDistance: How far to teleport the loser of a Player combat encounter away.
+    public final int teleportDistance;
+
+    // Constructor: Creates a set of rules with the given values.
+    public Rules(int fatigueMax, int maximumMoves, int minimumMoves, int fatalInjury, int awakenRange,
+                 int renewalChance, int teleportDistance) {
+        this.fatigueMax = fatigueMax;
+        this.maximumMoves = maximumMoves;
+        this.minimumMoves = minimumMoves;
+        this.fatalInjury = fatalInjury;
+        this.awakenRange = awakenRange;
+        this.renewalChance = renewalChance;
+        this.teleportDistance = teleportDistance;
+    }
+
+    // get(String): Returns the value of the rule with the given name.
+    public int get(String name) {
+        return switch(name) {
+            case "fatigueMax" -> fatigueMax;
+            case "maximumMoves" -> maximumMoves;
+            case "minimumMoves" -> minimumMoves;
+            case "fatalInjury" -> fatalInjury;
+            case "awakenRange" -> awakenRange;
+            case "renewalChance" -> renewalChance;
+            case "teleportDistance" -> teleportDistance;
+            default -> throw new IllegalArgumentException("Unknown rule: " + name);
+        };
+    }
+
+    // with(String, int): Returns a copy of these rules with one rule changed.
+    public Rules with(String name, int value) {
+        if(get(name) == value) {
+            return this;
+        }
+
+        int[] values = new int[NAMES.length];
+        for(int i = 0; i < NAMES.length; i++) {
+            values[i] = (NAMES[i].equals(name) ? value : get(NAMES[i]));
+        }
+        return new Rules(values[0], values[1], values[2], values[3], values[4], values[5], values[6]);
+    }
+}
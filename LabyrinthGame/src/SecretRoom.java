@@ -5,7 +5,7 @@
 public final class SecretRoom {
     // position: The Cell position of this SecretRoom.
     private final Cell position;
-    public Cell getPosition() { return new Cell(position); }
+    public Cell getPosition() { return position; }
 
     // id: The identification number of this SecretRoom. It will be the same as the player it belongs too.
     private final int id;
@@ -14,7 +14,7 @@ public final class SecretRoom {
     // Constructor(Cell, int): Create a new SecretRoom with the given position and ID.
     public SecretRoom(Cell position, int id)
     {
-        this.position = new Cell(position);
+        this.position = position;
         this.id = id;
     }
 }
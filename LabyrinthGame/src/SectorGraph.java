@@ -0,0 +1,689 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/* Class - SectorGraph
+ *
+ *     Plans routes across boards too large to search cell by cell, through the walls that have been revealed so far;
+ *     the same as RoutePlanner, walls that haven't been revealed are assumed to be open. RoutePlanner hands it every
+ *     route its windows can't settle, whether the destination is far away or can't be reached within them.
+ *
+ *     The board is split into square sectors of SECTOR_SIZE cells per side, lined up with the chunks of a chunked
+ *     board. Wherever a stretch of the border between two sectors can be crossed, an entrance is placed there: a node
+ *     on either side, one step apart, or two such pairs, at its ends, if the stretch is long. Each sector knows the
+ *     distances between the entrance nodes on its four borders. A query searches the start's sector from the start
+ *     and the goal's sector from the goal, then runs A* over the entrances in between; the cells of the route are
+ *     only worked out, one sector at a time, as far as they are asked for. A query therefore looks at a few thousand
+ *     nodes where a search of the board would look at millions of cells.
+ *
+ *     Sectors are worked out the first time a route passes through them. A revealed wall only changes its own
+ *     sector: a wall on a border places that border's entrances again, and the distances of the sectors on either
+ *     side of it are worked out again the next time a route needs them. Routes go through entrances, so they can be
+ *     a few steps longer than the shortest.
+ */
+public final class SectorGraph {
+    // Constants
+
+    //    SECTOR_SIZE: Width and height of a sector in cells.
+    public static final int SECTOR_SIZE = ChunkedMaze.CHUNK_SIZE;
+
+    //    UNREACHABLE: Distance reported when there is no known route.
+    public static final int UNREACHABLE = -1;
+
+    //    SPLIT_LENGTH: Stretches of a border at least this long get an entrance at each end rather than one in the
+    //    middle, so routes along the border don't have to detour through its middle.
+    private static final int SPLIT_LENGTH = 6;
+
+    //    START, GOAL: The nodes standing for the ends of the route being searched; every search reuses them.
+    private static final int START = 0;
+    private static final int GOAL = 1;
+
+    //    NO_NODE: Partner of a node without one, and parent of the start.
+    private static final int NO_NODE = -1;
+
+    //    FAR: Distance of cells and nodes that can't be reached, while searching.
+    private static final int FAR = Integer.MAX_VALUE;
+
+    //    DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private static final int[] DELTA_X = {1, -1, 0, 0};
+    private static final int[] DELTA_Y = {0, 0, 1, -1};
+
+
+    // Private Fields
+
+    //    board, seed: The board the sectors were worked out on, and the layout it had. Null while nothing is.
+    private GameBoard board;
+    private long seed;
+
+    //    sectors: Every sector an entrance or a route has needed so far, by position.
+    private final Map<Long, Sector> sectors = new HashMap<Long, Sector>();
+
+    //    buildCount: How many times the distances of a sector were worked out, including again after walls were revealed.
+    private long buildCount;
+    public long getBuildCount() { return buildCount; }
+    public int getSectorCount() { return sectors.size(); }
+
+    //    nodeX, nodeY, nodeSector, nodeIndex, nodePartner: The cell of each node, the sector it is in and its place in
+    //    that sector's nodes, and the node one step away across the border.
+    private int[] nodeX = new int[64];
+    private int[] nodeY = new int[64];
+    private Sector[] nodeSector = new Sector[64];
+    private int[] nodeIndex = new int[64];
+    private int[] nodePartner = new int[64];
+
+    //    nodeCount, freeNodes, freeCount: How many nodes were handed out, and those handed back by entrances that were
+    //    placed again, to be handed out first.
+    private int nodeCount = GOAL + 1;
+    private int[] freeNodes = new int[64];
+    private int freeCount;
+
+    //    cost, parent, reached, closed, searchCount: The A* state of every node. A node was reached, or closed, by the
+    //    current search if its stamp is 'searchCount', so nothing is cleared between searches.
+    private int[] cost = new int[64];
+    private int[] parent = new int[64];
+    private int[] reached = new int[64];
+    private int[] closed = new int[64];
+    private int searchCount;
+
+    //    open, openNodes, openCount: The A* open list, a binary heap of nodes. Their keys are the cost plus the estimate
+    //    of what is left, then the cost, highest first: on open ground many routes tie, and following the one that got
+    //    furthest keeps the search from spreading across all of them.
+    private long[] open = new long[64];
+    private int[] openNodes = new int[64];
+    private int openCount;
+
+    //    startCost, goalCost: Steps from the start to each node of its sector, and from each node of the goal's sector
+    //    to the goal, indexed the same as the sectors' nodes.
+    private int[] startCost = new int[16];
+    private int[] goalCost = new int[16];
+
+    //    local, queue: Scratch space for searching a sector, indexed y * SECTOR_SIZE + x relative to the sector.
+    private final int[] local = new int[SECTOR_SIZE * SECTOR_SIZE];
+    private final int[] queue = new int[SECTOR_SIZE * SECTOR_SIZE];
+
+    //    path: The nodes of the route last found, goal first.
+    private int[] path = new int[64];
+
+
+    // Constructor(EventBus): Creates a graph that keeps up with the walls revealed on 'eventBus'.
+    public SectorGraph(EventBus eventBus) {
+        eventBus.subscribe(GameEvent.WallRevealed.class, this::wallRevealed);
+    }
+
+
+    // Public Methods
+
+    // distance(GameBoard, Cell, Cell): Number of steps in the route plan() takes from 'from' to 'to', or UNREACHABLE.
+    public int distance(GameBoard board, Cell from, Cell to) {
+        return (search(board, from, to) ? cost[GOAL] : UNREACHABLE);
+    }
+
+    // plan(GameBoard, Cell, Cell, int, Collection<Cell>): Adds the first 'maxSteps' steps of the route from 'from' to
+    //    'to' to 'route'. Returns false, adding nothing, if no route is known or 'from' is 'to'.
+    public boolean plan(GameBoard board, Cell from, Cell to, int maxSteps, Collection<Cell> route) {
+        if(!search(board, from, to) || cost[GOAL] == 0) {
+            return false;
+        }
+
+        int pathLength = 0;
+        for(int node = GOAL; node != NO_NODE; node = parent[node]) {
+            path[pathLength++] = node;
+        }
+
+        int x = from.x;
+        int y = from.y;
+        int steps = 0;
+
+        for(int i = pathLength - 2; i >= 0 && steps < maxSteps; i--) {
+            int node = path[i];
+
+            // Crossing a border is a single step.
+            if(nodePartner[path[i + 1]] == node) {
+                x = nodeX[node];
+                y = nodeY[node];
+                route.add(board.getCell(x, y));
+                ++steps;
+                continue;
+            }
+
+            // Otherwise both ends are in one sector: search it from the far end, and walk downhill.
+            Sector sector = nodeSector[node];
+            fill(sector, nodeX[node], nodeY[node]);
+
+            int cellX = x - sector.left;
+            int cellY = y - sector.top;
+
+            while(steps < maxSteps && local[cellY * SECTOR_SIZE + cellX] > 0) {
+                int cell = cellY * SECTOR_SIZE + cellX;
+                int direction = 0;
+
+                while(!open(sector, cellX, cellY, direction)
+                        || local[cell + DELTA_Y[direction] * SECTOR_SIZE + DELTA_X[direction]] != local[cell] - 1) {
+                    ++direction;
+                }
+
+                cellX += DELTA_X[direction];
+                cellY += DELTA_Y[direction];
+                route.add(board.getCell(sector.left + cellX, sector.top + cellY));
+                ++steps;
+            }
+
+            x = sector.left + cellX;
+            y = sector.top + cellY;
+        }
+
+        return true;
+    }
+
+
+    // Private Methods
+
+    // search(GameBoard, Cell, Cell): Finds a route from 'from' to 'to'; afterwards cost[GOAL] is its length, and the
+    //    parents lead back from GOAL to START. Returns false if there is none.
+    private boolean search(GameBoard board, Cell from, Cell to) {
+        int size = board.getSize();
+        if(from.x < 0 || from.x >= size || from.y < 0 || from.y >= size
+                || to.x < 0 || to.x >= size || to.y < 0 || to.y >= size) {
+            return false;
+        }
+
+        if(board != this.board || board.getSeed() != seed) {
+            clear(board);
+        }
+
+        Sector startSector = build(sector(from.x / SECTOR_SIZE, from.y / SECTOR_SIZE));
+        Sector goalSector = build(sector(to.x / SECTOR_SIZE, to.y / SECTOR_SIZE));
+
+        ++searchCount;
+        setEnd(START, from, startSector);
+        setEnd(GOAL, to, goalSector);
+
+        if(goalCost.length < goalSector.nodeCount) {
+            goalCost = new int[2 * goalSector.nodeCount];
+        }
+        if(startCost.length < startSector.nodeCount) {
+            startCost = new int[2 * startSector.nodeCount];
+        }
+
+        fill(goalSector, to.x, to.y);
+        for(int i = 0; i < goalSector.nodeCount; i++) {
+            goalCost[i] = local[localCell(goalSector, goalSector.nodes[i])];
+        }
+        int direct = (startSector == goalSector ? local[localCell(startSector, START)] : FAR);
+
+        fill(startSector, from.x, from.y);
+        for(int i = 0; i < startSector.nodeCount; i++) {
+            startCost[i] = local[localCell(startSector, startSector.nodes[i])];
+        }
+
+        openCount = 0;
+        reach(START, 0, NO_NODE);
+        if(direct != FAR) {
+            reach(GOAL, direct, START);
+        }
+
+        while(openCount > 0) {
+            int node = pop();
+            if(closed[node] == searchCount) {
+                continue;
+            }
+            closed[node] = searchCount;
+
+            if(node == GOAL) {
+                return true;
+            }
+
+            if(node == START) {
+                for(int i = 0; i < startSector.nodeCount; i++) {
+                    if(startCost[i] != FAR) {
+                        reach(startSector.nodes[i], startCost[i], START);
+                    }
+                }
+                continue;
+            }
+
+            Sector sector = build(nodeSector[node]);
+            int index = nodeIndex[node];
+            int count = sector.nodeCount;
+
+            reach(nodePartner[node], cost[node] + 1, node);
+            for(int i = 0; i < count; i++) {
+                int distance = sector.distance[index * count + i];
+                if(i != index && distance != FAR) {
+                    reach(sector.nodes[i], cost[node] + distance, node);
+                }
+            }
+            if(sector == goalSector && goalCost[index] != FAR) {
+                reach(GOAL, cost[node] + goalCost[index], node);
+            }
+        }
+
+        return false;
+    }
+
+    // setEnd(int, Cell, Sector): Puts the START or GOAL node on 'cell', in 'sector'.
+    private void setEnd(int node, Cell cell, Sector sector) {
+        nodeX[node] = cell.x;
+        nodeY[node] = cell.y;
+        nodeSector[node] = sector;
+        nodePartner[node] = NO_NODE;
+    }
+
+    // reach(int, int, int): Records that 'node' can be reached in 'cost' steps through 'from', unless it already could
+    //    in fewer, and queues it in order of the cost plus the straight distance left to the goal.
+    private void reach(int node, int cost, int from) {
+        if(node == NO_NODE || (reached[node] == searchCount && this.cost[node] <= cost)) {
+            return;
+        }
+
+        reached[node] = searchCount;
+        this.cost[node] = cost;
+        parent[node] = from;
+
+        long estimate = (long)cost + Math.abs(nodeX[node] - nodeX[GOAL]) + Math.abs(nodeY[node] - nodeY[GOAL]);
+        push(estimate << 32 | (Integer.MAX_VALUE - cost), node);
+    }
+
+    // build(Sector): Works out the entrances around 'sector' and the distances between them, if they aren't known.
+    private Sector build(Sector sector) {
+        if(sector.valid) {
+            return sector;
+        }
+
+        int size = board.getSize();
+        Sector east = (sector.left + sector.width < size ? sector(sector.sectorX + 1, sector.sectorY) : null);
+        Sector south = (sector.top + sector.height < size ? sector(sector.sectorX, sector.sectorY + 1) : null);
+
+        // Each sector places the entrances on its west and north borders, the same as a chunk owns those walls.
+        if(!sector.westPlaced) {
+            place(sector, true);
+        }
+        if(!sector.northPlaced) {
+            place(sector, false);
+        }
+        if(east != null && !east.westPlaced) {
+            place(east, true);
+        }
+        if(south != null && !south.northPlaced) {
+            place(south, false);
+        }
+
+        sector.nodeCount = 0;
+        for(int i = 0; i < sector.westCount; i++) {
+            addNode(sector, sector.west[i]);
+        }
+        for(int i = 0; i < sector.northCount; i++) {
+            addNode(sector, sector.north[i]);
+        }
+        for(int i = 0; east != null && i < east.westCount; i++) {
+            addNode(sector, nodePartner[east.west[i]]);
+        }
+        for(int i = 0; south != null && i < south.northCount; i++) {
+            addNode(sector, nodePartner[south.north[i]]);
+        }
+
+        capture(sector);
+
+        int count = sector.nodeCount;
+        if(sector.distance.length < count * count) {
+            sector.distance = new int[count * count];
+        }
+
+        for(int i = 0; i < count; i++) {
+            int node = sector.nodes[i];
+
+            // Without known walls inside, the straight distance is the distance.
+            if(sector.walled) {
+                fill(sector, nodeX[node], nodeY[node]);
+            }
+            for(int j = 0; j < count; j++) {
+                int other = sector.nodes[j];
+                sector.distance[i * count + j] = (sector.walled ? local[localCell(sector, other)]
+                        : Math.abs(nodeX[node] - nodeX[other]) + Math.abs(nodeY[node] - nodeY[other]));
+            }
+        }
+
+        sector.valid = true;
+        ++buildCount;
+        return sector;
+    }
+
+    // place(Sector, boolean): Places the entrances on the west (vertical) or north border of 'sector' from scratch,
+    //    handing back the nodes of those there were. The sectors on both sides need their distances worked out again.
+    private void place(Sector sector, boolean vertical) {
+        int[] entrances = (vertical ? sector.west : sector.north);
+        int count = (vertical ? sector.westCount : sector.northCount);
+        for(int i = 0; i < count; i++) {
+            freeNode(nodePartner[entrances[i]]);
+            freeNode(entrances[i]);
+        }
+
+        sector.valid = false;
+        if(vertical) {
+            sector.westCount = 0;
+            sector.westPlaced = true;
+        } else {
+            sector.northCount = 0;
+            sector.northPlaced = true;
+        }
+
+        // The outer border of the board has no entrances, and nothing beyond it.
+        if(vertical ? sector.left == 0 : sector.top == 0) {
+            return;
+        }
+
+        Sector neighbour = (vertical ? sector(sector.sectorX - 1, sector.sectorY)
+                : sector(sector.sectorX, sector.sectorY - 1));
+        neighbour.valid = false;
+
+        int length = (vertical ? sector.height : sector.width);
+        int stretch = -1;
+
+        for(int i = 0; i <= length; i++) {
+            int x = sector.left + (vertical ? 0 : i);
+            int y = sector.top + (vertical ? i : 0);
+            boolean crossable = i < length && !blocked(x, y, vertical);
+
+            if(crossable && stretch < 0) {
+                stretch = i;
+            } else if (!crossable && stretch >= 0) {
+                if(i - stretch < SPLIT_LENGTH) {
+                    addEntrance(sector, neighbour, vertical, (stretch + i - 1) / 2);
+                } else {
+                    addEntrance(sector, neighbour, vertical, stretch);
+                    addEntrance(sector, neighbour, vertical, i - 1);
+                }
+                stretch = -1;
+            }
+        }
+    }
+
+    // addEntrance(Sector, Sector, boolean, int): Adds an entrance 'offset' cells along the west or north border of
+    //    'sector', whose other side is in 'neighbour'.
+    private void addEntrance(Sector sector, Sector neighbour, boolean vertical, int offset) {
+        int x = sector.left + (vertical ? 0 : offset);
+        int y = sector.top + (vertical ? offset : 0);
+
+        int inner = newNode(x, y, sector);
+        int outer = newNode(x - (vertical ? 1 : 0), y - (vertical ? 0 : 1), neighbour);
+        nodePartner[inner] = outer;
+        nodePartner[outer] = inner;
+
+        if(vertical) {
+            if(sector.westCount == sector.west.length) {
+                sector.west = Arrays.copyOf(sector.west, 2 * sector.west.length);
+            }
+            sector.west[sector.westCount++] = inner;
+        } else {
+            if(sector.northCount == sector.north.length) {
+                sector.north = Arrays.copyOf(sector.north, 2 * sector.north.length);
+            }
+            sector.north[sector.northCount++] = inner;
+        }
+    }
+
+    // addNode(Sector, int): Adds 'node' to the nodes of 'sector'.
+    private void addNode(Sector sector, int node) {
+        if(sector.nodeCount == sector.nodes.length) {
+            sector.nodes = Arrays.copyOf(sector.nodes, 2 * sector.nodes.length);
+        }
+        nodeIndex[node] = sector.nodeCount;
+        sector.nodes[sector.nodeCount++] = node;
+    }
+
+    // capture(Sector): Copies the known walls inside 'sector' into its bits, so searching it doesn't go to the board.
+    private void capture(Sector sector) {
+        if(sector.blocked == null) {
+            sector.blocked = new long[2 * SECTOR_SIZE * SECTOR_SIZE / Long.SIZE];
+        }
+        Arrays.fill(sector.blocked, 0);
+        sector.walled = false;
+
+        // Each cell keeps the walls on its east and south sides.
+        for(int y = 0; y < sector.height; y++) {
+            for(int x = 0; x < sector.width; x++) {
+                int bit = 2 * (y * SECTOR_SIZE + x);
+                boolean east = x + 1 < sector.width && blocked(sector.left + x + 1, sector.top + y, true);
+                boolean south = y + 1 < sector.height && blocked(sector.left + x, sector.top + y + 1, false);
+
+                if(east) {
+                    sector.blocked[bit >>> 6] |= 1L << bit;
+                }
+                if(south) {
+                    sector.blocked[(bit + 1) >>> 6] |= 1L << (bit + 1);
+                }
+                sector.walled |= east || south;
+            }
+        }
+    }
+
+    // fill(Sector, int, int): Searches 'sector' from cell (x, y) without leaving it; afterwards 'local' holds the
+    //    steps from there to every cell of the sector, or FAR.
+    private void fill(Sector sector, int x, int y) {
+        Arrays.fill(local, FAR);
+
+        int head = 0;
+        int tail = 0;
+        int start = (y - sector.top) * SECTOR_SIZE + (x - sector.left);
+        local[start] = 0;
+        queue[tail++] = start;
+
+        while(head < tail) {
+            int cell = queue[head++];
+            int cellX = cell % SECTOR_SIZE;
+            int cellY = cell / SECTOR_SIZE;
+
+            for(int direction = 0; direction < 4; direction++) {
+                int next = cell + DELTA_Y[direction] * SECTOR_SIZE + DELTA_X[direction];
+                if(open(sector, cellX, cellY, direction) && local[next] == FAR) {
+                    local[next] = local[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    // open(Sector, int, int, int): Whether cell (x, y) of 'sector', relative to it, can be left to the east (0), west
+    //    (1), south (2) or north (3) without leaving the sector or walking into a known wall.
+    private boolean open(Sector sector, int x, int y, int direction) {
+        int nextX = x + DELTA_X[direction];
+        int nextY = y + DELTA_Y[direction];
+
+        if(nextX < 0 || nextX >= sector.width || nextY < 0 || nextY >= sector.height) {
+            return false;
+        }
+        if(!sector.walled) {
+            return true;
+        }
+
+        // The wall between the cells is kept by the one further west or north.
+        int bit = 2 * (Math.min(y, nextY) * SECTOR_SIZE + Math.min(x, nextX)) + (direction < 2 ? 0 : 1);
+        return (sector.blocked[bit >>> 6] & (1L << bit)) == 0;
+    }
+
+    // blocked(int, int, boolean): Whether the wall on the west or north side of cell (x, y) is known to be there.
+    private boolean blocked(int x, int y, boolean vertical) {
+        return board.getRevealed(x, y, vertical) && board.getWall(x, y, vertical);
+    }
+
+    // localCell(Sector, int): Index of the cell of 'node' in 'local', relative to 'sector'.
+    private int localCell(Sector sector, int node) {
+        return (nodeY[node] - sector.top) * SECTOR_SIZE + (nodeX[node] - sector.left);
+    }
+
+    // wallRevealed(WallRevealed): Brings the sector of a revealed wall up to date. A wall on a border places that
+    //    border's entrances again straight away; distances are only worked out again when a route needs them.
+    private void wallRevealed(GameEvent.WallRevealed event) {
+        if(event.getBoard() != board || board.getSeed() != seed) {
+            return;
+        }
+
+        int x = event.getX();
+        int y = event.getY();
+        boolean vertical = event.getVertical();
+        if(x >= board.getSize() || y >= board.getSize() || !board.getWall(x, y, vertical)) {
+            return;
+        }
+
+        // The sector a border belongs to exists once its entrances have been placed.
+        Sector sector = sectors.get(key(x / SECTOR_SIZE, y / SECTOR_SIZE));
+        if(sector == null) {
+            return;
+        }
+
+        sector.valid = false;
+        if(vertical && x == sector.left && sector.westPlaced) {
+            place(sector, true);
+        } else if (!vertical && y == sector.top && sector.northPlaced) {
+            place(sector, false);
+        }
+    }
+
+    // clear(GameBoard): Forgets every sector, to start over on 'board'.
+    private void clear(GameBoard board) {
+        this.board = board;
+        seed = board.getSeed();
+        sectors.clear();
+        nodeCount = GOAL + 1;
+        freeCount = 0;
+    }
+
+    // sector(int, int): The sector at the given sector coordinates, created without anything worked out if it's new.
+    private Sector sector(int sectorX, int sectorY) {
+        long key = key(sectorX, sectorY);
+        Sector sector = sectors.get(key);
+
+        if(sector == null) {
+            sector = new Sector(sectorX, sectorY, board.getSize());
+            sectors.put(key, sector);
+        }
+
+        return sector;
+    }
+
+    // key(int, int): Map key of a sector.
+    private static long key(int sectorX, int sectorY) {
+        return ((long)sectorX << 32) | (sectorY & 0xffffffffL);
+    }
+
+    // newNode(int, int, Sector): Hands out a node for cell (x, y) in 'sector'.
+    private int newNode(int x, int y, Sector sector) {
+        int node = (freeCount > 0 ? freeNodes[--freeCount] : nodeCount++);
+
+        if(node == nodeX.length) {
+            int length = 2 * nodeX.length;
+            nodeX = Arrays.copyOf(nodeX, length);
+            nodeY = Arrays.copyOf(nodeY, length);
+            nodeSector = Arrays.copyOf(nodeSector, length);
+            nodeIndex = Arrays.copyOf(nodeIndex, length);
+            nodePartner = Arrays.copyOf(nodePartner, length);
+            cost = Arrays.copyOf(cost, length);
+            parent = Arrays.copyOf(parent, length);
+            reached = Arrays.copyOf(reached, length);
+            closed = Arrays.copyOf(closed, length);
+            path = Arrays.copyOf(path, length);
+        }
+
+        nodeX[node] = x;
+        nodeY[node] = y;
+        nodeSector[node] = sector;
+        nodePartner[node] = NO_NODE;
+        return node;
+    }
+
+    // freeNode(int): Hands back a node no entrance uses any more.
+    private void freeNode(int node) {
+        if(freeCount == freeNodes.length) {
+            freeNodes = Arrays.copyOf(freeNodes, 2 * freeNodes.length);
+        }
+        nodeSector[node] = null;
+        nodePartner[node] = NO_NODE;
+        freeNodes[freeCount++] = node;
+    }
+
+    // push(long, int): Adds 'node' to the open list with 'key'.
+    private void push(long key, int node) {
+        if(openCount == open.length) {
+            open = Arrays.copyOf(open, 2 * open.length);
+            openNodes = Arrays.copyOf(openNodes, open.length);
+        }
+
+        int i = openCount++;
+        while(i > 0 && open[(i - 1) / 2] > key) {
+            open[i] = open[(i - 1) / 2];
+            openNodes[i] = openNodes[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        open[i] = key;
+        openNodes[i] = node;
+    }
+
+    // pop(): Takes the node with the smallest key off the open list.
+    private int pop() {
+        int top = openNodes[0];
+        long last = open[--openCount];
+        int lastNode = openNodes[openCount];
+        int i = 0;
+
+        while(2 * i + 1 < openCount) {
+            int child = 2 * i + 1;
+            if(child + 1 < openCount && open[child + 1] < open[child]) {
+                ++child;
+            }
+            if(open[child] >= last) {
+                break;
+            }
+            open[i] = open[child];
+            openNodes[i] = openNodes[child];
+            i = child;
+        }
+        open[i] = last;
+        openNodes[i] = lastNode;
+
+        return top;
+    }
+
+
+    // Private Classes
+
+    // Sector: One square of the board, its entrances and the distances between them.
+    private static final class Sector {
+        // sectorX, sectorY, left, top, width, height: Where the sector is, in sectors, and the cells it covers.
+        private final int sectorX, sectorY;
+        private final int left, top, width, height;
+
+        // west, westCount, westPlaced, north, ...: The nodes on this side of the entrances on its west and north
+        //    borders, and whether those were placed yet.
+        private int[] west = new int[4];
+        private int westCount;
+        private boolean westPlaced;
+        private int[] north = new int[4];
+        private int northCount;
+        private boolean northPlaced;
+
+        // nodes, nodeCount, distance: Every entrance node on its four borders, and the steps between each pair of them,
+        //    indexed i * nodeCount + j, or FAR.
+        private int[] nodes = new int[16];
+        private int nodeCount;
+        private int[] distance = new int[0];
+
+        // blocked, walled: The known walls inside it, two bits per cell (east side, south side) indexed the same as
+        //    'local', and whether there are any.
+        private long[] blocked;
+        private boolean walled;
+
+        // valid: Whether its nodes and distances are up to date.
+        private boolean valid;
+
+        // Constructor(int, int, int): Creates the sector at the given sector coordinates on a board of 'size' cells.
+        private Sector(int sectorX, int sectorY, int size) {
+            this.sectorX = sectorX;
+            this.sectorY = sectorY;
+            left = sectorX * SECTOR_SIZE;
+            top = sectorY * SECTOR_SIZE;
+            width = Math.min(SECTOR_SIZE, size - left);
+            height = Math.min(SECTOR_SIZE, size - top);
+        }
+    }
+}
@@ -1,6 +1,14 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /* Session
@@ -12,42 +20,210 @@ public final class Session {
     // Constants
 
     //    MAX_PLAYERS: The maximum player count.
-    private final static int MAX_PLAYERS = 2;
+    public final static int MAX_PLAYERS = 2;
 
-    //    RENEWAL_CHANCE: The chance of a player being renewed each turn.
-    private final static int RENEWAL_CHANCE = 15;
+    //    RENEWAL_CHANCE: The chance of a player being renewed each turn. This and the below are the defaults, see Rules.
+    public final static int RENEWAL_CHANCE = 15;
 
     //    TELEPORT_DISTANCE: How far to teleport the loser of a Player combat encounter away.
-    private final static int TELEPORT_DISTANCE = 3;
+    public final static int TELEPORT_DISTANCE = 3;
 
     //    ONE_HUNDRED: One-hundred, used for random percentages.
     private final static int ONE_HUNDRED = 100;
 
+    //    HOME_MESSAGES, TURN_MESSAGES, RENEWAL_MESSAGES, DEATH_MESSAGES: Messages about a player, by player ID. Built
+    //    once so that playing doesn't format them again every turn.
+    private final static String[] HOME_MESSAGES = playerMessages("PLAYER %d:\n-> Choose your home.");
+    private final static String[] TURN_MESSAGES = playerMessages("PLAYER %d's turn!");
+    private final static String[] RENEWAL_MESSAGES = playerMessages("PLAYER %d has been\nrejuvenated!.");
+    private final static String[] DEATH_MESSAGES = playerMessages("PLAYER %d has perished.");
+
+    //    DELTA_X, DELTA_Y: Cell offsets for east, west, south and north.
+    private final static int[] DELTA_X = {1, -1, 0, 0};
+    private final static int[] DELTA_Y = {0, 0, 1, -1};
+
+    //    NOT_RESUMING: Value of resumeActor while no restored turn is waiting to be resumed.
+    private final static int NOT_RESUMING = -1;
+
+    //    SNAPSHOT_VERSION: Layout version of the snapshots written by writeSnapshot().
+    private final static int SNAPSHOT_VERSION = 3;
+
 
     // Private Fields
 
+    //    nextId, id: Numbers the sessions of this process, for TurnTrace and StateExport to tell them apart. A restored
+    //    session keeps the ID it hibernated with.
+    private final static AtomicLong nextId = new AtomicLong();
+    private final long id;
+
     //    gameEventHandler: Reference to the IGameEventHandler. Used for display, sound, and input.
     private IGameEventHandler gameEventHandler;
 
+    //    boardSize: Size of the boards to play on. Boards larger than GameBoard.SIZE are chunked.
+    private int boardSize = GameBoard.SIZE;
+
+    //    eventBus: Bus the models publish their changes on, and the view subscribes to.
+    private EventBus eventBus = new EventBus();
+
+    //    routePlanner: Plans the routes of players that click a cell further away than one step.
+    private RoutePlanner routePlanner = new RoutePlanner(eventBus);
+
     //    gameBoard: The GameBoard used by the game.
-    private GameBoard gameBoard = new GameBoard();
+    private GameBoard gameBoard;
 
     //    actors: List of actors in the current session.
     private ArrayList<Actor> actors = new ArrayList<Actor>();
 
+    //    actorPool: Every actor created so far, by ID. A new game resets and reuses them instead of creating new ones.
+    private Actor[] actorPool = new Actor[MAX_PLAYERS + 1];
+
+    //    rules: The rules this session is played by.
+    private Rules rules = Rules.DEFAULT;
+
     //    actorFactory: ActorFactory used for creating the different types of actors.
-    private ActorFactory actorFactory = new ActorFactory();
+    private ActorFactory actorFactory;
 
     //    random: Random instance used for this session.
     private Random random = new Random();
 
+    //    agents: Computer players by player ID; seats without an agent are played by a human.
+    private MonteCarloAgent[] agents = new MonteCarloAgent[MAX_PLAYERS + 1];
+
+    //    inputPacket: The packet every input is waited on with, reset before each use.
+    private InputPacket inputPacket = new InputPacket();
+
+    //    route: Steps left of a route to a clicked cell, taken without waiting for input.
+    private ArrayDeque<Cell> route = new ArrayDeque<Cell>();
+
+    //    choices: Scratch space for the cells amicableResolution() can choose from.
+    private Cell[] choices = new Cell[DELTA_X.length];
+
+    //    outcomeStore: Where finished games are recorded. Null if they aren't.
+    private OutcomeStore outcomeStore;
+
+    //    heatMap: Where the moves, wall bumps, attacks and steals of every game are counted. Null if they aren't.
+    private HeatMap heatMap;
+
+    //    levels: The levels played through, moving on to the next after every win. Null if there is only one.
+    private Levels levels;
+
+    //    level: The level being played, counted from 1.
+    private int level = 1;
+
+    //    nextBoard: The board of the next level, generated in the background while this one is played. Null until
+    //    requested, and again once taken.
+    private Future<GameBoard> nextBoard;
+
+    //    advancing: Whether the game that just ended moves on to the next level.
+    private boolean advancing = false;
+
+    //    round, foeAwokeRound, wounds, steals, renewals: What has happened in the current game so far, for its outcome.
+    private int round, foeAwokeRound, wounds, steals, renewals;
+
+    //    manager: The SessionManager hosting this session, which hibernates it while idle. Null if it isn't hosted.
+    private SessionManager manager;
+
+    //    computerPlayers: The player IDs played by the computer, as passed in.
+    private int[] computerPlayers;
+
+    //    resumeActor, resumeMoves: Index of the actor whose turn a restored session resumes, and the moves they had left.
+    private int resumeActor = NOT_RESUMING, resumeMoves;
+
+    //    resumeInput: Whether the next move input is the one already in 'inputPacket', which woke a restored session.
+    private boolean resumeInput = false;
+
+    //    snapshots: Where the game is published for other threads to read, every time an input is waited for.
+    private final SnapshotPublisher snapshots = new SnapshotPublisher();
+    public SnapshotPublisher getSnapshots() { return snapshots; }
+
+    //    turnActor: ID of the actor whose turn is being played, or SnapshotPublisher.NO_ACTOR.
+    private int turnActor = SnapshotPublisher.NO_ACTOR;
+
+    //    deadline, deadlineArmed: Expires 'inputPacket' when a turn or the game over screen runs out of time, see
+    //    TurnTimer, and whether it is armed.
+    private final TurnTimer.Deadline deadline = new TurnTimer.Deadline(this::expireInput);
+    private boolean deadlineArmed = false;
+
     // Constructor(IGameEventHandler): Creates a new Session that uses the passed IGameEventHandler, then starts the game.
     public Session(IGameEventHandler gameEventHandler)
     {
-        this.gameEventHandler = gameEventHandler;
+        this(gameEventHandler, new int[0], GameBoard.SIZE, Rules.DEFAULT, null);
+    }
+
+    // Constructor(IGameEventHandler, int[], int, Rules, OutcomeStore): Creates a new Session where the given player IDs
+    //    are computer players, played on boards of 'boardSize' cells per side by the given rules, then starts the game.
+    //    Finished games are recorded in 'outcomeStore', unless it is null.
+    public Session(IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize, Rules rules, OutcomeStore outcomeStore)
+    {
+        this(gameEventHandler, computerPlayers, boardSize, rules, outcomeStore, (HeatMap)null);
+    }
+
+    // Constructor(IGameEventHandler, int[], int, Rules, OutcomeStore, HeatMap): The same, also counting where things
+    //    happen in 'heatMap', unless it is null.
+    public Session(IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize, Rules rules, OutcomeStore outcomeStore,
+                   HeatMap heatMap)
+    {
+        this(gameEventHandler, computerPlayers, boardSize, rules, outcomeStore, heatMap, (Levels)null);
+    }
+
+    // Constructor(IGameEventHandler, int[], int, Rules, OutcomeStore, HeatMap, Levels): The same, also moving on to
+    //    the next of 'levels' after every win, unless it is null. 'boardSize' and 'rules' are those of its first level.
+    public Session(IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize, Rules rules, OutcomeStore outcomeStore,
+                   HeatMap heatMap, Levels levels)
+    {
+        this(gameEventHandler, computerPlayers, boardSize, rules, outcomeStore, heatMap, levels, null);
         start();
     }
 
+    // Constructor(IGameEventHandler, int[], int, Rules, OutcomeStore, HeatMap, Levels, SessionManager): Creates a new
+    //    Session hosted by 'manager', without starting it; the manager runs it on its own thread.
+    Session(IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize, Rules rules, OutcomeStore outcomeStore,
+            HeatMap heatMap, Levels levels, SessionManager manager)
+    {
+        this(nextId.incrementAndGet(), null, gameEventHandler, computerPlayers, boardSize, rules, outcomeStore, heatMap,
+                levels, manager);
+
+        if(levels != null && computerPlayers.length > 0) {
+            gameEventHandler.displayText("Computer players can only play the first level.");
+        }
+        if(boardSize > GameBoard.SIZE && computerPlayers.length > 0) {
+            gameEventHandler.displayText("Computer players can only play on the standard board.");
+        }
+    }
+
+    // Constructor(long, GameBoard, IGameEventHandler, int[], int, Rules, OutcomeStore, HeatMap, Levels, SessionManager):
+    //    Sets up session 'id' to play on 'gameBoard', or on a new board if it is null, without telling the view
+    //    anything yet; restore() carries on with a hibernated session this way.
+    private Session(long id, GameBoard gameBoard, IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize,
+                    Rules rules, OutcomeStore outcomeStore, HeatMap heatMap, Levels levels, SessionManager manager)
+    {
+        this.id = id;
+        this.gameEventHandler = gameEventHandler;
+        this.outcomeStore = outcomeStore;
+        this.heatMap = heatMap;
+        this.levels = levels;
+        this.manager = manager;
+        this.computerPlayers = computerPlayers.clone();
+        this.boardSize = boardSize;
+        this.rules = rules;
+        this.actorFactory = new ActorFactory(rules);
+        this.gameBoard = (gameBoard != null ? gameBoard : createBoard());
+        snapshots.setExport(gameBoard != null ? StateExport.reopen(id) : StateExport.open(id));
+
+        subscribeView();
+
+        // Computer players can only play the first level, on the standard board.
+        if(computerPlayers.length > 0) {
+            this.levels = null;
+        }
+
+        for(int player : computerPlayers) {
+            if(boardSize <= GameBoard.SIZE && player >= 1 && player <= MAX_PLAYERS) {
+                agents[player] = new MonteCarloAgent();
+            }
+        }
+    }
+
     // start(): Starts the game, including the intro selection sequence.
     public void start()
     {
@@ -57,27 +233,37 @@ public final class Session {
         while (true) {
             boolean restarting = false;
 
-            IModelCallback<Actor> actorCallback = (Actor actor, IGameEventHandler handler) -> handler.actorDataUpdate(actor);
-            IModelCallback<GameBoard> boardCallback =  (GameBoard board, IGameEventHandler handler) -> handler.boardDataUpdate(board);
+            round = 0;
+            turnActor = SnapshotPublisher.NO_ACTOR;
+            foeAwokeRound = GameOutcome.NEVER;
+            wounds = 0;
+            steals = 0;
+            renewals = 0;
 
-            gameBoard.setCallback(boardCallback, gameEventHandler);
+            gameBoard.setEventBus(eventBus);
+            pregenerateNextLevel();
 
-            Actor foe = actorFactory.createActor(ActorType.FOE, 0);
-            foe.setCallback(actorCallback, gameEventHandler);
+            Actor foe = actor(ActorType.FOE, 0);
+            foe.setEventBus(eventBus);
             actors.add(foe);
 
-            // Secret room selection sequence.
+            // Secret room selection sequence. Computer players still take their seats if the humans skip theirs.
+            boolean skipPlayers = false;
+
             for (int player = 1; player <= MAX_PLAYERS; player++)
             {
-                gameEventHandler.displayText(String.format("PLAYER %d:\n-> Choose your home.", player));
+                if(skipPlayers && agents[player] == null) {
+                    continue;
+                }
+
+                gameEventHandler.displayText(HOME_MESSAGES[player]);
 
                 boolean inputValid = false;
-                boolean skipPlayers = false;
 
                 while(!inputValid) {
                     inputValid = true;
 
-                    input = nextInput();
+                    input = nextHomeInput(player);
 
                     switch (input.getType()) {
                         case RESET -> {
@@ -105,8 +291,8 @@ public final class Session {
 
                             if(unique) {
                                 gameBoard.setHomePosition(secretRoom, player);
-                                Actor actor = actorFactory.createActor(ActorType.PLAYER, player);
-                                actor.setCallback(actorCallback, gameEventHandler);
+                                Actor actor = actor(ActorType.PLAYER, player);
+                                actor.setEventBus(eventBus);
                                 actors.add(actor);
                                 actor.move(secretRoom);
                             } else {
@@ -118,7 +304,7 @@ public final class Session {
                     }
                 }
 
-                if(skipPlayers || restarting) {
+                if(restarting) {
                     break;
                 }
             }
@@ -153,22 +339,260 @@ public final class Session {
         }
     }
 
-    // restart(): Sets the Session up for a new round of gameplay.
+    // run(): Plays this session, or carries on with the restored game, until it hibernates. Used by SessionManager.
+    void run() {
+        try {
+            if(resumeActor == NOT_RESUMING) {
+                start();
+            } else {
+                resume();
+            }
+        } catch (Hibernated hibernated) {
+            // The game is on disk, and this thread has nothing left to do.
+            snapshots.closeExport();
+        }
+    }
+
+    // getGameEventHandler(), getComputerPlayers(), getOutcomeStore(), getHeatMap(): What a hibernating session is
+    //    restored with. getDeadline(): The deadline of the turn it hibernates in, which SessionManager keeps running.
+    IGameEventHandler getGameEventHandler() { return gameEventHandler; }
+    int[] getComputerPlayers() { return computerPlayers; }
+    OutcomeStore getOutcomeStore() { return outcomeStore; }
+    HeatMap getHeatMap() { return heatMap; }
+    Levels getLevels() { return levels; }
+    TurnTimer.Deadline getDeadline() { return deadline; }
+
+    // refreshView(): Sends the whole game to the view again, after it let go of it to hibernate.
+    void refreshView() {
+        gameEventHandler.boardDataUpdate(gameBoard);
+        for(Actor actor : actors) {
+            gameEventHandler.actorDataUpdate(actor);
+        }
+    }
+
+    // writeSnapshot(DataOutputStream, Player, int): Writes the game compactly, as it is while 'player' waits for input
+    //    with 'movesLeft' moves left, for restore() to carry on with.
+    void writeSnapshot(DataOutputStream out, Player player, int movesLeft) throws IOException {
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(id);
+        for(String name : Rules.NAMES) {
+            out.writeInt(rules.get(name));
+        }
+        out.writeInt(level);
+
+        out.writeInt(round);
+        out.writeInt(foeAwokeRound);
+        out.writeInt(wounds);
+        out.writeInt(steals);
+        out.writeInt(renewals);
+        out.writeInt(actors.indexOf(player));
+        out.writeInt(movesLeft);
+
+        gameBoard.writeTo(out);
+
+        out.writeInt(actors.size());
+        for(Actor actor : actors) {
+            out.writeInt(actor.getId());
+            out.writeInt(actor.getPosition().x);
+            out.writeInt(actor.getPosition().y);
+            out.writeBoolean(actor.getVisibility());
+
+            if(actor.getType() == ActorType.FOE) {
+                out.writeBoolean(((Foe)actor).getAwake());
+            } else {
+                Player other = (Player)actor;
+                out.writeInt(other.getInjuredLevel());
+                out.writeInt(other.getFatigue());
+                out.writeBoolean(other.getTreasure());
+                out.writeBoolean(other.getSafe());
+            }
+        }
+    }
+
+    // restore(IGameEventHandler, int[], OutcomeStore, HeatMap, Levels, SessionManager, DataInputStream, InputPacket,
+    //    TurnTimer.Deadline): A new session hosted by 'manager' that carries on with the game writeSnapshot() wrote, once
+    //    run. 'wakingInput' is the input the sleeping player gave, and 'sleepingDeadline' what ran their turn's deadline
+    //    while the session slept; the resumed turn ends when it would have.
+    static Session restore(IGameEventHandler gameEventHandler, int[] computerPlayers, OutcomeStore outcomeStore, HeatMap heatMap,
+                           Levels levels, SessionManager manager, DataInputStream in, InputPacket wakingInput,
+                           TurnTimer.Deadline sleepingDeadline) throws IOException {
+        if(in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unknown snapshot version.");
+        }
+        long sessionId = in.readLong();
+
+        Rules rules = Rules.DEFAULT;
+        for(String name : Rules.NAMES) {
+            rules = rules.with(name, in.readInt());
+        }
+        int level = in.readInt();
+
+        int round = in.readInt();
+        int foeAwokeRound = in.readInt();
+        int wounds = in.readInt();
+        int steals = in.readInt();
+        int renewals = in.readInt();
+        int resumeActor = in.readInt();
+        int resumeMoves = in.readInt();
+
+        GameBoard gameBoard = GameBoard.readFrom(in);
+        Session session = new Session(sessionId, gameBoard, gameEventHandler, computerPlayers, gameBoard.getSize(), rules,
+                outcomeStore, heatMap, levels, manager);
+
+        session.level = level;
+        session.round = round;
+        session.foeAwokeRound = foeAwokeRound;
+        session.wounds = wounds;
+        session.steals = steals;
+        session.renewals = renewals;
+        session.resumeActor = resumeActor;
+        session.resumeMoves = resumeMoves;
+        session.resumeInput = true;
+        session.inputPacket = wakingInput;
+
+        // 'wakingInput' may still be armed with the turn's deadline, or expired by it; either way the resumed turn
+        // disarms it when it ends.
+        TurnTimer.SHARED.transfer(sleepingDeadline, session.deadline);
+        session.deadlineArmed = true;
+
+        int actorCount = in.readInt();
+        for(int i = 0; i < actorCount; i++) {
+            int id = in.readInt();
+            Actor actor = session.actor(i == 0 ? ActorType.FOE : ActorType.PLAYER, id);
+
+            actor.move(gameBoard.getCell(in.readInt(), in.readInt()));
+            actor.setVisibility(in.readBoolean());
+
+            if(actor.getType() == ActorType.FOE) {
+                ((Foe)actor).setAwake(in.readBoolean());
+            } else {
+                Player player = (Player)actor;
+                player.restore(in.readInt(), in.readInt());
+                player.setTreasure(in.readBoolean());
+                player.setSafe(in.readBoolean());
+            }
+            session.actors.add(actor);
+        }
+
+        return session;
+    }
+
+    // resume(): Carries on with a restored game where it was left, then plays new games as usual.
+    private void resume() {
+        gameBoard.setEventBus(eventBus);
+        for(Actor actor : actors) {
+            actor.setEventBus(eventBus);
+        }
+
+        // The view let go of the game while it slept, so show it everything again.
+        refreshView();
+        pregenerateNextLevel();
+
+        while(playRound()) {
+            // Keep playing until the game ends or is reset.
+        }
+
+        restart();
+        start();
+    }
+
+    // subscribeView(): Subscribes the IGameEventHandler to the changes it displays.
+    private void subscribeView() {
+        eventBus.subscribe(GameEvent.ActorMoved.class, (GameEvent.ActorMoved event) -> gameEventHandler.actorDataUpdate(event.getActor()));
+        eventBus.subscribe(GameEvent.ActorChanged.class, (GameEvent.ActorChanged event) -> gameEventHandler.actorDataUpdate(event.getActor()));
+        eventBus.subscribe(GameEvent.PlayerWounded.class, (GameEvent.PlayerWounded event) -> gameEventHandler.actorDataUpdate(event.getPlayer()));
+        eventBus.subscribe(GameEvent.TreasureTaken.class, (GameEvent.TreasureTaken event) -> gameEventHandler.actorDataUpdate(event.getPlayer()));
+        eventBus.subscribe(GameEvent.FoeAwoke.class, (GameEvent.FoeAwoke event) -> gameEventHandler.actorDataUpdate(event.getFoe()));
+        eventBus.subscribe(GameEvent.WallRevealed.class, (GameEvent.WallRevealed event) -> gameEventHandler.boardDataUpdate(event.getBoard()));
+        eventBus.subscribe(GameEvent.BoardChanged.class, (GameEvent.BoardChanged event) -> gameEventHandler.boardDataUpdate(event.getBoard()));
+    }
+
+    // restart(): Sets the Session up for a new round of gameplay. The board and actors are reset in place, so
+    //    restarting allocates nothing on a normal board.
     private void restart() {
-	    gameBoard = new GameBoard();
-        actors = new ArrayList<Actor>();
+        if(advancing) {
+            advancing = false;
+            nextLevel();
+        } else {
+            gameBoard.reset(random.nextLong());
+        }
+        actors.clear();
         gameEventHandler.clearDisplay();
+
+        if(levels != null) {
+            gameEventHandler.boardDataUpdate(gameBoard);
+            gameEventHandler.displayText(String.format("LEVEL %d of %d", level, levels.getCount()));
+        }
+    }
+
+    // pregenerateNextLevel(): Starts generating the board of the next level, unless it already is or there are no
+    //    levels.
+    private void pregenerateNextLevel() {
+        if(levels != null && nextBoard == null) {
+            nextBoard = levels.pregenerate(levels.next(level), random.nextLong());
+        }
+    }
+
+    // nextLevel(): Moves on to the next level, with the board generated for it in the background. Only waits for the
+    //    board if the level was won before it was done.
+    private void nextLevel() {
+        level = levels.next(level);
+
+        try {
+            gameBoard = nextBoard.get();
+        } catch (ExecutionException exception) {
+            System.out.println("Generating the next level failed: " + exception.getCause());
+            gameBoard = levels.generate(level, random.nextLong());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            gameBoard = levels.generate(level, random.nextLong());
+        }
+        nextBoard = null;
+
+        // Players play by the rules they were created with, so the new level's are created anew.
+        boardSize = gameBoard.getSize();
+        rules = levels.rules(level);
+        actorFactory = new ActorFactory(rules);
+        Arrays.fill(actorPool, null);
+    }
+
+    // actor(ActorType, int): The actor with the given ID, as created: reset from the pool, or created the first time.
+    private Actor actor(ActorType type, int id) {
+        Actor actor = actorPool[id];
+
+        if(actor == null) {
+            actor = actorFactory.createActor(type, id);
+            actorPool[id] = actor;
+        } else {
+            actor.reset();
+        }
+        return actor;
+    }
+
+    // createBoard(): Creates a new GameBoard of the session's board size.
+    private GameBoard createBoard() {
+        if(boardSize > GameBoard.SIZE) {
+            return new GameBoard(boardSize, random.nextLong());
+        }
+        return new GameBoard();
     }
 
     // takeTurn: Have all actors take their turns.
     private boolean playRound() {
-	    for(Actor actor : actors) {
-            if(!takeTurn(actor)) {
+        int first = 0;
+        if(resumeActor == NOT_RESUMING) {
+            ++round;
+        } else {
+            first = resumeActor;
+        }
+
+	    for(int i = first; i < actors.size(); i++) {
+            if(!takeTurn(actors.get(i))) {
                 return false;
             }
         }
 
-        if(random.nextInt(ONE_HUNDRED) < RENEWAL_CHANCE) {
+        if(random.nextInt(ONE_HUNDRED) < rules.renewalChance) {
             renewPlayer();
         }
 
@@ -183,14 +607,17 @@ public final class Session {
         if(chosen.isAlive()) {
             chosen.heal();
             chosen.resetFatigue();
+            ++renewals;
 
-            gameEventHandler.displayText(String.format("PLAYER %d has been\nrejuvenated!.", chosen.getId()));
+            gameEventHandler.displayText(RENEWAL_MESSAGES[chosen.getId()]);
         }
     }
 
     // takeTurn(Actor): Have an actor take their turn.
     private boolean takeTurn(Actor actor) {
         boolean resetting = true;
+        TurnTrace.tag(id, round, actor.getId());
+        turnActor = actor.getId();
 
         ActorType type = actor.getType();
         if(type == ActorType.FOE) {
@@ -198,13 +625,20 @@ public final class Session {
         } else if (type == ActorType.PLAYER) {
             Player player = (Player)actor;
             if(player.isAlive()) {
-                gameEventHandler.displayText(String.format("PLAYER %d's turn!", actor.getId()));
+                gameEventHandler.focusActor(actor);
+                gameEventHandler.displayText(TURN_MESSAGES[actor.getId()]);
                 if(actor.getId() == 1) {
                     gameEventHandler.playSound(SoundType.PLAYER_ONE);
                 } else if (actor.getId() == 2) {
                     gameEventHandler.playSound(SoundType.PLAYER_TWO);
                 }
+                // Computer players are time-boxed by their own search budget. A resumed turn keeps the deadline it
+                // had before hibernating, see restore().
+                if(!resumeInput) {
+                    armDeadline(agents[actor.getId()] == null ? TurnTimer.getTurnMillis() : 0);
+                }
                 resetting = playerMove(player);
+                disarmDeadline();
             }
         }
 
@@ -216,20 +650,19 @@ public final class Session {
         if(foe.getAwake()) {
             gameEventHandler.displayText("The Foe moves...");
             Cell foePosition = foe.getPosition();
-            double minDistance = Float.MAX_VALUE;
+            int minDistance = Integer.MAX_VALUE;
             Cell closest = gameBoard.getTreasureRoom();
 
             // Find the closest actor
-            for (Actor actor : actors) {
+            for (int i = 0; i < actors.size(); i++) {
+                Actor actor = actors.get(i);
                 if (actor.getType() == ActorType.PLAYER && ((Player)actor).isAlive()) {
                     Player player = (Player) actor;
                     Cell playerPosition = player.getPosition();
-                    Cell secretRoomPosition = gameBoard.getSecretRoom(player.getId());
 
-                    double distance = playerPosition.distance(foePosition);
+                    int distance = playerPosition.distanceSquared(foePosition);
 
                     if (player.getTreasure()) {
-                        minDistance = Double.MIN_VALUE;
                         closest = playerPosition;
                         break;
                     } else if (distance < minDistance && !player.getSafe()) {
@@ -244,7 +677,7 @@ public final class Session {
                 int dX = (closest.x > foePosition.x ? 1 : 0) + (closest.x < foePosition.x ? -1 : 0);
                 int dY = (closest.y > foePosition.y ? 1 : 0) + (closest.y < foePosition.y ? -1 : 0);
 
-                Cell next = new Cell(foePosition.x + dX, foePosition.y + dY);
+                Cell next = gameBoard.getCell(foePosition.x + dX, foePosition.y + dY);
                 foe.move(next);
             }
 
@@ -269,61 +702,90 @@ public final class Session {
         boolean skipTurn = false;
 
         int maxMoves = player.getMaxMoves();
+        if(resumeActor != NOT_RESUMING) {
+            maxMoves = resumeMoves;
+            resumeActor = NOT_RESUMING;
+        }
+
+        route.clear();
 
         while(maxMoves > 0) {
 
-            input = nextInput();
-
-            // Get player input.
-            switch(input.getType()) {
-                case RESET -> resetting = true;
-                case NEXT -> skipTurn = true;
-                case CELL -> {
-                    playerPosition = player.getPosition();
-                    Cell selection = input.getCell();
-
-                    if(playerPosition.distance(selection) != 1d) { // If the player isn't moving orthogonally.
-                        gameEventHandler.displayText("You cannot move there.");
-                        gameEventHandler.playSound(SoundType.PLAYER_ILLEGAL_MOVE);
-                    } else if (gameBoard.moveValid(playerPosition, selection, true)) { // Valid move, make it.
-                        player.move(selection);
-                        --maxMoves;
-                        player.tire();
-                        gameEventHandler.playSound(SoundType.PLAYER_MOVE);
-                    } else { // The player hit a wall.
-                        gameEventHandler.displayText("You hit a wall!\nYour turn is over.");
-                        skipTurn = true;
-                        gameEventHandler.playSound(SoundType.WALL);
+            // A route is dropped if something moved the player off it, e.g. an attack.
+            Cell step = route.pollFirst();
+            if(step != null && !player.getPosition().isAdjacent(step)) {
+                route.clear();
+                step = null;
+            }
+
+            input = (step != null ? routeStep(step) : nextInput(player, maxMoves));
+
+            // Everything the input sets off, up to the next input, is its rule evaluation.
+            TurnTrace.RuleEvaluation trace = TurnTrace.ruleEvaluation();
+            try {
+                // Get player input.
+                // A turn that ran out of time ends as if NEXT was pressed, whatever the view was setting.
+                boolean expired = input.isExpired();
+                if(expired) {
+                    gameEventHandler.displayText("Time is up!\nYour turn is over.");
+                }
+
+                switch(expired ? EventType.NEXT : input.getType()) {
+                    case RESET -> resetting = true;
+                    case NEXT -> skipTurn = true;
+                    case CELL -> {
+                        playerPosition = player.getPosition();
+                        Cell selection = input.getCell();
+
+                        if(!playerPosition.isAdjacent(selection)) { // If the player isn't moving orthogonally, travel there.
+                            if(!routePlanner.plan(gameBoard, playerPosition, selection, maxMoves, route)) {
+                                gameEventHandler.displayText("You cannot move there.");
+                                gameEventHandler.playSound(SoundType.PLAYER_ILLEGAL_MOVE);
+                            }
+                        } else if (gameBoard.moveValid(playerPosition, selection, true)) { // Valid move, make it.
+                            player.move(selection);
+                            --maxMoves;
+                            player.tire();
+                            record(HeatMap.MOVE, selection);
+                            gameEventHandler.playSound(SoundType.PLAYER_MOVE);
+                        } else { // The player hit a wall.
+                            gameEventHandler.displayText("You hit a wall!\nYour turn is over.");
+                            skipTurn = true;
+                            record(HeatMap.WALL, playerPosition);
+                            gameEventHandler.playSound(SoundType.WALL);
+                        }
                     }
                 }
-            }
-            playerPosition = player.getPosition();
+                playerPosition = player.getPosition();
 
-            player.setSafe(playerPosition.equals(secretRoomPosition));
+                player.setSafe(playerPosition.equals(secretRoomPosition));
 
 
-            if(playerPosition.equals(treasureRoom) && gameBoard.getTreasure()) {
-                gameBoard.setTreasure(false);
-                player.setTreasure(true);
-                gameEventHandler.displayText("You got the treasure!\nThe Foe senses this...");
-                gameEventHandler.playSound(SoundType.GOAL);
-                break;
-            }
+                if(playerPosition.equals(treasureRoom) && gameBoard.getTreasure()) {
+                    gameBoard.setTreasure(false);
+                    player.setTreasure(true);
+                    gameEventHandler.displayText("You got the treasure!\nThe Foe senses this...");
+                    gameEventHandler.playSound(SoundType.GOAL);
+                    break;
+                }
 
-            if(player.getSafe() && player.getTreasure()) {
-                System.out.println("SUSSER");
-                winGame(player);
-                return false;
-            }
+                if(player.getSafe() && player.getTreasure()) {
+                    winGame(player);
+                    return false;
+                }
 
-            if(resetting || !doActorInteractions()) {
-                return false;
-            }
+                if(resetting || !doActorInteractions()) {
+                    return false;
+                }
 
-            boolean foughtPlayer = violentResolution(player);
+                boolean foughtPlayer = violentResolution(player);
 
-            if(skipTurn || !player.isAlive() || foughtPlayer) {
-                break;
+                if(skipTurn || !player.isAlive() || foughtPlayer) {
+                    break;
+                }
+            } finally {
+                TurnTrace.commit(trace);
+                TurnTrace.inputHandled();
             }
         }
 
@@ -335,7 +797,8 @@ public final class Session {
     // allPlayersDead(): Checks if all players have died.
     private boolean allPlayersDead() {
         boolean allDead = true;
-        for(Actor actor : actors) {
+        for(int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
             if(actor.getType() == ActorType.PLAYER) {
                 allDead = allDead && !((Player)actor).isAlive();
             }
@@ -357,7 +820,8 @@ public final class Session {
 
         if(!foe.getAwake()) {
             int minDistance = Integer.MAX_VALUE;
-            for(Actor actor : actors) {
+            for(int i = 0; i < actors.size(); i++) {
+                Actor actor = actors.get(i);
                 if(actor.getType() == ActorType.PLAYER && ((Player)actor).isAlive()) {
                     Player player = (Player) actor;
                     Cell playerPosition = player.getPosition();
@@ -369,14 +833,16 @@ public final class Session {
                 }
             }
 
-            if(minDistance <= Foe.AWAKEN_RANGE) {
+            if(minDistance <= rules.awakenRange) {
                 foe.setAwake(true);
+                foeAwokeRound = round;
                 gameEventHandler.displayText("The foe has awoken!");
                 gameEventHandler.playSound(SoundType.FOE_AWAKES);
             }
         }
 
-        for(Actor actor : actors) {
+        for(int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
             if(actor.getType() == ActorType.PLAYER && ((Player)actor).isAlive()) {
                 Player player = (Player) actor;
 
@@ -387,6 +853,8 @@ public final class Session {
 
                 if (foePosition.equals(playerPosition)) {
                     player.wound();
+                    ++wounds;
+                    record(HeatMap.ATTACK, foePosition);
                     player.move(gameBoard.getSecretRoom(player.getId()));
                     gameEventHandler.displayText("You were attacked!");
                     foe.setVisibility(true);
@@ -397,7 +865,8 @@ public final class Session {
                     }
 
                     if(!player.isAlive()) {
-                        gameEventHandler.displayText(String.format("PLAYER %d has perished.", player.getId()));
+                        record(HeatMap.DEATH, foePosition);
+                        gameEventHandler.displayText(DEATH_MESSAGES[player.getId()]);
                         gameEventHandler.playSound(SoundType.DEFEAT);
                     }
                     else {
@@ -420,7 +889,8 @@ public final class Session {
         Cell movingPlayerPosition = movingPlayer.getPosition();
         Player overlappingPlayer = null;
 
-        for(Actor actor : actors) {
+        for(int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
             if(actor.getType() == ActorType.PLAYER && ((Player)actor).isAlive() && actor.getId() != movingPlayer.getId()) {
                 Player otherPlayer = (Player)actor;
                 if(movingPlayerPosition.equals(otherPlayer.getPosition())) {
@@ -451,7 +921,6 @@ public final class Session {
                 loser = movingPlayer;
             }
 
-            System.out.println(winner.getId());
             winner.setTreasure(true);
             loser.setTreasure(false);
 
@@ -459,13 +928,19 @@ public final class Session {
             Cell foePosition = actors.get(0).getPosition();
             Cell candidate = null;
             boolean suitable = false;
+            int reach = rules.teleportDistance + 1;
 
+            // Only the square around the winner can hold a suitable cell, so sample there; on large boards the
+            //    whole board would almost never hit it.
             while(!suitable) {
-                candidate = new Cell(random.nextInt(GameBoard.SIZE), random.nextInt(GameBoard.SIZE));
+                int x = winnerPosition.x + random.nextInt(2 * reach + 1) - reach;
+                int y = winnerPosition.y + random.nextInt(2 * reach + 1) - reach;
 
-                int distance = winnerPosition.squareDistance(candidate);
+                int distance = Math.max(Math.abs(x - winnerPosition.x), Math.abs(y - winnerPosition.y));
+                boolean onBoard = x >= 0 && x < gameBoard.getSize() && y >= 0 && y < gameBoard.getSize();
 
-                if(distance >= TELEPORT_DISTANCE && distance <= TELEPORT_DISTANCE + 1 && !candidate.equals(foePosition)) {
+                if(onBoard && distance >= rules.teleportDistance && distance <= rules.teleportDistance + 1 && !(x == foePosition.x && y == foePosition.y)) {
+                    candidate = gameBoard.getCell(x, y);
                     suitable = true;
                 }
             }
@@ -474,6 +949,8 @@ public final class Session {
             if(movingPlayer.getTreasure() && hadTreasure) {
                 gameEventHandler.displayText(String.format("PLAYER %d defended against\nfrom PLAYER %d!", winner.getId(), loser.getId()));
             } else {
+                ++steals;
+                record(HeatMap.STEAL, winnerPosition);
                 gameEventHandler.displayText(String.format("PLAYER %d stole the \ntreasure from PLAYER %d!", winner.getId(), loser.getId()));
             }
             return true;
@@ -491,28 +968,30 @@ public final class Session {
             Player playerToMove = (movingPlayer.getPosition().equals(moverSecretRoom) ? otherPlayer : movingPlayer);
             Cell playerToMovePosition = playerToMove.getPosition();
 
-            Cell[] orthogonal = new Cell[] {
-                    new Cell(playerToMovePosition.x + 1, playerToMovePosition.y),
-                    new Cell(playerToMovePosition.x - 1, playerToMovePosition.y),
-                    new Cell(playerToMovePosition.x, playerToMovePosition.y + 1),
-                    new Cell(playerToMovePosition.x, playerToMovePosition.y - 1)
-            };
+            int choiceCount = 0;
 
-            ArrayList<Cell> choices = new ArrayList<Cell>();
+            // Cells off the board are behind its outer walls, so only cells on it are candidates.
+            for(int direction = 0; direction < DELTA_X.length; direction++) {
+                int x = playerToMovePosition.x + DELTA_X[direction];
+                int y = playerToMovePosition.y + DELTA_Y[direction];
 
-            for(Cell option : orthogonal) {
-                if(gameBoard.moveValid(playerToMovePosition, option, false)) {
-                    choices.add(option);
+                if(x >= 0 && x < gameBoard.getSize() && y >= 0 && y < gameBoard.getSize()) {
+                    Cell option = gameBoard.getCell(x, y);
+                    if(gameBoard.moveValid(playerToMovePosition, option, false)) {
+                        choices[choiceCount++] = option;
+                    }
                 }
             }
 
-            Cell selection = choices.get(random.nextInt(choices.size()));
+            Cell selection = choices[random.nextInt(choiceCount)];
             playerToMove.move(selection);
         }
     }
 
     // winGame(Actor): Have one Actor win the game, whether that be the Foe or a Player.
     private void winGame(Actor actor) {
+        recordOutcome(actor);
+
         String message = "";
         ActorType type = actor.getType();
         if(type == ActorType.PLAYER) {
@@ -524,21 +1003,176 @@ public final class Session {
         }
 
         gameEventHandler.displayText(message + "\n(RESET or NEXT)");
+        armDeadline(TurnTimer.getGameOverMillis());
         while(true) {
             InputPacket input = nextInput();
+            EventType inputType = (input.isExpired() ? EventType.NEXT : input.getType());
 
-            if(input.getType() == EventType.NEXT || input.getType() == EventType.RESET) {
+            if(inputType == EventType.NEXT || inputType == EventType.RESET) {
+                // With levels, NEXT moves on to the next one after a win; RESET plays this one again.
+                advancing = (levels != null && type == ActorType.PLAYER && inputType == EventType.NEXT);
                 break;
             }
         }
+        disarmDeadline();
+    }
+
+
+    // recordOutcome(Actor): Records the game that 'actor' just won, if games are being recorded.
+    private void recordOutcome(Actor winner) {
+        if(outcomeStore == null) {
+            return;
+        }
+
+        int[] homeDistances = new int[MAX_PLAYERS + 1];
+        for(int player = 1; player <= MAX_PLAYERS; player++) {
+            Cell home = gameBoard.getSecretRoom(player);
+            homeDistances[player] = (home == null ? GameOutcome.NO_HOME : home.squareDistance(gameBoard.getTreasureRoom()));
+        }
+
+        outcomeStore.record(new GameOutcome(winner.getId(), round, foeAwokeRound, wounds, steals, renewals,
+                homeDistances, gameBoard.getSeed()));
     }
 
+    // record(int, Cell): Counts an event of the given kind in a cell, if a heat map is set.
+    private void record(int kind, Cell cell) {
+        if(heatMap != null) {
+            heatMap.record(kind, cell);
+        }
+    }
+
+    // playerMessages(String): 'format' filled in with every player ID, indexed by player ID.
+    private static String[] playerMessages(String format) {
+        String[] messages = new String[MAX_PLAYERS + 1];
+        for(int player = 1; player <= MAX_PLAYERS; player++) {
+            messages[player] = String.format(format, player);
+        }
+        return messages;
+    }
+
+    // armDeadline(long): Has the inputs waited for from now on end as NEXT once 'millis' have passed, until
+    //    disarmDeadline(). Any deadline still armed is cancelled first, so 0, no limit, leaves none; e.g. the game over
+    //    screen, reached in the middle of a turn, must not end on what is left of the turn's time.
+    private void armDeadline(long millis) {
+        disarmDeadline();
+        if(millis <= 0) {
+            return;
+        }
+
+        long token = TurnTimer.SHARED.nextToken();
+        inputPacket.arm(token);
+        TurnTimer.SHARED.schedule(deadline, millis, token);
+        deadlineArmed = true;
+    }
+
+    // disarmDeadline(): Cancels the deadline, if armed. A hibernating session never gets here: SessionManager moves
+    //    its deadline onto one that only holds the input packet, so a player's time still runs out while the session
+    //    sleeps, waking it to end the turn, and the restored session takes the deadline back.
+    private void disarmDeadline() {
+        if(!deadlineArmed) {
+            return;
+        }
 
+        TurnTimer.SHARED.cancel(deadline);
+        inputPacket.disarm();
+        deadlineArmed = false;
+    }
+
+    // expireInput(long): Expires the input packet for the deadline scheduled with 'token'. Runs on the timer thread.
+    private void expireInput(long token) {
+        inputPacket.expire(token);
+    }
+
+    // publishSnapshot(): Publishes the game as it is now for other threads to read, see SnapshotPublisher.
+    private void publishSnapshot() {
+        snapshots.publish(id, level, round, turnActor, gameBoard, actors);
+    }
+
+    // nextInput(): Waits for the next input from the IGameEventHandler.
     private InputPacket nextInput() {
-        InputPacket inputPacket = new InputPacket();
+        publishSnapshot();
+        inputPacket.reset();
         gameEventHandler.subscribeInput(inputPacket);
+        StartupProbe.awaitingInput();
+        inputPacket.awaitSigned();
+
+        return inputPacket;
+    }
+
+    // routeStep(Cell): Makes the next step of a planned route look like the player clicked it.
+    private InputPacket routeStep(Cell step) {
+        publishSnapshot();
+        inputPacket.reset();
+        inputPacket.setType(EventType.CELL);
+        inputPacket.setCell(step);
+        inputPacket.sign();
+
+        return inputPacket;
+    }
+
+    // nextHomeInput(int): Gets the secret room choice of a player, from their agent if they are a computer player.
+    private InputPacket nextHomeInput(int player) {
+        MonteCarloAgent agent = agents[player];
+        if(agent == null) {
+            return nextInput();
+        }
+
+        publishSnapshot();
+        inputPacket.reset();
+        agent.chooseHome(gameBoard, inputPacket);
         inputPacket.awaitSigned();
 
         return inputPacket;
     }
+
+    // nextInput(Player, int): Gets the next move of a player, from their agent if they are a computer player.
+    private InputPacket nextInput(Player player, int movesLeft) {
+        MonteCarloAgent agent = agents[player.getId()];
+
+        // A resumed turn starts with the input that woke the session.
+        if(resumeInput) {
+            resumeInput = false;
+            inputPacket.received();
+            return inputPacket;
+        }
+
+        // A hosted session hibernates while its player is idle, unless the input arrives while it's being written out.
+        if(agent == null && manager != null) {
+            publishSnapshot();
+            inputPacket.reset();
+            gameEventHandler.subscribeInput(inputPacket);
+            StartupProbe.awaitingInput();
+            while(!inputPacket.awaitSigned(manager.getIdleMillis())) {
+                if(manager.hibernate(this, player, movesLeft, inputPacket)) {
+                    throw new Hibernated();
+                }
+            }
+            inputPacket.received();
+            return inputPacket;
+        }
+
+        if(agent == null) {
+            nextInput().received();
+            return inputPacket;
+        }
+
+        publishSnapshot();
+        inputPacket.reset();
+        agent.decide(GameState.capture(gameBoard, actors, player, movesLeft, rules, random.nextLong()), inputPacket);
+        inputPacket.awaitSigned();
+
+        return inputPacket;
+    }
+
+
+    // Private Classes
+
+    // Hibernated: Thrown to unwind a hosted session's thread once its game has been written to disk.
+    private static final class Hibernated extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Hibernated() {
+            super(null, null, false, false);
+        }
+    }
 }
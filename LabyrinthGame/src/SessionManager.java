@@ -0,0 +1,161 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Class - SessionManager
+ *
+ *     Hosts any number of Sessions, each on its own thread, and hibernates the ones whose player has been idle for
+ *     too long: the game is written to a small snapshot file, the session's thread ends, and its board, actors and
+ *     view state are freed. The waiting input stays subscribed with the view, and giving it restores the session on
+ *     a new thread, which carries on with that input as if it had never stopped.
+ *     Memory and threads therefore grow with the sessions that are being played, not with every session hosted.
+ *
+ *     Only a human player's move input hibernates a session; choosing homes and the game over screen don't.
+ */
+public final class SessionManager {
+    // Constants
+
+    //    SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX: Name of the snapshot files around their number.
+    private static final String SNAPSHOT_PREFIX = "session-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+
+    // Private Fields
+
+    //    directory: Where the snapshots of hibernating sessions are written.
+    private final Path directory;
+
+    //    idleMillis: How long a player can be idle before their session hibernates.
+    private final long idleMillis;
+    public long getIdleMillis() { return idleMillis; }
+
+    //    activeCount, hibernatingCount: Sessions with a running thread, and sessions asleep on disk.
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger hibernatingCount = new AtomicInteger();
+    public int getActiveCount() { return activeCount.get(); }
+    public int getHibernatingCount() { return hibernatingCount.get(); }
+
+    //    nextNumber: Numbers the session threads and snapshot files.
+    private final AtomicLong nextNumber = new AtomicLong();
+
+    //    waker: Restores hibernating sessions. An input is signed on a view's thread or, once a turn runs out, on the one
+    //    TurnTimer thread every session shares; neither may wait for disk reads and mazes being generated again.
+    private final ExecutorService waker = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SessionWaker-" + nextNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    // Constructor(Path, long): Creates a manager that hibernates sessions idle for 'idleMillis' into 'directory'.
+    public SessionManager(Path directory, long idleMillis) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.idleMillis = idleMillis;
+    }
+
+
+    // Public Methods
+
+    // host(IGameEventHandler, int[], int, Rules, OutcomeStore, HeatMap, Levels): Starts a new session on its own
+    //    thread; see the Session constructor for the arguments.
+    public void host(IGameEventHandler gameEventHandler, int[] computerPlayers, int boardSize, Rules rules,
+                     OutcomeStore outcomeStore, HeatMap heatMap, Levels levels) {
+        run(new Session(gameEventHandler, computerPlayers, boardSize, rules, outcomeStore, heatMap, levels, this));
+    }
+
+
+    // Package-Private Methods
+
+    // hibernate(Session, Player, int, InputPacket): Writes 'session' to disk while 'player' waits on 'input' with
+    //    'movesLeft' moves left, and arranges for the input to wake it. Returns whether it did; if so, the session's
+    //    thread must end without touching the game or the view again. Returns false if writing failed, or the input
+    //    arrived in the meantime, in which case the session just carries on.
+    boolean hibernate(Session session, Player player, int movesLeft, InputPacket input) {
+        Path file = directory.resolve(SNAPSHOT_PREFIX + nextNumber.getAndIncrement() + SNAPSHOT_SUFFIX);
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            session.writeSnapshot(out, player, movesLeft);
+        } catch (IOException exception) {
+            System.out.println("Hibernating a session failed: " + exception);
+            delete(file);
+            return false;
+        }
+
+        // The view lets go before the input can wake a new session, which then sends it everything again.
+        IGameEventHandler gameEventHandler = session.getGameEventHandler();
+        int[] computerPlayers = session.getComputerPlayers();
+        OutcomeStore outcomeStore = session.getOutcomeStore();
+        HeatMap heatMap = session.getHeatMap();
+        Levels levels = session.getLevels();
+        gameEventHandler.hibernate();
+
+        // The turn's deadline keeps running while the session sleeps, but on a stand-in, so the timer doesn't keep the
+        // whole session in memory.
+        TurnTimer.Deadline sleepingDeadline = new TurnTimer.Deadline(input::expire);
+        TurnTimer.SHARED.transfer(session.getDeadline(), sleepingDeadline);
+
+        hibernatingCount.incrementAndGet();
+        if(!input.whenSigned(() -> waker.execute(() -> wake(file, gameEventHandler, computerPlayers, outcomeStore,
+                heatMap, levels, input, sleepingDeadline)))) {
+            hibernatingCount.decrementAndGet();
+            TurnTimer.SHARED.transfer(sleepingDeadline, session.getDeadline());
+            delete(file);
+            session.refreshView();
+            return false;
+        }
+        return true;
+    }
+
+
+    // Private Methods
+
+    // wake(Path, IGameEventHandler, int[], OutcomeStore, HeatMap, Levels, InputPacket, TurnTimer.Deadline): Restores a
+    //    hibernating session from 'file' and carries on with it on a new thread, with the turn's deadline taken over
+    //    from 'sleepingDeadline'. Runs on 'waker', once 'input' is given.
+    private void wake(Path file, IGameEventHandler gameEventHandler, int[] computerPlayers, OutcomeStore outcomeStore,
+                      HeatMap heatMap, Levels levels, InputPacket input, TurnTimer.Deadline sleepingDeadline) {
+        hibernatingCount.decrementAndGet();
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            run(Session.restore(gameEventHandler, computerPlayers, outcomeStore, heatMap, levels, this, in, input,
+                    sleepingDeadline));
+        } catch (IOException exception) {
+            TurnTimer.SHARED.cancel(sleepingDeadline);
+            input.disarm();
+            System.out.println("Waking a session failed: " + exception);
+            gameEventHandler.displayText("This game could not\nbe restored.");
+        }
+        delete(file);
+    }
+
+    // run(Session): Runs a session on a new thread until it ends or hibernates.
+    private void run(Session session) {
+        Thread thread = new Thread(() -> {
+            try {
+                session.run();
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        }, "Session-" + nextNumber.getAndIncrement());
+
+        activeCount.incrementAndGet();
+        thread.start();
+    }
+
+    // delete(Path): Deletes a snapshot file that is no longer needed.
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            System.out.println("Deleting " + file + " failed: " + exception);
+        }
+    }
+}
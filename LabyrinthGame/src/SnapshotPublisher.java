@@ -0,0 +1,267 @@
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/* Class - SnapshotPublisher
+ *
+ *     Lets threads other than the gameplay thread (computer players, spectators, metrics, renderers) read a session's
+ *     board and actors at any time. The board and actors themselves are only ever touched by the gameplay thread, so
+ *     whenever the game settles, before every input is waited for, the gameplay thread copies them into a Snapshot
+ *     here, and readers copy that Snapshot into their own.
+ *
+ *     The copy is guarded by a StampedLock that readers only ever read optimistically: a reader copies without
+ *     taking the lock, then checks that no publish began in the meantime, and copies again if one did. A reader
+ *     therefore never sees a torn snapshot and the gameplay thread never waits for a reader; a publish is a few
+ *     hundred bytes of copying and allocates nothing.
+ *
+ *     Other processes can watch too: every snapshot published is also written to the StateExport set, if any.
+ */
+public final class SnapshotPublisher {
+    // Constants
+
+    //    NO_ACTOR: Actor ID while no actor's turn is being played, e.g. while secret rooms are chosen.
+    public static final int NO_ACTOR = -1;
+
+    //    MAX_ACTORS: Most actors a snapshot holds; the Foe and every player.
+    public static final int MAX_ACTORS = Session.MAX_PLAYERS + 1;
+
+
+    // Private Fields
+
+    //    lock: Tells readers whether a publish overlapped their copy.
+    private final StampedLock lock = new StampedLock();
+
+    //    latest: The snapshot last published. Only written under the write lock, by the gameplay thread.
+    private final Snapshot latest = new Snapshot();
+
+    //    export: Where every snapshot is also written for other processes, or null.
+    private StateExport export;
+    public void setExport(StateExport export) { this.export = export; }
+
+
+    // Public Methods
+
+    // publish(long, int, int, int, GameBoard, List<Actor>): Copies the game as it is now, in session 'session' at
+    //    'level' and 'round' with actor 'current' to play. Gameplay thread only.
+    public void publish(long session, int level, int round, int current, GameBoard board, List<Actor> actors) {
+        // Readers never hold the lock, so this never waits.
+        long stamp = lock.writeLock();
+        try {
+            latest.capture(session, level, round, current, board, actors);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        // Only the gameplay thread writes 'latest', so it can be read without the lock.
+        if(export != null) {
+            export.write(latest);
+        }
+    }
+
+    // closeExport(): Stops exporting. The file keeps the last snapshot, see StateExport. Gameplay thread only.
+    public void closeExport() {
+        export = null;
+    }
+
+    // read(Snapshot): Copies the latest snapshot into 'into', which the reader owns. Never blocks the gameplay thread,
+    //    and only spins while a publish is in progress. Any thread.
+    public Snapshot read(Snapshot into) {
+        while(true) {
+            long stamp = lock.tryOptimisticRead();
+
+            if(stamp != 0) {
+                into.copyFrom(latest);
+                if(lock.validate(stamp)) {
+                    return into;
+                }
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+
+    // Public Classes
+
+    // Snapshot: The board and actors of a session at one moment. Actors are in turn order, the Foe first; walls are
+    //    flattened the same as in GameState, and only kept for standard boards, chunked ones being too large to copy.
+    public static final class Snapshot {
+        //    version: Number of the publish this snapshot came from, counting from 1; 0 before the first.
+        private long version;
+        public long getVersion() { return version; }
+
+        //    session, level, round: The session, the level (counted from 1) and the round the game was in.
+        private long session;
+        private int level, round;
+        public long getSession() { return session; }
+        public int getLevel() { return level; }
+        public int getRound() { return round; }
+
+        //    current: ID of the actor whose turn it was, or NO_ACTOR.
+        private int current = NO_ACTOR;
+        public int getCurrent() { return current; }
+
+        //    size: Width and height of the board in cells.
+        private int size;
+        public int getSize() { return size; }
+
+        //    hasWalls, walls, revealed: Whether the walls were copied, and the walls and which of them were revealed.
+        private boolean hasWalls;
+        private final boolean[] wallsVertical = new boolean[(GameBoard.SIZE + 1) * (GameBoard.SIZE + 1)];
+        private final boolean[] wallsHorizontal = new boolean[wallsVertical.length];
+        private final boolean[] revealedVertical = new boolean[wallsVertical.length];
+        private final boolean[] revealedHorizontal = new boolean[wallsVertical.length];
+        public boolean hasWalls() { return hasWalls; }
+
+        //    treasureX, treasureY, boardTreasure: The treasure room, and whether the treasure is in it.
+        private int treasureX, treasureY;
+        private boolean boardTreasure;
+        public int getTreasureX() { return treasureX; }
+        public int getTreasureY() { return treasureY; }
+        public boolean getBoardTreasure() { return boardTreasure; }
+
+        //    roomCount, roomIds, roomX, roomY: The secret rooms chosen, and whose they are.
+        private int roomCount;
+        private final int[] roomIds = new int[Session.MAX_PLAYERS];
+        private final int[] roomX = new int[Session.MAX_PLAYERS];
+        private final int[] roomY = new int[Session.MAX_PLAYERS];
+        public int getRoomCount() { return roomCount; }
+        public int getRoomId(int room) { return roomIds[room]; }
+        public int getRoomX(int room) { return roomX[room]; }
+        public int getRoomY(int room) { return roomY[room]; }
+
+        //    actorCount, ...: The actors and their stats; the player stats are unused for the Foe, as is 'awake' for
+        //    players.
+        private int actorCount;
+        private final int[] actorIds = new int[MAX_ACTORS];
+        private final ActorType[] types = new ActorType[MAX_ACTORS];
+        private final int[] x = new int[MAX_ACTORS];
+        private final int[] y = new int[MAX_ACTORS];
+        private final int[] injury = new int[MAX_ACTORS];
+        private final int[] fatigue = new int[MAX_ACTORS];
+        private final boolean[] treasure = new boolean[MAX_ACTORS];
+        private final boolean[] safe = new boolean[MAX_ACTORS];
+        private final boolean[] alive = new boolean[MAX_ACTORS];
+        private boolean foeAwake;
+        public int getActorCount() { return actorCount; }
+        public int getActorId(int actor) { return actorIds[actor]; }
+        public ActorType getType(int actor) { return types[actor]; }
+        public int getX(int actor) { return x[actor]; }
+        public int getY(int actor) { return y[actor]; }
+        public int getInjury(int actor) { return injury[actor]; }
+        public int getFatigue(int actor) { return fatigue[actor]; }
+        public boolean getTreasure(int actor) { return treasure[actor]; }
+        public boolean getSafe(int actor) { return safe[actor]; }
+        public boolean isAlive(int actor) { return alive[actor]; }
+        public boolean getFoeAwake() { return foeAwake; }
+
+        // getWall(int, int, boolean), getRevealed(int, int, boolean): Same as on GameBoard, for boards with walls.
+        public boolean getWall(int cellX, int cellY, boolean vertical) {
+            int index = cellY * (GameBoard.SIZE + 1) + cellX;
+            return (vertical ? wallsVertical[index] : wallsHorizontal[index]);
+        }
+        public boolean getRevealed(int cellX, int cellY, boolean vertical) {
+            int index = cellY * (GameBoard.SIZE + 1) + cellX;
+            return (vertical ? revealedVertical[index] : revealedHorizontal[index]);
+        }
+
+        // capture(long, int, int, int, GameBoard, List<Actor>): Copies the live game, see publish().
+        private void capture(long session, int level, int round, int current, GameBoard board, List<Actor> actors) {
+            ++version;
+            this.session = session;
+            this.level = level;
+            this.round = round;
+            this.current = current;
+
+            size = board.getSize();
+            hasWalls = !board.isChunked();
+            if(hasWalls) {
+                boolean[][][] wallData = board.getWallData();
+                int row = GameBoard.SIZE + 1;
+
+                for(int i = 0; i < row; i++) {
+                    for(int j = 0; j < row; j++) {
+                        wallsVertical[i * row + j] = wallData[0][i][j];
+                        wallsHorizontal[i * row + j] = wallData[1][i][j];
+                        revealedVertical[i * row + j] = wallData[2][i][j];
+                        revealedHorizontal[i * row + j] = wallData[3][i][j];
+                    }
+                }
+            }
+
+            treasureX = board.getTreasureRoom().x;
+            treasureY = board.getTreasureRoom().y;
+            boardTreasure = board.getTreasure();
+
+            List<SecretRoom> secretRooms = board.getSecretRooms();
+            roomCount = Math.min(secretRooms.size(), roomIds.length);
+            for(int i = 0; i < roomCount; i++) {
+                SecretRoom secretRoom = secretRooms.get(i);
+                roomIds[i] = secretRoom.getId();
+                roomX[i] = secretRoom.getPosition().x;
+                roomY[i] = secretRoom.getPosition().y;
+            }
+
+            actorCount = Math.min(actors.size(), MAX_ACTORS);
+            for(int i = 0; i < actorCount; i++) {
+                Actor actor = actors.get(i);
+
+                actorIds[i] = actor.getId();
+                types[i] = actor.getType();
+                x[i] = actor.getPosition().x;
+                y[i] = actor.getPosition().y;
+
+                if(actor.getType() == ActorType.FOE) {
+                    foeAwake = ((Foe)actor).getAwake();
+                    alive[i] = true;
+                } else {
+                    Player player = (Player)actor;
+                    injury[i] = player.getInjuredLevel();
+                    fatigue[i] = player.getFatigue();
+                    treasure[i] = player.getTreasure();
+                    safe[i] = player.getSafe();
+                    alive[i] = player.isAlive();
+                }
+            }
+        }
+
+        // copyFrom(Snapshot): Makes this snapshot the same as 'other'. Only the used part of the arrays is copied.
+        private void copyFrom(Snapshot other) {
+            version = other.version;
+            session = other.session;
+            level = other.level;
+            round = other.round;
+            current = other.current;
+            size = other.size;
+
+            hasWalls = other.hasWalls;
+            if(hasWalls) {
+                System.arraycopy(other.wallsVertical, 0, wallsVertical, 0, wallsVertical.length);
+                System.arraycopy(other.wallsHorizontal, 0, wallsHorizontal, 0, wallsHorizontal.length);
+                System.arraycopy(other.revealedVertical, 0, revealedVertical, 0, revealedVertical.length);
+                System.arraycopy(other.revealedHorizontal, 0, revealedHorizontal, 0, revealedHorizontal.length);
+            }
+
+            treasureX = other.treasureX;
+            treasureY = other.treasureY;
+            boardTreasure = other.boardTreasure;
+
+            // Counts read mid-publish may be anything; clamped, the copy is only wrong, which validating catches.
+            roomCount = Math.max(0, Math.min(other.roomCount, roomIds.length));
+            System.arraycopy(other.roomIds, 0, roomIds, 0, roomCount);
+            System.arraycopy(other.roomX, 0, roomX, 0, roomCount);
+            System.arraycopy(other.roomY, 0, roomY, 0, roomCount);
+
+            actorCount = Math.max(0, Math.min(other.actorCount, MAX_ACTORS));
+            System.arraycopy(other.actorIds, 0, actorIds, 0, actorCount);
+            System.arraycopy(other.types, 0, types, 0, actorCount);
+            System.arraycopy(other.x, 0, x, 0, actorCount);
+            System.arraycopy(other.y, 0, y, 0, actorCount);
+            System.arraycopy(other.injury, 0, injury, 0, actorCount);
+            System.arraycopy(other.fatigue, 0, fatigue, 0, actorCount);
+            System.arraycopy(other.treasure, 0, treasure, 0, actorCount);
+            System.arraycopy(other.safe, 0, safe, 0, actorCount);
+            System.arraycopy(other.alive, 0, alive, 0, actorCount);
+            foeAwake = other.foeAwake;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Class - StartupProbe
+ *
+ *     Ends the program as soon as the game is on screen and waiting for the player, when enabled by Driver's "startup"
+ *     argument. StartupBench.sh times launches this way, from process start to the first rendered board, with and
+ *     without the class-data-sharing archive.
+ *
+ *     The views report every board they render and Session reports waiting for input; until enable() is called,
+ *     neither does anything. The view may render before or after Session is ready, so the program exits once both
+ *     have happened.
+ */
+public final class StartupProbe {
+    // Constants
+
+    //    RENDERED, WAITING, READY: The steps seen so far, as bits; READY once both have been.
+    private static final int RENDERED = 1;
+    private static final int WAITING = 2;
+    private static final int READY = RENDERED | WAITING;
+
+
+    // Private Fields
+
+    //    enabled: Whether to exit once the game is ready.
+    private static volatile boolean enabled = false;
+
+    //    seen: The steps seen so far. Updated from the gameplay and render threads.
+    private static final AtomicInteger seen = new AtomicInteger();
+
+
+    // Public Methods
+
+    // enable(): Makes the program exit once the first board is rendered and the game waits for input.
+    public static void enable() {
+        enabled = true;
+    }
+
+    // boardRendered(): Called by the views after rendering a board.
+    public static void boardRendered() {
+        reached(RENDERED);
+    }
+
+    // awaitingInput(): Called by Session before waiting for the player.
+    public static void awaitingInput() {
+        reached(WAITING);
+    }
+
+
+    // Private Methods
+
+    // reached(int): Records a step, and exits if it was the last one missing. Only the thread that completes READY
+    //    exits.
+    private static void reached(int step) {
+        if(!enabled) {
+            return;
+        }
+
+        int before = seen.getAndAccumulate(step, (int a, int b) -> a | b);
+        if(before != READY && (before | step) == READY) {
+            System.exit(0);
+        }
+    }
+}
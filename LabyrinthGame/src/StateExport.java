@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Class - StateExport
+ *
+ *     Keeps the state of a running session in a memory-mapped file, for other processes on the same machine to watch
+ *     (overlays, stream tools, analytics) without a socket, without deserialising anything and without the view
+ *     knowing. Enabled by Driver's "export" argument, every session gets a file named session-<id>.state in the given
+ *     directory. The session's SnapshotPublisher writes every snapshot it publishes into it, in place. A hibernating
+ *     session leaves its last state in the file, and goes on writing the same file once restored, so a watcher never
+ *     has to look for a new one.
+ *
+ *     The file is guarded by a sequence lock. The writer makes SEQUENCE odd, writes the state, then makes it even
+ *     again. A reader reads SEQUENCE, copies what it needs, and reads SEQUENCE again; the copy is whole only if both
+ *     reads were the same even number. Neither side ever waits for the other. StateWatcher is such a reader.
+ *
+ *     Layout, all numbers little-endian ints at the offsets below unless noted:
+ *         MAGIC, LAYOUT, SEQUENCE (long), SESSION (long), LEVEL, ROUND, CURRENT (actor ID, or -1), SIZE, FLAGS,
+ *         TREASURE_X, TREASURE_Y, ROOM_COUNT, ACTOR_COUNT,
+ *         ROOMS: ROOM_FIELDS ints per secret room (ID, x, y),
+ *         ACTORS: ACTOR_FIELDS ints per actor, the Foe first (ID, type, x, y, injury, fatigue, flags),
+ *         WALLS: EDGES bytes each, 1 for a wall, of the vertical and horizontal walls and which of them are revealed,
+ *         indexed y * (GameBoard.SIZE + 1) + x the same as GameState. Only written if FLAGS has HAS_WALLS.
+ */
+public final class StateExport {
+    // Constants
+
+    //    MAGIC, LAYOUT: What the file starts with, "LBYR", and the version of the layout below it.
+    public static final int MAGIC = 0x5259424C;
+    public static final int LAYOUT = 1;
+
+    //    *_OFFSET: Where each value is in the file, in bytes.
+    public static final int MAGIC_OFFSET = 0;
+    public static final int LAYOUT_OFFSET = 4;
+    public static final int SEQUENCE_OFFSET = 8;
+    public static final int SESSION_OFFSET = 16;
+    public static final int LEVEL_OFFSET = 24;
+    public static final int ROUND_OFFSET = 28;
+    public static final int CURRENT_OFFSET = 32;
+    public static final int SIZE_OFFSET = 36;
+    public static final int FLAGS_OFFSET = 40;
+    public static final int TREASURE_X_OFFSET = 44;
+    public static final int TREASURE_Y_OFFSET = 48;
+    public static final int ROOM_COUNT_OFFSET = 52;
+    public static final int ACTOR_COUNT_OFFSET = 56;
+    public static final int ROOMS_OFFSET = 60;
+
+    //    ROOM_FIELDS, ACTOR_FIELDS: How many ints every secret room and actor takes.
+    public static final int ROOM_FIELDS = 3;
+    public static final int ACTOR_FIELDS = 7;
+
+    public static final int ACTORS_OFFSET = ROOMS_OFFSET + Session.MAX_PLAYERS * ROOM_FIELDS * Integer.BYTES;
+    public static final int WALLS_OFFSET = ACTORS_OFFSET + SnapshotPublisher.MAX_ACTORS * ACTOR_FIELDS * Integer.BYTES;
+
+    //    EDGES: Entries in each wall array.
+    public static final int EDGES = (GameBoard.SIZE + 1) * (GameBoard.SIZE + 1);
+
+    //    FILE_SIZE: Length of the file.
+    public static final int FILE_SIZE = WALLS_OFFSET + 4 * EDGES;
+
+    //    HAS_WALLS, BOARD_TREASURE, FOE_AWAKE: Bits of FLAGS; whether the walls are written (not on chunked boards),
+    //    whether the treasure is in the treasure room, and whether the Foe is awake.
+    public static final int HAS_WALLS = 1;
+    public static final int BOARD_TREASURE = 2;
+    public static final int FOE_AWAKE = 4;
+
+    //    TYPE_FOE, TYPE_PLAYER: Values of an actor's type.
+    public static final int TYPE_FOE = 0;
+    public static final int TYPE_PLAYER = 1;
+
+    //    TREASURE, SAFE, ALIVE: Bits of an actor's flags.
+    public static final int TREASURE = 1;
+    public static final int SAFE = 2;
+    public static final int ALIVE = 4;
+
+    //    SEQUENCE: Ordered access to SEQUENCE, the only value the two sides synchronise on.
+    public static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    //    FILE_PREFIX, FILE_SUFFIX: Name of the files around the session ID.
+    private static final String FILE_PREFIX = "session-";
+    private static final String FILE_SUFFIX = ".state";
+
+
+    // Private Fields
+
+    //    directory: Where the files are kept. Null until enable() is called, and nothing is exported.
+    private static volatile Path directory;
+
+    //    buffer: The whole file of this export, mapped.
+    private final MappedByteBuffer buffer;
+
+    //    sequence: The value of SEQUENCE last written. Only used from the gameplay thread.
+    private long sequence = 0;
+
+
+    // Constructor(Path, boolean): Creates and maps the file, empty, or if 'keep' maps it as it is and carries on from
+    //    its sequence; readers may still have it mapped, so it mustn't be cut short under them.
+    private StateExport(Path file, boolean keep) throws IOException {
+        try(FileChannel channel = (keep
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING))) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(LAYOUT_OFFSET, LAYOUT);
+
+        // Even, and never below what readers have seen, so they take the next write as a change.
+        sequence = ((long)SEQUENCE.getOpaque(buffer, SEQUENCE_OFFSET) + 1) & ~1L;
+    }
+
+
+    // Public Methods
+
+    // enable(Path): Makes every session started from now on export its state into 'directory'.
+    public static void enable(Path directory) throws IOException {
+        StateExport.directory = Files.createDirectories(directory);
+    }
+
+    // open(long): The export of session 'session', or null if exporting isn't enabled or the file can't be created.
+    public static StateExport open(long session) {
+        return open(session, false);
+    }
+
+    // reopen(long): The export of session 'session' restored after hibernating, writing on in the file it left.
+    public static StateExport reopen(long session) {
+        return open(session, true);
+    }
+
+    // write(SnapshotPublisher.Snapshot): Writes 'snapshot' into the file in place. Gameplay thread only.
+    public void write(SnapshotPublisher.Snapshot snapshot) {
+        SEQUENCE.setOpaque(buffer, SEQUENCE_OFFSET, ++sequence);
+        // The odd sequence has to be visible before anything it guards changes.
+        VarHandle.storeStoreFence();
+
+        buffer.putLong(SESSION_OFFSET, snapshot.getSession());
+        buffer.putInt(LEVEL_OFFSET, snapshot.getLevel());
+        buffer.putInt(ROUND_OFFSET, snapshot.getRound());
+        buffer.putInt(CURRENT_OFFSET, snapshot.getCurrent());
+        buffer.putInt(SIZE_OFFSET, snapshot.getSize());
+        buffer.putInt(FLAGS_OFFSET, (snapshot.hasWalls() ? HAS_WALLS : 0)
+                | (snapshot.getBoardTreasure() ? BOARD_TREASURE : 0)
+                | (snapshot.getFoeAwake() ? FOE_AWAKE : 0));
+        buffer.putInt(TREASURE_X_OFFSET, snapshot.getTreasureX());
+        buffer.putInt(TREASURE_Y_OFFSET, snapshot.getTreasureY());
+
+        buffer.putInt(ROOM_COUNT_OFFSET, snapshot.getRoomCount());
+        for(int room = 0; room < snapshot.getRoomCount(); room++) {
+            int offset = ROOMS_OFFSET + room * ROOM_FIELDS * Integer.BYTES;
+            buffer.putInt(offset, snapshot.getRoomId(room));
+            buffer.putInt(offset + 4, snapshot.getRoomX(room));
+            buffer.putInt(offset + 8, snapshot.getRoomY(room));
+        }
+
+        buffer.putInt(ACTOR_COUNT_OFFSET, snapshot.getActorCount());
+        for(int actor = 0; actor < snapshot.getActorCount(); actor++) {
+            int offset = ACTORS_OFFSET + actor * ACTOR_FIELDS * Integer.BYTES;
+            buffer.putInt(offset, snapshot.getActorId(actor));
+            buffer.putInt(offset + 4, (snapshot.getType(actor) == ActorType.FOE ? TYPE_FOE : TYPE_PLAYER));
+            buffer.putInt(offset + 8, snapshot.getX(actor));
+            buffer.putInt(offset + 12, snapshot.getY(actor));
+            buffer.putInt(offset + 16, snapshot.getInjury(actor));
+            buffer.putInt(offset + 20, snapshot.getFatigue(actor));
+            buffer.putInt(offset + 24, (snapshot.getTreasure(actor) ? TREASURE : 0)
+                    | (snapshot.getSafe(actor) ? SAFE : 0)
+                    | (snapshot.isAlive(actor) ? ALIVE : 0));
+        }
+
+        if(snapshot.hasWalls()) {
+            int row = GameBoard.SIZE + 1;
+            for(int cellY = 0; cellY < row; cellY++) {
+                for(int cellX = 0; cellX < row; cellX++) {
+                    int offset = WALLS_OFFSET + cellY * row + cellX;
+                    buffer.put(offset, (byte)(snapshot.getWall(cellX, cellY, true) ? 1 : 0));
+                    buffer.put(offset + EDGES, (byte)(snapshot.getWall(cellX, cellY, false) ? 1 : 0));
+                    buffer.put(offset + 2 * EDGES, (byte)(snapshot.getRevealed(cellX, cellY, true) ? 1 : 0));
+                    buffer.put(offset + 3 * EDGES, (byte)(snapshot.getRevealed(cellX, cellY, false) ? 1 : 0));
+                }
+            }
+        }
+
+        // Release: everything above is visible before the even sequence is.
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, ++sequence);
+    }
+
+
+
+    // Private Methods
+
+    // open(long, boolean): The export of session 'session', see the constructor, or null if exporting isn't enabled
+    //    or the file can't be opened.
+    private static StateExport open(long session, boolean keep) {
+        Path exportDirectory = directory;
+        if(exportDirectory == null) {
+            return null;
+        }
+
+        try {
+            return new StateExport(exportDirectory.resolve(FILE_PREFIX + session + FILE_SUFFIX), keep);
+        } catch (IOException exception) {
+            System.out.println("Exporting session " + session + " failed: " + exception);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/* Class - StateWatcher
+ *
+ *     Watches a session's StateExport file from another process, and prints the game every time it changes: the
+ *     board with the walls revealed so far, and every actor. Shows how an observer reads the file without ever seeing
+ *     a half-written state.
+ *
+ *     Usage: StateWatcher <session-N.state> [poll milliseconds]
+ */
+public final class StateWatcher {
+    // Constants
+
+    //    DEFAULT_POLL_MILLIS: How often the file is looked at, unless given.
+    private static final long DEFAULT_POLL_MILLIS = 100;
+
+
+    // main: Prints the watched game whenever it changes, until stopped.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length < 1) {
+            System.err.println("Usage: StateWatcher <session-N.state> [poll milliseconds]");
+            System.exit(1);
+        }
+
+        Path file = Paths.get(args[0]);
+        long pollMillis = (args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_POLL_MILLIS);
+
+        ByteBuffer shared;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            shared = channel.map(FileChannel.MapMode.READ_ONLY, 0, StateExport.FILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if(shared.getInt(StateExport.MAGIC_OFFSET) != StateExport.MAGIC
+                || shared.getInt(StateExport.LAYOUT_OFFSET) != StateExport.LAYOUT) {
+            System.err.println(file + " is not a state export this version can read.");
+            System.exit(1);
+        }
+
+        ByteBuffer copy = ByteBuffer.allocate(StateExport.FILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long shown = -1;
+
+        while(true) {
+            long sequence = read(shared, copy);
+            if(sequence != shown && sequence != 0) {
+                System.out.println(describe(copy, sequence));
+                shown = sequence;
+            }
+            Thread.sleep(pollMillis);
+        }
+    }
+
+
+    // Private Methods
+
+    // read(ByteBuffer, ByteBuffer): Copies a whole state out of 'shared' into 'copy', retrying while the game writes
+    //    it, and returns its sequence number.
+    private static long read(ByteBuffer shared, ByteBuffer copy) {
+        while(true) {
+            long before = (long)StateExport.SEQUENCE.getAcquire(shared, StateExport.SEQUENCE_OFFSET);
+
+            if((before & 1) == 0) {
+                copy.put(0, shared, 0, StateExport.FILE_SIZE);
+
+                // The copy has to be done before the sequence is looked at again.
+                VarHandle.loadLoadFence();
+                long after = (long)StateExport.SEQUENCE.getOpaque(shared, StateExport.SEQUENCE_OFFSET);
+                if(before == after) {
+                    return before;
+                }
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+
+    // describe(ByteBuffer, long): The state in 'state' as text.
+    private static String describe(ByteBuffer state, long sequence) {
+        StringBuilder text = new StringBuilder();
+        int flags = state.getInt(StateExport.FLAGS_OFFSET);
+
+        text.append(String.format("#%d session %d level %d round %d, actor %d to play, treasure %s%n",
+                sequence / 2, state.getLong(StateExport.SESSION_OFFSET), state.getInt(StateExport.LEVEL_OFFSET),
+                state.getInt(StateExport.ROUND_OFFSET), state.getInt(StateExport.CURRENT_OFFSET),
+                ((flags & StateExport.BOARD_TREASURE) != 0 ? "in its room" : "taken")));
+
+        for(int actor = 0; actor < state.getInt(StateExport.ACTOR_COUNT_OFFSET); actor++) {
+            int offset = StateExport.ACTORS_OFFSET + actor * StateExport.ACTOR_FIELDS * Integer.BYTES;
+            int actorFlags = state.getInt(offset + 24);
+
+            if(state.getInt(offset + 4) == StateExport.TYPE_FOE) {
+                text.append(String.format("  Foe at (%d, %d), %s%n", state.getInt(offset + 8), state.getInt(offset + 12),
+                        ((flags & StateExport.FOE_AWAKE) != 0 ? "awake" : "asleep")));
+            } else {
+                text.append(String.format("  Player %d at (%d, %d), injury %d, fatigue %d%s%s%s%n",
+                        state.getInt(offset), state.getInt(offset + 8), state.getInt(offset + 12),
+                        state.getInt(offset + 16), state.getInt(offset + 20),
+                        ((actorFlags & StateExport.TREASURE) != 0 ? ", has the treasure" : ""),
+                        ((actorFlags & StateExport.SAFE) != 0 ? ", safe" : ""),
+                        ((actorFlags & StateExport.ALIVE) != 0 ? "" : ", dead")));
+            }
+        }
+
+        if((flags & StateExport.HAS_WALLS) != 0) {
+            appendBoard(text, state);
+        }
+        return text.toString();
+    }
+
+    // appendBoard(StringBuilder, ByteBuffer): Draws the walls revealed so far, and the actors, one text row per wall
+    //    row and cell row.
+    private static void appendBoard(StringBuilder text, ByteBuffer state) {
+        int size = GameBoard.SIZE;
+        int row = size + 1;
+        int edges = StateExport.EDGES;
+
+        for(int y = 0; y <= size; y++) {
+            StringBuilder walls = new StringBuilder("  +");
+            StringBuilder cells = new StringBuilder("  ");
+
+            for(int x = 0; x < size; x++) {
+                int index = StateExport.WALLS_OFFSET + y * row + x;
+                boolean north = state.get(index + edges) != 0 && state.get(index + 3 * edges) != 0;
+                walls.append(north ? "--+" : "  +");
+            }
+            for(int x = 0; x <= size && y < size; x++) {
+                int index = StateExport.WALLS_OFFSET + y * row + x;
+                boolean west = state.get(index) != 0 && state.get(index + 2 * edges) != 0;
+                cells.append(west ? '|' : ' ');
+                if(x < size) {
+                    cells.append(occupant(state, x, y));
+                }
+            }
+
+            text.append(walls).append(System.lineSeparator());
+            if(y < size) {
+                text.append(cells).append(System.lineSeparator());
+            }
+        }
+    }
+
+    // occupant(ByteBuffer, int, int): Two characters for what is in cell (x, y): an actor, the treasure room, or
+    //    nothing.
+    private static String occupant(ByteBuffer state, int x, int y) {
+        for(int actor = 0; actor < state.getInt(StateExport.ACTOR_COUNT_OFFSET); actor++) {
+            int offset = StateExport.ACTORS_OFFSET + actor * StateExport.ACTOR_FIELDS * Integer.BYTES;
+            if(state.getInt(offset + 8) == x && state.getInt(offset + 12) == y) {
+                return (state.getInt(offset + 4) == StateExport.TYPE_FOE ? "F " : "P" + state.getInt(offset));
+            }
+        }
+
+        boolean treasureRoom = state.getInt(StateExport.TREASURE_X_OFFSET) == x
+                && state.getInt(StateExport.TREASURE_Y_OFFSET) == y;
+        return (treasureRoom ? "T " : "  ");
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/* Class - SweepRunner
+ *
+ *     Plays many headless games for every combination of a grid of Rules values, and writes how they went to a CSV
+ *     file, one row per combination as soon as it finishes. Used to balance the numbers in Rules.
+ *
+ *     Usage: SweepRunner <output.csv> <games per combination> [rule=v1,v2,...]... [seed=N] [heatmap=DIRECTORY]
+ *     e.g.   SweepRunner sweep.csv 1000 fatalInjury=2,3,4 awakenRange=2,3
+ *     Rules that aren't given keep their DEFAULT value. Every row has the share of games the players and the Foe
+ *     won, how many were unfinished, the mean rounds of the finished ones, and foeKillRate: the share of players the
+ *     Foe killed, over all games. With heatmap=DIRECTORY, where every game's moves, wall bumps, attacks, deaths and
+ *     steals happened is counted over the whole sweep and written there, see HeatMap.
+ *
+ *     Games run on GameState, spread over all cores. Every combination plays the same mazes (game i always uses the
+ *     same seed), so differences between rows come from the rules rather than from luck.
+ *     Every player is a GreedyBot.
+ */
+public final class SweepRunner {
+    // Constants
+
+    //    MAX_ROUNDS: Rounds after which a game is given up on and counted as unfinished.
+    public static final int MAX_ROUNDS = 500;
+
+    //    PLAYERS: Number of players in every game.
+    private static final int PLAYERS = 2;
+
+    //    GAMES_PER_TASK: Games a task plays itself instead of splitting further.
+    private static final int GAMES_PER_TASK = 16;
+
+    //    SEED_ARGUMENT: Prefix of the seed argument.
+    private static final String SEED_ARGUMENT = "seed=";
+
+    //    HEATMAP_ARGUMENT: Prefix of the argument naming the directory heat maps are written to.
+    private static final String HEATMAP_ARGUMENT = "heatmap=";
+
+    //    GOLDEN_GAMMA: Spreads consecutive game numbers over the seed space.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    //    PLAYER_WINS, FOE_WINS, UNFINISHED, ROUNDS, DEATHS: Indices of the totals returned by a GameRange, and their count.
+    private static final int PLAYER_WINS = 0;
+    private static final int FOE_WINS = 1;
+    private static final int UNFINISHED = 2;
+    private static final int ROUNDS = 3;
+    private static final int DEATHS = 4;
+    private static final int TOTALS = 5;
+
+
+    // main: Runs the sweep.
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: SweepRunner <output.csv> <games per combination> [rule=v1,v2,...]... [seed=N] [heatmap=DIRECTORY]");
+            System.exit(1);
+        }
+
+        int games = Integer.parseInt(args[1]);
+        long seed = System.nanoTime();
+        List<String> names = new ArrayList<String>();
+        List<int[]> values = new ArrayList<int[]>();
+        String heatMapDirectory = null;
+
+        for(int i = 2; i < args.length; i++) {
+            if(args[i].startsWith(SEED_ARGUMENT)) {
+                seed = Long.parseLong(args[i].substring(SEED_ARGUMENT.length()));
+                continue;
+            }
+            if(args[i].startsWith(HEATMAP_ARGUMENT)) {
+                heatMapDirectory = args[i].substring(HEATMAP_ARGUMENT.length());
+                continue;
+            }
+
+            String[] parts = args[i].split("=", 2);
+            if(parts.length != 2) {
+                throw new IllegalArgumentException("Expected rule=v1,v2,... but got: " + args[i]);
+            }
+
+            Rules.DEFAULT.get(parts[0]);
+            names.add(parts[0]);
+            values.add(Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray());
+        }
+
+        HeatMap heatMap = (heatMapDirectory == null ? null : new HeatMap(GameBoard.SIZE));
+
+        try(PrintWriter out = new PrintWriter(new FileWriter(args[0]))) {
+            out.println(String.join(",", Rules.NAMES) + ",games,playerWinRate,foeWinRate,unfinished,meanRounds,foeKillRate");
+            out.flush();
+
+            int[] position = new int[names.size()];
+            boolean done = false;
+
+            // Count through the grid like an odometer, the last rule changing fastest.
+            while(!done) {
+                Rules rules = Rules.DEFAULT;
+                for(int i = 0; i < names.size(); i++) {
+                    rules = rules.with(names.get(i), values.get(i)[position[i]]);
+                }
+
+                long[] totals = ForkJoinPool.commonPool().invoke(new GameRange(rules, seed, heatMap, 0, games));
+                out.println(row(rules, games, totals));
+                out.flush();
+
+                done = true;
+                for(int i = names.size() - 1; i >= 0 && done; i--) {
+                    if(++position[i] < values.get(i).length) {
+                        done = false;
+                    } else {
+                        position[i] = 0;
+                    }
+                }
+            }
+        }
+
+        if(heatMap != null) {
+            heatMap.export(Paths.get(heatMapDirectory));
+        }
+    }
+
+    // row(Rules, int, long[]): Formats the CSV row of one combination.
+    private static String row(Rules rules, int games, long[] totals) {
+        StringBuilder row = new StringBuilder();
+
+        for(String name : Rules.NAMES) {
+            row.append(rules.get(name)).append(',');
+        }
+
+        long finished = games - totals[UNFINISHED];
+        row.append(games).append(',')
+                .append(String.format("%.4f", (double)totals[PLAYER_WINS] / games)).append(',')
+                .append(String.format("%.4f", (double)totals[FOE_WINS] / games)).append(',')
+                .append(totals[UNFINISHED]).append(',')
+                .append(String.format("%.2f", finished == 0 ? 0d : (double)totals[ROUNDS] / finished)).append(',')
+                .append(String.format("%.4f", (double)totals[DEATHS] / ((long)games * PLAYERS)));
+
+        return row.toString();
+    }
+
+    // playGame(Rules, long, HeatMap): Plays one game, returning its totals. Counts it in 'heatMap' unless it is null.
+    private static long[] playGame(Rules rules, long seed, HeatMap heatMap) {
+        GameState state = GameState.deal(rules, PLAYERS, seed);
+        state.setHeatMap(heatMap);
+        BotView view = new BotView(state);
+        GreedyBot bot = new GreedyBot();
+
+        while(!state.isOver() && state.getRound() < MAX_ROUNDS) {
+            state.step(view.toAction(bot.chooseMove(view)));
+        }
+
+        long[] totals = new long[TOTALS];
+        if(!state.isOver()) {
+            totals[UNFINISHED] = 1;
+        } else {
+            totals[state.getWinner() == state.getActorId(0) ? FOE_WINS : PLAYER_WINS] = 1;
+            totals[ROUNDS] = state.getRound();
+        }
+
+        // Renewals only heal the living, so whoever is dead now was killed by the Foe.
+        for(int actor = 1; actor < state.getActorCount(); actor++) {
+            if(!state.isAlive(actor)) {
+                ++totals[DEATHS];
+            }
+        }
+        return totals;
+    }
+
+
+    // Private Classes
+
+    // GameRange: Plays games [from, to) of one combination, splitting the range over the pool while it's large.
+    private static final class GameRange extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Rules rules;
+        private final long seed;
+        private final HeatMap heatMap;
+        private final int from, to;
+
+        private GameRange(Rules rules, long seed, HeatMap heatMap, int from, int to) {
+            this.rules = rules;
+            this.seed = seed;
+            this.heatMap = heatMap;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if(to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                GameRange left = new GameRange(rules, seed, heatMap, from, middle);
+                left.fork();
+                long[] totals = new GameRange(rules, seed, heatMap, middle, to).compute();
+                long[] leftTotals = left.join();
+
+                for(int i = 0; i < totals.length; i++) {
+                    totals[i] += leftTotals[i];
+                }
+                return totals;
+            }
+
+            long[] totals = new long[TOTALS];
+            for(int game = from; game < to; game++) {
+                long[] result = playGame(rules, seed + game * GOLDEN_GAMMA, heatMap);
+                for(int i = 0; i < totals.length; i++) {
+                    totals[i] += result[i];
+                }
+            }
+            return totals;
+        }
+    }
+}
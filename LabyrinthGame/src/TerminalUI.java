@@ -0,0 +1,475 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Class - TerminalUI
+ *
+ *    An IGameEventHandler that plays in a text terminal, for machines without a display (e.g. over SSH).
+ *    The maze, revealed walls, secret rooms and actors are drawn with ANSI cursor addressing. The screen is kept as a
+ *    grid of characters, and only the characters that changed since the last draw are sent, so a move costs a few
+ *    dozen bytes. On boards larger than the viewport, the view only scrolls when the active player gets close to its
+ *    edge, instead of on every move.
+ *
+ *    Keys: W/A/S/D or the arrow keys move the active player. Before anyone has a turn they move a cursor instead,
+ *    and E (or Enter) picks the cell under it. N or Space is NEXT, R is RESET and Q quits.
+ *
+ * Patterns:
+ *    This is the 'View' in the Model-Controller-View pattern, like BoardGUI.
+ */
+public final class TerminalUI implements IGameEventHandler {
+    // Constants
+
+    //    VIEWPORT_SIZE: Largest part of the board shown at once, in cells per side.
+    private static final int VIEWPORT_SIZE = 16;
+
+    //    SCROLL_MARGIN: How close the active player may get to the edge of the view before it scrolls.
+    private static final int SCROLL_MARGIN = 2;
+
+    //    MESSAGE_LINES, MESSAGE_WIDTH: Size of the text area below the maze.
+    private static final int MESSAGE_LINES = 6;
+    private static final int MESSAGE_WIDTH = 48;
+
+    //    CELL_WIDTH: Characters per cell: one for the west wall and two for the contents.
+    private static final int CELL_WIDTH = 3;
+
+    //    ESCAPE: ANSI Control Sequence Introducer.
+    private static final String ESCAPE = "\033[";
+
+    //    ACTOR_LABELS, ROOM_LABELS: How actors and secret rooms are drawn, by ID.
+    private static final String[] ACTOR_LABELS = {"FF", "P1", "P2"};
+    private static final String[] ROOM_LABELS = {"$$", "H1", "H2"};
+
+    //    CURSOR_LABEL: How the cursor is drawn on an empty cell.
+    private static final String CURSOR_LABEL = "<>";
+
+    //    ORIGIN: Where the cursor and the treasure room start after the display is cleared.
+    private static final Cell ORIGIN = new Cell();
+
+
+    // Private Fields
+
+    //    in, out: Where keys are read from and the screen is written to.
+    private final InputStream in;
+    private final PrintStream out;
+
+    //    rawMode: Whether the terminal sends keys as they are pressed, instead of a line at a time.
+    private boolean rawMode = false;
+
+    //    subscriber: A subscribed input packet that gets signed once an input is detected.
+    private InputPacket subscriber;
+
+    //    subscription: The wait 'subscriber' was subscribed for, see InputPacket.offer().
+    private long subscription;
+
+    //    screen, shown: The characters that should be on screen, and the ones that are. Null until the first draw.
+    private char[][] screen;
+    private char[][] shown;
+
+    //    bytesWritten: Total bytes sent to the terminal.
+    private long bytesWritten;
+    public synchronized long getBytesWritten() { return bytesWritten; }
+
+    //    messages: The last lines of text displayed.
+    private final ArrayDeque<String> messages = new ArrayDeque<String>();
+
+    //    actorPositions, roomPositions: Cached positions of the visible actors and the secret rooms, by ID.
+    private final Map<Integer, Cell> actorPositions = new HashMap<Integer, Cell>();
+    private final Map<Integer, Cell> roomPositions = new HashMap<Integer, Cell>();
+
+    //    treasureRoomPosition, treasureRoomVisible: Position of the treasure room, and whether it is shown.
+    private Cell treasureRoomPosition = new Cell();
+    private boolean treasureRoomVisible = false;
+
+    //    board: The last GameBoard sent, used to draw the walls.
+    private GameBoard board;
+
+    //    viewX, viewY: Board position of the top-left cell of the view.
+    private int viewX = 0, viewY = 0;
+
+    //    focusId: ID of the actor whose turn it is, -1 for none.
+    private int focusId = -1;
+
+    //    cursor: Cell picked with E while no one has the turn.
+    private Cell cursor = new Cell(0, 0);
+
+
+    // Constructor(): Plays on the terminal this process was started from.
+    public TerminalUI() {
+        this(System.in, System.out);
+        enableRawMode();
+    }
+
+    // Constructor(InputStream, PrintStream): Reads keys from 'in' and draws to 'out'.
+    public TerminalUI(InputStream in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+
+        Thread inputThread = new Thread(this::readInput, "Terminal input");
+        inputThread.setDaemon(true);
+        inputThread.start();
+
+        render();
+    }
+
+
+    // Private Methods
+
+    // enableRawMode(): Asks the terminal to send keys as they are pressed and not echo them, and to go back to normal
+    //    when the game exits. If that isn't possible, keys are read a line at a time.
+    private void enableRawMode() {
+        try {
+            String settings = stty("-g").trim();
+            stty("-icanon", "-echo", "min", "1");
+            rawMode = true;
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                out.print(ESCAPE + "?25h" + ESCAPE + (screenHeight() + 1) + ";1H");
+                out.flush();
+                try {
+                    stty(settings);
+                } catch (IOException | InterruptedException exception) {
+                    System.out.println("Could not restore the terminal.");
+                }
+            }));
+        } catch (IOException | InterruptedException exception) {
+            System.out.println("Could not switch the terminal to raw mode; end every key with Enter.");
+        }
+    }
+
+    // stty(String...): Runs stty on the controlling terminal and returns what it printed.
+    private static String stty(String... arguments) throws IOException, InterruptedException {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "stty";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+
+        Process process = new ProcessBuilder(command).redirectInput(new File("/dev/tty")).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+
+        if(process.waitFor() != 0) {
+            throw new IOException("stty failed");
+        }
+        return output;
+    }
+
+    // readInput(): Reads keys until the input ends. Runs on its own thread.
+    private void readInput() {
+        int escape = 0;
+
+        try {
+            int key;
+            while((key = in.read()) != -1) {
+                // Arrow keys arrive as ESC [ A to D.
+                if(key == 27) {
+                    escape = 1;
+                } else if (escape == 1 && key == '[') {
+                    escape = 2;
+                } else if (escape == 2) {
+                    escape = 0;
+                    switch(key) {
+                        case 'A' -> keyPressed('w');
+                        case 'B' -> keyPressed('s');
+                        case 'C' -> keyPressed('d');
+                        case 'D' -> keyPressed('a');
+                        default -> { }
+                    }
+                } else {
+                    escape = 0;
+                    keyPressed(Character.toLowerCase((char)key));
+                }
+            }
+        } catch (IOException exception) {
+            System.out.println("Could not read the keyboard: " + exception.getMessage());
+        }
+    }
+
+    // keyPressed(char): Turns a key into an input, or moves the cursor.
+    private synchronized void keyPressed(char key) {
+        switch(key) {
+            case 'w' -> direction(0, -1);
+            case 's' -> direction(0, 1);
+            case 'a' -> direction(-1, 0);
+            case 'd' -> direction(1, 0);
+            case 'n', ' ' -> sign(EventType.NEXT, null);
+            case 'r' -> sign(EventType.RESET, null);
+            case 'e' -> sign(EventType.CELL, cursor);
+            case '\r', '\n' -> {
+                if(rawMode) {
+                    sign(EventType.CELL, cursor);
+                }
+            }
+            case 'q' -> System.exit(0);
+            default -> { }
+        }
+    }
+
+    // direction(int, int): Moves the active player one cell, or the cursor if no one has the turn.
+    private void direction(int dX, int dY) {
+        Cell position = (focusId >= 0 ? actorPositions.get(focusId) : null);
+
+        if(position != null) {
+            sign(EventType.CELL, new Cell(position.x + dX, position.y + dY));
+        } else {
+            int limit = boardSize() - 1;
+            cursor = new Cell(Math.max(0, Math.min(limit, cursor.x + dX)), Math.max(0, Math.min(limit, cursor.y + dY)));
+            follow(cursor);
+            render();
+        }
+    }
+
+    // sign(EventType, Cell): Hands an input to the current subscriber and signs it.
+    private void sign(EventType type, Cell cell) {
+        if(subscriber != null) {
+            subscriber.offer(subscription, type, cell);
+
+            subscriber = null;
+        }
+    }
+
+    // boardSize(): Size of the board being displayed.
+    private int boardSize() {
+        return (board == null ? GameBoard.SIZE : board.getSize());
+    }
+
+    // viewSize(): Cells per side of the view.
+    private int viewSize() {
+        return Math.min(VIEWPORT_SIZE, boardSize());
+    }
+
+    // screenHeight(): Lines used on screen.
+    private int screenHeight() {
+        return 2 * viewSize() + 2 + MESSAGE_LINES;
+    }
+
+    // follow(Cell): Scrolls the view to center 'position' if it got within SCROLL_MARGIN of an edge.
+    private void follow(Cell position) {
+        int size = viewSize();
+        int margin = Math.min(SCROLL_MARGIN, (size - 1) / 2);
+
+        if(position.x >= viewX + margin && position.x < viewX + size - margin
+                && position.y >= viewY + margin && position.y < viewY + size - margin) {
+            return;
+        }
+
+        int limit = Math.max(0, boardSize() - size);
+        viewX = Math.max(0, Math.min(limit, position.x - size / 2));
+        viewY = Math.max(0, Math.min(limit, position.y - size / 2));
+    }
+
+    // wallVisible(int, int, boolean): Whether the west (vertical) or north (horizontal) wall of board cell (x, y) is shown.
+    private boolean wallVisible(int x, int y, boolean vertical) {
+        int size = boardSize();
+        boolean outside = (vertical ? (x == 0 || x == size) && y < size : (y == 0 || y == size) && x < size);
+
+        if(board == null || x > size || y > size) {
+            return outside;
+        }
+        return board.getWall(x, y, vertical) && (outside || board.getRevealed(x, y, vertical));
+    }
+
+    // label(int, int): The two characters drawn inside board cell (x, y).
+    private String label(int x, int y) {
+        for(Map.Entry<Integer, Cell> actor : actorPositions.entrySet()) {
+            if(actor.getValue().x == x && actor.getValue().y == y) {
+                return ACTOR_LABELS[actor.getKey()];
+            }
+        }
+        if(treasureRoomVisible && treasureRoomPosition.x == x && treasureRoomPosition.y == y) {
+            return ROOM_LABELS[0];
+        }
+        for(Map.Entry<Integer, Cell> room : roomPositions.entrySet()) {
+            if(room.getValue().x == x && room.getValue().y == y) {
+                return ROOM_LABELS[room.getKey()];
+            }
+        }
+        if(focusId < 0 && cursor.x == x && cursor.y == y) {
+            return CURSOR_LABEL;
+        }
+        return "  ";
+    }
+
+    // render(): Works out what the screen should show, and sends the characters that differ from what it shows now.
+    private synchronized void render() {
+        TurnTrace.Render trace = TurnTrace.framePublished();
+        int size = viewSize();
+        int height = screenHeight();
+        int width = Math.max(CELL_WIDTH * size + 1, MESSAGE_WIDTH);
+        StringBuilder output = new StringBuilder();
+
+        if(screen == null || screen.length != height || screen[0].length != width) {
+            screen = new char[height][width];
+            shown = new char[height][width];
+            for(char[] line : shown) {
+                Arrays.fill(line, ' ');
+            }
+            output.append(ESCAPE).append("?25l").append(ESCAPE).append("2J");
+        }
+
+        for(char[] line : screen) {
+            Arrays.fill(line, ' ');
+        }
+
+        for(int i = 0; i <= size; i++) {
+            for(int j = 0; j <= size; j++) {
+                int row = 2 * i;
+                int column = CELL_WIDTH * j;
+
+                screen[row][column] = '+';
+                if(j < size && wallVisible(viewX + j, viewY + i, false)) {
+                    screen[row][column + 1] = '-';
+                    screen[row][column + 2] = '-';
+                }
+                if(i < size) {
+                    if(wallVisible(viewX + j, viewY + i, true)) {
+                        screen[row + 1][column] = '|';
+                    }
+                    if(j < size) {
+                        String label = label(viewX + j, viewY + i);
+                        screen[row + 1][column + 1] = label.charAt(0);
+                        screen[row + 1][column + 2] = label.charAt(1);
+                    }
+                }
+            }
+        }
+
+        int row = 2 * size + 2;
+        for(String message : messages) {
+            message.getChars(0, Math.min(message.length(), width), screen[row++], 0);
+        }
+
+        for(int i = 0; i < height; i++) {
+            int j = 0;
+            while(j < width) {
+                if(screen[i][j] == shown[i][j]) {
+                    ++j;
+                    continue;
+                }
+
+                output.append(ESCAPE).append(i + 1).append(';').append(j + 1).append('H');
+                while(j < width && screen[i][j] != shown[i][j]) {
+                    output.append(screen[i][j]);
+                    shown[i][j] = screen[i][j];
+                    ++j;
+                }
+            }
+        }
+
+        if(output.length() > 0) {
+            output.append(ESCAPE).append(height + 1).append(";1H");
+            out.print(output);
+            out.flush();
+            bytesWritten += output.length();
+        }
+
+        TurnTrace.framePainted(trace);
+        StartupProbe.boardRendered();
+    }
+
+
+    // Interface Fulfillment - IGameEventHandler
+
+    // @Override displayText(String): Adds text to the message area, scrolling older lines out.
+    @Override
+    public synchronized void displayText(String text) {
+        for(String line : text.split("\n")) {
+            messages.addLast(line);
+            if(messages.size() > MESSAGE_LINES) {
+                messages.removeFirst();
+            }
+        }
+        render();
+    }
+
+    // @Override hibernate(): Lets go of the board. The screen isn't drawn again until the session wakes and sends it.
+    @Override
+    public synchronized void hibernate() {
+        board = null;
+    }
+
+    // @Override clearDisplay(): Clears the board and messages.
+    @Override
+    public synchronized void clearDisplay() {
+        actorPositions.clear();
+        roomPositions.clear();
+        messages.clear();
+
+        treasureRoomPosition = ORIGIN;
+        treasureRoomVisible = false;
+
+        board = null;
+        viewX = 0;
+        viewY = 0;
+        focusId = -1;
+        cursor = ORIGIN;
+
+        render();
+    }
+
+    // @Override playSound(SoundType): Terminals have no sound; only a hit wall rings the bell.
+    @Override
+    public synchronized void playSound(SoundType soundType) {
+        if(soundType == SoundType.WALL) {
+            out.print('\007');
+            out.flush();
+            ++bytesWritten;
+        }
+    }
+
+    // @Override subscribeInput(InputPacket): Subscribes an InputPacket for later signing.
+    @Override
+    public synchronized void subscribeInput(InputPacket inputPacket) {
+        if(this.subscriber != null && this.subscriber != inputPacket) {
+            subscriber.offer(subscription, EventType.ORPHAN, null);
+        }
+
+        subscription = inputPacket.subscription();
+        subscriber = inputPacket;
+    }
+
+    // @Override actorDataUpdate(Actor): Draws an actor in its new position.
+    @Override
+    public synchronized void actorDataUpdate(Actor actor) {
+        if(actor.getVisibility()) {
+            actorPositions.put(actor.getId(), actor.getPosition());
+        } else {
+            actorPositions.remove(actor.getId());
+        }
+
+        if(actor.getId() == focusId) {
+            follow(actor.getPosition());
+        }
+
+        render();
+    }
+
+    // @Override focusActor(Actor): Keeps the actor whose turn it is in view; the movement keys now move them.
+    @Override
+    public synchronized void focusActor(Actor actor) {
+        focusId = actor.getId();
+        follow(actor.getPosition());
+        render();
+    }
+
+    // @Override boardDataUpdate(GameBoard): Draws newly revealed walls, secret rooms and the treasure room.
+    @Override
+    public synchronized void boardDataUpdate(GameBoard board) {
+        List<SecretRoom> secretRooms = board.getSecretRooms();
+
+        this.board = board;
+
+        for(SecretRoom secretRoom : secretRooms) {
+            roomPositions.put(secretRoom.getId(), secretRoom.getPosition());
+        }
+
+        treasureRoomPosition = board.getTreasureRoom();
+        treasureRoomVisible = board.getTreasureReturned();
+
+        render();
+    }
+}
@@ -0,0 +1,284 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/* Class - TournamentRunner
+ *
+ *     Plays IBotStrategy implementations against each other in a round-robin tournament, then prints their Elo
+ *     ratings, how many games per second were played, and how long each strategy took to decide a move.
+ *
+ *     Usage: TournamentRunner <games per pairing> [strategy]... [seed=N]
+ *     e.g.   TournamentRunner 2000 greedy cautious random
+ *     Strategies: see STRATEGIES; without any, all but "mcts" play.
+ *
+ *     Every pair of strategies plays the given number of games on GameState, swapping who moves first every game.
+ *     Games are spread over all cores; each has its own seed, so a tournament can be repeated exactly with seed=N.
+ *     A game the Foe wins, or that runs past SweepRunner.MAX_ROUNDS, is a draw.
+ *     Ratings are worked out afterwards by going through the games in order, so they don't depend on scheduling.
+ */
+public final class TournamentRunner {
+    // Constants
+
+    //    MCTS_BUDGET_MILLIS: Thinking time per move of "mcts"; short, as a tournament plays many games.
+    private static final long MCTS_BUDGET_MILLIS = 20;
+
+    //    STRATEGIES: The strategies that can be entered, by name. Each is created with a seed for its game.
+    private static final Map<String, LongFunction<IBotStrategy>> STRATEGIES = new LinkedHashMap<String, LongFunction<IBotStrategy>>();
+    static {
+        STRATEGIES.put("greedy", (long seed) -> new GreedyBot());
+        STRATEGIES.put("cautious", (long seed) -> new CautiousBot());
+        STRATEGIES.put("random", (long seed) -> new RandomBot(seed));
+        STRATEGIES.put("mcts", (long seed) -> new MonteCarloAgent(ForkJoinPool.commonPool(), MCTS_BUDGET_MILLIS));
+    }
+
+    //    PLAYERS: Number of players in every game.
+    private static final int PLAYERS = 2;
+
+    //    INITIAL_RATING, K_FACTOR: Elo rating every strategy starts at, and how much one game can move it.
+    private static final double INITIAL_RATING = 1500d;
+    private static final double K_FACTOR = 16d;
+
+    //    DRAW: Outcome of a game no strategy won.
+    private static final int DRAW = -1;
+
+    //    GAMES_PER_TASK: Games a task plays itself instead of splitting further.
+    private static final int GAMES_PER_TASK = 16;
+
+    //    PERCENTILES: Decision latency percentiles reported.
+    private static final double[] PERCENTILES = {50d, 90d, 99d, 100d};
+
+    //    SEED_ARGUMENT: Prefix of the seed argument.
+    private static final String SEED_ARGUMENT = "seed=";
+
+    //    GOLDEN_GAMMA: Spreads consecutive game numbers over the seed space.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    //    NANOSECONDS: How many nanoseconds occur in a second and in a microsecond.
+    private static final double NANOSECONDS = 1e9d;
+    private static final double NANOSECONDS_PER_MICROSECOND = 1e3d;
+
+
+    // Private Fields
+
+    //    names: The strategies entered.
+    private final String[] names;
+
+    //    gamesPerPairing: Games every pair of strategies plays.
+    private final int gamesPerPairing;
+
+    //    seed: Seed the game seeds are derived from.
+    private final long seed;
+
+    //    pairings: The two strategies of every pairing, as indices into 'names'.
+    private final int[][] pairings;
+
+    //    outcomes: The winning strategy of every game, or DRAW.
+    private final int[] outcomes;
+
+
+    // Constructor(String[], int, long): Sets up a tournament between the named strategies.
+    private TournamentRunner(String[] names, int gamesPerPairing, long seed) {
+        this.names = names;
+        this.gamesPerPairing = gamesPerPairing;
+        this.seed = seed;
+
+        List<int[]> pairs = new ArrayList<int[]>();
+        for(int a = 0; a < names.length; a++) {
+            for(int b = a + 1; b < names.length; b++) {
+                pairs.add(new int[] {a, b});
+            }
+        }
+        this.pairings = pairs.toArray(new int[0][]);
+        this.outcomes = new int[pairings.length * gamesPerPairing];
+    }
+
+
+    // main: Runs a tournament and prints the results.
+    public static void main(String[] args) {
+        if(args.length < 1) {
+            System.err.println("Usage: TournamentRunner <games per pairing> [strategy]... [seed=N]");
+            System.exit(1);
+        }
+
+        int games = Integer.parseInt(args[0]);
+        long seed = System.nanoTime();
+        List<String> names = new ArrayList<String>();
+
+        for(int i = 1; i < args.length; i++) {
+            if(args[i].startsWith(SEED_ARGUMENT)) {
+                seed = Long.parseLong(args[i].substring(SEED_ARGUMENT.length()));
+            } else if (STRATEGIES.containsKey(args[i])) {
+                names.add(args[i]);
+            } else {
+                throw new IllegalArgumentException("Unknown strategy: " + args[i] + ", expected one of " + STRATEGIES.keySet());
+            }
+        }
+
+        if(names.isEmpty()) {
+            names.addAll(STRATEGIES.keySet());
+            names.remove("mcts");
+        }
+        if(names.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two strategies.");
+        }
+
+        new TournamentRunner(names.toArray(new String[0]), games, seed).run();
+    }
+
+
+    // Private Methods
+
+    // run(): Plays every game and prints the report.
+    private void run() {
+        long start = System.nanoTime();
+        LatencyLog[] latencies = ForkJoinPool.commonPool().invoke(new GameRange(0, outcomes.length));
+        double seconds = (System.nanoTime() - start) / NANOSECONDS;
+
+        double[] ratings = new double[names.length];
+        int[][] record = new int[names.length][3];
+        Arrays.fill(ratings, INITIAL_RATING);
+
+        for(int game = 0; game < outcomes.length; game++) {
+            int a = pairings[game / gamesPerPairing][0];
+            int b = pairings[game / gamesPerPairing][1];
+            double score = (outcomes[game] == a ? 1d : outcomes[game] == b ? 0d : 0.5d);
+            double expected = 1d / (1d + Math.pow(10d, (ratings[b] - ratings[a]) / 400d));
+
+            ratings[a] += K_FACTOR * (score - expected);
+            ratings[b] -= K_FACTOR * (score - expected);
+
+            if(outcomes[game] == DRAW) {
+                ++record[a][1];
+                ++record[b][1];
+            } else {
+                ++record[outcomes[game]][0];
+                ++record[outcomes[game] == a ? b : a][2];
+            }
+        }
+
+        System.out.printf("%d games in %.2f s: %.0f games/s on %d cores%n", outcomes.length, seconds,
+                outcomes.length / seconds, ForkJoinPool.commonPool().getParallelism());
+        System.out.printf("%-10s %7s %6s %6s %6s   decision latency (us) p50 / p90 / p99 / max%n",
+                "strategy", "elo", "wins", "draws", "losses");
+
+        for(int i = 0; i < names.length; i++) {
+            StringBuilder percentiles = new StringBuilder();
+            for(double percentile : PERCENTILES) {
+                percentiles.append(percentiles.length() == 0 ? "" : " / ")
+                        .append(String.format("%.1f", latencies[i].percentile(percentile) / NANOSECONDS_PER_MICROSECOND));
+            }
+
+            System.out.printf("%-10s %7.1f %6d %6d %6d   %s%n", names[i], ratings[i], record[i][0], record[i][1],
+                    record[i][2], percentiles);
+        }
+    }
+
+    // playGame(int, LatencyLog[]): Plays one game, records its outcome, and logs how long each decision took.
+    private void playGame(int game, LatencyLog[] latencies) {
+        long gameSeed = seed + game * GOLDEN_GAMMA;
+        int[] pairing = pairings[game / gamesPerPairing];
+
+        // Swap who moves first every game.
+        int[] seats = (game % 2 == 0 ? new int[] {-1, pairing[0], pairing[1]} : new int[] {-1, pairing[1], pairing[0]});
+        IBotStrategy[] strategies = new IBotStrategy[PLAYERS + 1];
+        for(int player = 1; player <= PLAYERS; player++) {
+            strategies[player] = STRATEGIES.get(names[seats[player]]).apply(gameSeed + player);
+        }
+
+        GameState state = GameState.deal(Rules.DEFAULT, PLAYERS, gameSeed);
+        BotView view = new BotView(state);
+
+        while(!state.isOver() && state.getRound() < SweepRunner.MAX_ROUNDS) {
+            int player = state.getCurrent();
+
+            long start = System.nanoTime();
+            Cell move = strategies[player].chooseMove(view);
+            latencies[seats[player]].add(System.nanoTime() - start);
+
+            state.step(view.toAction(move));
+        }
+
+        int winner = state.getWinner();
+        outcomes[game] = (state.isOver() && winner != state.getActorId(0) ? seats[winner] : DRAW);
+    }
+
+
+    // Private Classes
+
+    // GameRange: Plays games [from, to), splitting the range over the pool while it's large.
+    //    Returns the decision latencies of every strategy.
+    private final class GameRange extends RecursiveTask<LatencyLog[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        private GameRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LatencyLog[] compute() {
+            if(to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                GameRange left = new GameRange(from, middle);
+                left.fork();
+                LatencyLog[] latencies = new GameRange(middle, to).compute();
+                LatencyLog[] leftLatencies = left.join();
+
+                for(int i = 0; i < latencies.length; i++) {
+                    latencies[i].addAll(leftLatencies[i]);
+                }
+                return latencies;
+            }
+
+            LatencyLog[] latencies = new LatencyLog[names.length];
+            for(int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyLog();
+            }
+            for(int game = from; game < to; game++) {
+                playGame(game, latencies);
+            }
+            return latencies;
+        }
+    }
+
+    // LatencyLog: Every latency measured for one strategy, in nanoseconds.
+    private static final class LatencyLog {
+        private long[] values = new long[64];
+        private int count;
+
+        // add(long): Logs one latency.
+        private void add(long value) {
+            if(count == values.length) {
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            values[count++] = value;
+        }
+
+        // addAll(LatencyLog): Logs every latency of another log.
+        private void addAll(LatencyLog other) {
+            if(count + other.count > values.length) {
+                values = Arrays.copyOf(values, Math.max(2 * values.length, count + other.count));
+            }
+            System.arraycopy(other.values, 0, values, count, other.count);
+            count += other.count;
+        }
+
+        // percentile(double): The latency 'percentile' percent of the decisions were at or under (nearest rank).
+        private double percentile(double percentile) {
+            if(count == 0) {
+                return 0d;
+            }
+
+            Arrays.sort(values, 0, count);
+            int rank = (int)Math.ceil(percentile / 100d * count);
+            return values[Math.max(0, Math.min(count, rank) - 1)];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/* Class - TraceAnalyzer
+ *
+ *     Summarises the TurnTrace events of a flight recording: for every phase, how many times it happened and its
+ *     latency percentiles, in milliseconds.
+ *
+ *     Usage: TraceAnalyzer <recording.jfr>
+ */
+public final class TraceAnalyzer {
+    // Constants
+
+    //    EVENT_PREFIX: Name prefix of the TurnTrace events; other events in the recording are ignored.
+    private static final String EVENT_PREFIX = "labyrinth.";
+
+    //    PERCENTILES: The percentiles printed for every phase.
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    //    NANOSECONDS_PER_MILLISECOND: How many nanoseconds occur in a millisecond.
+    private static final double NANOSECONDS_PER_MILLISECOND = 1e6d;
+
+    //    INITIAL_CAPACITY: Durations first reserved per phase.
+    private static final int INITIAL_CAPACITY = 1024;
+
+
+    // main: Prints the latency percentiles of every phase in a recording.
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1) {
+            System.err.println("Usage: TraceAnalyzer <recording.jfr>");
+            System.exit(1);
+        }
+
+        Map<String, Durations> phases = new TreeMap<String, Durations>();
+        try(RecordingFile recording = new RecordingFile(Paths.get(args[0]))) {
+            while(recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String name = event.getEventType().getName();
+
+                if(name.startsWith(EVENT_PREFIX)) {
+                    phases.computeIfAbsent(name.substring(EVENT_PREFIX.length()), (String phase) -> new Durations())
+                            .add(event.getDuration().toNanos());
+                }
+            }
+        }
+
+        if(phases.isEmpty()) {
+            System.out.println("No TurnTrace events recorded.");
+            return;
+        }
+
+        StringBuilder header = new StringBuilder("phase,count");
+        for(double percentile : PERCENTILES) {
+            header.append(",p").append((int)percentile).append(" ms");
+        }
+        System.out.println(header.append(",max ms"));
+
+        for(Map.Entry<String, Durations> phase : phases.entrySet()) {
+            long[] sorted = phase.getValue().sorted();
+            StringBuilder line = new StringBuilder(phase.getKey()).append(',').append(sorted.length);
+
+            for(double percentile : PERCENTILES) {
+                line.append(String.format(",%.3f", percentile(sorted, percentile) / NANOSECONDS_PER_MILLISECOND));
+            }
+            line.append(String.format(",%.3f", sorted[sorted.length - 1] / NANOSECONDS_PER_MILLISECOND));
+            System.out.println(line);
+        }
+    }
+
+
+    // Private Methods
+
+    // percentile(long[], double): The nearest-rank percentile of sorted, non-empty values.
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int)Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+
+    // Private Classes
+
+    // Durations: A growable list of the durations of one phase, in nanoseconds.
+    private static final class Durations {
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int count = 0;
+
+        private void add(long value) {
+            if(count == values.length) {
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            values[count++] = value;
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
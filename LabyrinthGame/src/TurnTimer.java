@@ -0,0 +1,214 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/* Class - TurnTimer
+ *
+ *     Keeps the time limits of every session in the process on one thread: a player's turn ends as if they pressed
+ *     NEXT once they took longer than the turn limit, and the game over screen moves on by itself once it has waited
+ *     longer than its limit. Both are off until enable() is called, by Driver's "turn" and "gameover" arguments.
+ *
+ *     Deadlines are kept in a hashed timer wheel: WHEEL_SIZE slots of TICK_MILLIS each, a deadline hanging in the
+ *     slot of the tick it is due in (and waiting for the wheel to come round again if it is further off). Scheduling
+ *     and cancelling are constant time and every session reuses its own Deadline, so nothing is allocated, and the
+ *     thread only looks at one slot a tick however many sessions there are. Deadlines are therefore up to a tick late.
+ *
+ *     Expiry doesn't interrupt the gameplay thread; Session arms its InputPacket with the token of the deadline, and
+ *     the deadline expires the packet only while it is still armed with that token, see InputPacket.expire().
+ */
+public final class TurnTimer {
+    // Constants
+
+    //    TICK_MILLIS: How often the wheel turns, and so how late a deadline can be.
+    public static final long TICK_MILLIS = 50;
+
+    //    WHEEL_SIZE: Number of slots; deadlines up to WHEEL_SIZE * TICK_MILLIS away need no second turn of the wheel.
+    private static final int WHEEL_SIZE = 256;
+
+    //    SHARED: The timer every session uses.
+    public static final TurnTimer SHARED = new TurnTimer();
+
+
+    // Private Fields
+
+    //    turnMillis, gameOverMillis: The time limits, or 0 for none.
+    private static volatile long turnMillis = 0;
+    private static volatile long gameOverMillis = 0;
+    public static long getTurnMillis() { return turnMillis; }
+    public static long getGameOverMillis() { return gameOverMillis; }
+
+    //    slots: The first deadline due in each slot, linked to the rest. Guarded by this timer.
+    private final Deadline[] slots = new Deadline[WHEEL_SIZE];
+
+    //    tick: Number of ticks since the timer started. Guarded by this timer.
+    private long tick = 0;
+
+    //    nextToken: The last token handed out by nextToken(). Guarded by this timer.
+    private long nextToken = 0;
+
+    //    thread: Turns the wheel; started with the first deadline.
+    private Thread thread;
+
+
+    // Public Methods
+
+    // enable(long, long): Ends turns after 'turnMillis' and the game over screen after 'gameOverMillis', from now on.
+    //    Either can be 0 to leave it unlimited.
+    public static void enable(long turnMillis, long gameOverMillis) {
+        TurnTimer.turnMillis = Math.max(0, turnMillis);
+        TurnTimer.gameOverMillis = Math.max(0, gameOverMillis);
+    }
+
+    // nextToken(): A token no other deadline of this timer was or will be scheduled with, never 0.
+    public synchronized long nextToken() {
+        return ++nextToken;
+    }
+
+    // schedule(Deadline, long, long): Runs the deadline's action with 'token' once 'delayMillis' have passed, unless
+    //    it is cancelled first. A deadline that was already scheduled is moved.
+    public synchronized void schedule(Deadline deadline, long delayMillis, long token) {
+        unlink(deadline);
+
+        long ticks = Math.max(1, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        link(deadline, tick + ticks, token);
+
+        if(thread == null) {
+            thread = new Thread(this::run, "TurnTimer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // cancel(Deadline): Keeps the deadline from running, unless it already is.
+    public synchronized void cancel(Deadline deadline) {
+        unlink(deadline);
+    }
+
+    // transfer(Deadline, Deadline): Cancels 'from' and schedules 'to' in its place: due at the same tick, with the same
+    //    token. Returns false, leaving 'to' cancelled, if 'from' wasn't scheduled, e.g. as it already ran.
+    public synchronized boolean transfer(Deadline from, Deadline to) {
+        unlink(to);
+        if(!from.scheduled) {
+            return false;
+        }
+
+        unlink(from);
+        link(to, from.due, from.token);
+        return true;
+    }
+
+
+    // Private Methods
+
+    // link(Deadline, long, long): Puts a deadline that isn't scheduled into the slot of tick 'due', to run with
+    //    'token'. Guarded by this timer.
+    private void link(Deadline deadline, long due, long token) {
+        deadline.due = due;
+        deadline.token = token;
+
+        int slot = (int)(due % WHEEL_SIZE);
+        deadline.previous = null;
+        deadline.next = slots[slot];
+        if(slots[slot] != null) {
+            slots[slot].previous = deadline;
+        }
+        slots[slot] = deadline;
+        deadline.scheduled = true;
+    }
+
+    // unlink(Deadline): Takes a deadline out of its slot, if it is in one. Guarded by this timer.
+    private void unlink(Deadline deadline) {
+        if(!deadline.scheduled) {
+            return;
+        }
+
+        if(deadline.previous != null) {
+            deadline.previous.next = deadline.next;
+        } else {
+            slots[(int)(deadline.due % WHEEL_SIZE)] = deadline.next;
+        }
+        if(deadline.next != null) {
+            deadline.next.previous = deadline.previous;
+        }
+
+        deadline.previous = null;
+        deadline.next = null;
+        deadline.scheduled = false;
+    }
+
+    // run(): Turns the wheel every TICK_MILLIS, and runs the deadlines that came due. Runs on the timer thread.
+    private void run() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+        long nextTick = System.nanoTime() + tickNanos;
+
+        while(true) {
+            long wait = nextTick - System.nanoTime();
+            if(wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            nextTick += tickNanos;
+
+            // Collected under the lock, run outside it: an action may sign an input, which can wake a whole session.
+            Deadline due = advance();
+            while(due != null) {
+                Deadline next = due.nextDue;
+                due.nextDue = null;
+
+                try {
+                    due.action.accept(due.dueToken);
+                } catch (RuntimeException exception) {
+                    // One failing deadline mustn't stop the others.
+                    System.out.println("A deadline failed: " + exception);
+                }
+                due = next;
+            }
+        }
+    }
+
+    // advance(): Moves on one tick, and takes the deadlines due in it out of the wheel, linked by 'nextDue'.
+    private synchronized Deadline advance() {
+        ++tick;
+
+        Deadline due = null;
+        Deadline deadline = slots[(int)(tick % WHEEL_SIZE)];
+
+        while(deadline != null) {
+            Deadline next = deadline.next;
+            if(deadline.due <= tick) {
+                unlink(deadline);
+                deadline.dueToken = deadline.token;
+                deadline.nextDue = due;
+                due = deadline;
+            }
+            deadline = next;
+        }
+
+        return due;
+    }
+
+
+    // Public Classes
+
+    // Deadline: Something to run when time is up, scheduled again and again. Its action is passed the token it was
+    //    scheduled with, to tell whether it is still the one wanted.
+    public static final class Deadline {
+        private final LongConsumer action;
+
+        //    due, token, previous, next, scheduled: Where and when it is in the wheel. Guarded by the timer.
+        private long due;
+        private long token;
+        private Deadline previous, next;
+        private boolean scheduled;
+
+        //    nextDue, dueToken: Links the deadlines that came due in a tick, and the token they are run with. Only used
+        //    from the timer thread.
+        private Deadline nextDue;
+        private long dueToken;
+
+        // Constructor(LongConsumer): Creates a deadline that runs 'action' on the timer thread when it is due.
+        public Deadline(LongConsumer action) {
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* Class - TurnTrace
+ *
+ *     Custom JDK Flight Recorder events that follow a player's input from the click to the pixels it changes, split
+ *     into the phases it passes through:
+ *         InputHandoff: From the view signing the InputPacket to Session picking the input up.
+ *         RuleEvaluation: Session applying the input in playerMove() and doActorInteractions(), notifications included.
+ *         ModelNotification: The EventBus handing one model change to the view.
+ *         Render: From the view publishing a frame to it being painted.
+ *         InputToPixel: The whole way, from signing the input to painting the first frame it changed.
+ *     Every event carries the session, turn (round) and actor it happened in, so a slow turn can be told apart from a
+ *     slow phase. TraceAnalyzer turns a recording into latency percentiles per phase.
+ *
+ *     Record with e.g. java -XX:StartFlightRecording=filename=turns.jfr -jar out/labyrinth.jar. Unless a recording
+ *     has the events enabled, they are never committed and cost next to nothing.
+ *
+ *     The views and the render thread don't know which session or turn they draw for, so the gameplay thread keeps
+ *     its tags, and the input still waiting for its frame, in a thread-local.
+ */
+public final class TurnTrace {
+    // Private Fields
+
+    //    *_PROBE: Never committed; only asked whether a recording wants their type of event, so that nothing is
+    //    allocated while none does.
+    private static final InputHandoff HANDOFF_PROBE = new InputHandoff();
+    private static final RuleEvaluation EVALUATION_PROBE = new RuleEvaluation();
+    private static final ModelNotification NOTIFICATION_PROBE = new ModelNotification();
+    private static final Render RENDER_PROBE = new Render();
+    private static final InputToPixel INPUT_TO_PIXEL_PROBE = new InputToPixel();
+
+    //    TAGS: The session, turn and actor the current thread plays, and its input waiting for a frame.
+    private static final ThreadLocal<Tags> TAGS = ThreadLocal.withInitial(Tags::new);
+
+
+    // Public Methods
+
+    // tag(long, int, int): Tags the events of the current thread with a session, turn and actor from now on.
+    public static void tag(long session, int turn, int actor) {
+        Tags tags = TAGS.get();
+        tags.session = session;
+        tags.turn = turn;
+        tags.actor = actor;
+    }
+
+    // inputHandoff(), ruleEvaluation(), modelNotification(), inputToPixel(): Begins an event of the given type, to be
+    //    passed to commit() once it ends. Null if no recording wants it.
+    public static InputHandoff inputHandoff() {
+        return (HANDOFF_PROBE.isEnabled() ? begin(new InputHandoff()) : null);
+    }
+
+    public static RuleEvaluation ruleEvaluation() {
+        return (EVALUATION_PROBE.isEnabled() ? begin(new RuleEvaluation()) : null);
+    }
+
+    public static ModelNotification modelNotification() {
+        return (NOTIFICATION_PROBE.isEnabled() ? begin(new ModelNotification()) : null);
+    }
+
+    public static InputToPixel inputToPixel() {
+        return (INPUT_TO_PIXEL_PROBE.isEnabled() ? begin(new InputToPixel()) : null);
+    }
+
+    // commit(TurnEvent): Ends 'event' and commits it, tagged, if a recording wants it. Does nothing for null.
+    public static void commit(TurnEvent event) {
+        if(event == null) {
+            return;
+        }
+
+        event.end();
+        if(event.shouldCommit()) {
+            Tags tags = TAGS.get();
+            event.session = tags.session;
+            event.turn = tags.turn;
+            event.actor = tags.actor;
+            event.commit();
+        }
+    }
+
+    // inputReceived(InputHandoff, InputToPixel): Called by Session once it picked up an input the view signed; commits
+    //    the handoff and has the next frame published end 'inputToPixel'. Either may be null, if it wasn't traced.
+    public static void inputReceived(InputHandoff handoff, InputToPixel inputToPixel) {
+        commit(handoff);
+        TAGS.get().pending = inputToPixel;
+    }
+
+    // inputHandled(): Called by Session once it is done with an input. An input that changed nothing on screen has
+    //    no frame to wait for.
+    public static void inputHandled() {
+        TAGS.get().pending = null;
+    }
+
+    // framePublished(): Called by a view as it publishes a frame; begins its Render event, which takes over the input
+    //    waiting for a frame, if any. Null if no recording wants it.
+    public static Render framePublished() {
+        Tags tags = TAGS.get();
+        InputToPixel inputToPixel = tags.pending;
+        tags.pending = null;
+
+        if(inputToPixel == null && !RENDER_PROBE.isEnabled()) {
+            return null;
+        }
+
+        Render render = new Render();
+        render.session = tags.session;
+        render.turn = tags.turn;
+        render.actor = tags.actor;
+        render.inputToPixel = inputToPixel;
+        render.begin();
+        return render;
+    }
+
+    // framePainted(Render): Called by a view once the frame 'render' was begun for is painted, on any thread; ends
+    //    and commits it and the input that was waiting for it.
+    public static void framePainted(Render render) {
+        if(render == null) {
+            return;
+        }
+
+        render.end();
+        if(render.shouldCommit()) {
+            render.commit();
+        }
+
+        InputToPixel inputToPixel = render.inputToPixel;
+        if(inputToPixel != null) {
+            inputToPixel.end();
+            if(inputToPixel.shouldCommit()) {
+                inputToPixel.session = render.session;
+                inputToPixel.turn = render.turn;
+                inputToPixel.actor = render.actor;
+                inputToPixel.commit();
+            }
+        }
+    }
+
+
+    // Private Methods
+
+    // begin(E): Begins 'event' and returns it.
+    private static <E extends TurnEvent> E begin(E event) {
+        event.begin();
+        return event;
+    }
+
+
+    // Public Classes
+
+    // TurnEvent: The tags every event shares.
+    @Category("Labyrinth")
+    @StackTrace(false)
+    public static abstract class TurnEvent extends Event {
+        @Label("Session")
+        long session;
+
+        @Label("Turn")
+        int turn;
+
+        @Label("Actor")
+        int actor;
+    }
+
+    // InputHandoff: See above.
+    @Name("labyrinth.InputHandoff")
+    @Label("Input Handoff")
+    @Description("From the view signing an input to Session picking it up")
+    public static final class InputHandoff extends TurnEvent {
+    }
+
+    // RuleEvaluation: See above.
+    @Name("labyrinth.RuleEvaluation")
+    @Label("Rule Evaluation")
+    @Description("Session applying an input to the game, notifications included")
+    public static final class RuleEvaluation extends TurnEvent {
+    }
+
+    // ModelNotification: See above.
+    @Name("labyrinth.ModelNotification")
+    @Label("Model Notification")
+    @Description("The EventBus handing one model change to its subscribers")
+    public static final class ModelNotification extends TurnEvent {
+    }
+
+    // Render: See above. 'frame' is the frame sequence number the painting side waits for; 'inputToPixel' the input
+    //    this frame is the first to show. Neither is recorded.
+    @Name("labyrinth.Render")
+    @Label("Render")
+    @Description("From a view publishing a frame to it being painted")
+    public static final class Render extends TurnEvent {
+        transient long frame;
+        transient InputToPixel inputToPixel;
+    }
+
+    // InputToPixel: See above.
+    @Name("labyrinth.InputToPixel")
+    @Label("Input To Pixel")
+    @Description("From the view signing an input to painting the first frame it changed")
+    public static final class InputToPixel extends TurnEvent {
+    }
+
+
+    // Private Classes
+
+    // Tags: The per-thread state, see TAGS.
+    private static final class Tags {
+        private long session;
+        private int turn;
+        private int actor;
+        private InputToPixel pending;
+    }
+}
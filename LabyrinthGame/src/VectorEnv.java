@@ -0,0 +1,340 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/* Class - VectorEnv
+ *
+ *     A batched environment for training agents: steps any number of independent headless games (see GameState) at
+ *     once, and reports them in flat primitive arrays allocated up front. Games are split into contiguous slices,
+ *     each stepped on its own core; the calling thread steps the first slice itself. Stepping allocates nothing, and
+ *     neither does handing the slices to the worker threads; only dealing a new game allocates a few rooms.
+ *
+ *     Usage: VectorEnv [games] [steps] - times stepping 'games' games with random actions 'steps' times.
+ *
+ *     Every step, the current player of every game takes the action given for it (GameState.ACTION_*). A game that
+ *     ends is dealt anew at once: its done flag is set, its reward is that of the final step, and its observation
+ *     already shows the new game. The reward of a step is the change of GameState.reward() for the player that acted,
+ *     so the rewards of an episode add up to 1 for a win and 0 for a loss, less the shaping score it started with.
+ *
+ *     The observation of a game is OBSERVATION_SIZE bytes at game * OBSERVATION_SIZE, laid out as:
+ *         OBS_WALLS_VERTICAL, OBS_WALLS_HORIZONTAL: 1 where there is a wall, indexed y * EDGES_PER_ROW + x, the same
+ *             layout as GameState. Unrevealed walls are included; mask them with the revealed bits for fair play.
+ *         OBS_REVEALED_VERTICAL, OBS_REVEALED_HORIZONTAL: 1 where a wall has been revealed.
+ *         OBS_ACTORS: ACTOR_FIELDS bytes for each of MAX_ACTORS actors, the Foe first; seats nobody plays are zero.
+ *         OBS_CURRENT, OBS_MOVES_LEFT, OBS_FOE_AWAKE, OBS_BOARD_TREASURE: Whose turn it is (actor index), their moves
+ *             left, whether the Foe is awake, and whether the treasure is still in its room.
+ */
+public final class VectorEnv {
+    // Constants - Observation Layout
+
+    //    SIZE, EDGES_PER_ROW, EDGES: Board size, and wall slots per row and in all, of the standard board played on.
+    public static final int SIZE = GameBoard.SIZE;
+    public static final int EDGES_PER_ROW = SIZE + 1;
+    public static final int EDGES = EDGES_PER_ROW * EDGES_PER_ROW;
+
+    //    MAX_ACTORS: Actors an observation has room for: the Foe and two players.
+    public static final int MAX_ACTORS = 3;
+
+    //    ACTOR_*: Offsets of an actor's fields within its part of the observation. Player fields are zero for the Foe.
+    public static final int ACTOR_X = 0;
+    public static final int ACTOR_Y = 1;
+    public static final int ACTOR_HOME_X = 2;
+    public static final int ACTOR_HOME_Y = 3;
+    public static final int ACTOR_FATIGUE = 4;
+    public static final int ACTOR_INJURY = 5;
+    public static final int ACTOR_TREASURE = 6;
+    public static final int ACTOR_SAFE = 7;
+    public static final int ACTOR_ALIVE = 8;
+    public static final int ACTOR_FIELDS = 9;
+
+    //    OBS_*: Offsets of the parts of an observation, see above.
+    public static final int OBS_WALLS_VERTICAL = 0;
+    public static final int OBS_WALLS_HORIZONTAL = OBS_WALLS_VERTICAL + EDGES;
+    public static final int OBS_REVEALED_VERTICAL = OBS_WALLS_HORIZONTAL + EDGES;
+    public static final int OBS_REVEALED_HORIZONTAL = OBS_REVEALED_VERTICAL + EDGES;
+    public static final int OBS_ACTORS = OBS_REVEALED_HORIZONTAL + EDGES;
+    public static final int OBS_CURRENT = OBS_ACTORS + MAX_ACTORS * ACTOR_FIELDS;
+    public static final int OBS_MOVES_LEFT = OBS_CURRENT + 1;
+    public static final int OBS_FOE_AWAKE = OBS_MOVES_LEFT + 1;
+    public static final int OBS_BOARD_TREASURE = OBS_FOE_AWAKE + 1;
+
+    //    OBSERVATION_SIZE: Bytes per observation.
+    public static final int OBSERVATION_SIZE = OBS_BOARD_TREASURE + 1;
+
+
+    // Constants
+
+    //    DEFAULT_GAMES, DEFAULT_STEPS: What main() times without arguments.
+    private static final int DEFAULT_GAMES = 1024;
+    private static final int DEFAULT_STEPS = 2000;
+
+    //    NANOSECONDS: How many nanoseconds occur in a second.
+    private static final double NANOSECONDS = 1e9d;
+
+    //    GOLDEN_GAMMA: Odd constant the episode seeds are spread with, the same SplittableRandom uses.
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+
+    // Private Fields
+
+    //    gameCount: Number of games stepped together.
+    private final int gameCount;
+    public int getGameCount() { return gameCount; }
+
+    //    states, boards: Every game, and the board its next deal is generated on.
+    private final GameState[] states;
+    private final GameBoard[] boards;
+
+    //    seed, episodes: Base seed of every deal, and how many games have been dealt in each seat so far.
+    private final long seed;
+    private final long[] episodes;
+
+    //    observations, rewards, dones: What the last step or reset left, see above. Overwritten by the next one.
+    private final byte[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+    public byte[] getObservations() { return observations; }
+    public float[] getRewards() { return rewards; }
+    public boolean[] getDones() { return dones; }
+
+    //    actions: The actions of the step in progress.
+    private int[] actions;
+
+    //    workers, sliceStarts: The worker threads, and where the slice of every thread starts (slice 0 belongs to the
+    //    calling thread, so worker i steps slice i + 1); sliceStarts[slices] is gameCount.
+    private final Thread[] workers;
+    private final int[] sliceStarts;
+
+    //    [volatile] generation: Bumped for every step; workers step their slice once per generation.
+    private volatile int generation = 0;
+
+    //    [volatile] closed: Set by close(), to end the workers.
+    private volatile boolean closed = false;
+
+    //    pending: Workers yet to finish the step in progress.
+    private final AtomicInteger pending = new AtomicInteger();
+
+    //    [volatile] caller: The thread waiting for the step in progress.
+    private volatile Thread caller;
+
+    //    [volatile] failure: The first exception a worker ran into during the step in progress, rethrown by step().
+    private volatile RuntimeException failure;
+
+
+    // Constructor(int, int, Rules, long, int): Creates 'gameCount' games of 'players' players each (1 or 2), played by
+    //    'rules', stepped on 'threads' threads (the calling thread included), and dealt from 'seed'.
+    public VectorEnv(int gameCount, int players, Rules rules, long seed, int threads) {
+        if(players < 1 || players > MAX_ACTORS - 1) {
+            throw new IllegalArgumentException("Games are played by 1 or 2 players, not " + players + ".");
+        }
+
+        this.gameCount = gameCount;
+        this.seed = seed;
+        this.states = new GameState[gameCount];
+        this.boards = new GameBoard[gameCount];
+        this.episodes = new long[gameCount];
+        this.observations = new byte[gameCount * OBSERVATION_SIZE];
+        this.rewards = new float[gameCount];
+        this.dones = new boolean[gameCount];
+
+        for(int game = 0; game < gameCount; game++) {
+            states[game] = GameState.deal(rules, players, episodeSeed(game));
+            boards[game] = new GameBoard(seed);
+            ++episodes[game];
+            observe(game);
+        }
+
+        int slices = Math.max(1, Math.min(threads, gameCount));
+        sliceStarts = new int[slices + 1];
+        for(int slice = 0; slice <= slices; slice++) {
+            sliceStarts[slice] = (int)((long)gameCount * slice / slices);
+        }
+
+        workers = new Thread[slices - 1];
+        for(int i = 0; i < workers.length; i++) {
+            int slice = i + 1;
+            workers[i] = new Thread(() -> work(slice), "VectorEnv-" + slice);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+
+    // main: Times stepping games with random actions.
+    public static void main(String[] args) {
+        int games = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES);
+        int steps = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_STEPS);
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        VectorEnv env = new VectorEnv(games, 2, Rules.DEFAULT, 1, threads);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] actions = new int[games];
+        long episodes = 0;
+
+        // The first half warms up, the second half is timed.
+        long start = 0;
+        for(int step = 0; step < 2 * steps; step++) {
+            if(step == steps) {
+                start = System.nanoTime();
+                episodes = 0;
+            }
+
+            for(int game = 0; game < games; game++) {
+                actions[game] = random.nextInt(GameState.ACTION_COUNT);
+            }
+            env.step(actions);
+
+            for(boolean done : env.getDones()) {
+                episodes += (done ? 1 : 0);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / NANOSECONDS;
+
+        System.out.printf("%d games on %d threads: %.0f steps/s, %.0f episodes/s%n", games, threads,
+                (double)games * steps / seconds, episodes / seconds);
+        env.close();
+    }
+
+
+    // Public Methods
+
+    // step(int[]): Has the current player of every game take the action given for it; see above.
+    public void step(int[] actions) {
+        if(actions.length != gameCount) {
+            throw new IllegalArgumentException("Expected " + gameCount + " actions, got " + actions.length + ".");
+        }
+        for(int action : actions) {
+            if(action < 0 || action >= GameState.ACTION_COUNT) {
+                throw new IllegalArgumentException("Unknown action: " + action);
+            }
+        }
+
+        this.actions = actions;
+        failure = null;
+        caller = Thread.currentThread();
+        pending.set(workers.length);
+
+        // The volatile write hands the actions over to the workers.
+        ++generation;
+        for(Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+
+        stepSlice(0);
+        while(pending.get() > 0) {
+            LockSupport.park(this);
+        }
+
+        if(failure != null) {
+            throw new IllegalStateException("Stepping a game failed.", failure);
+        }
+    }
+
+    // close(): Ends the worker threads. The environment can't be stepped afterwards.
+    public void close() {
+        closed = true;
+        for(Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+
+    // Private Methods
+
+    // work(int): A worker thread's loop, stepping 'slice' once for every step until closed.
+    private void work(int slice) {
+        int done = 0;
+
+        while(true) {
+            while(generation == done) {
+                if(closed) {
+                    return;
+                }
+                LockSupport.park(this);
+            }
+            done = generation;
+
+            try {
+                stepSlice(slice);
+            } catch (RuntimeException exception) {
+                failure = exception;
+            }
+
+            if(pending.decrementAndGet() == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    // stepSlice(int): Steps the games of a slice.
+    private void stepSlice(int slice) {
+        for(int game = sliceStarts[slice]; game < sliceStarts[slice + 1]; game++) {
+            GameState state = states[game];
+            int actor = state.getCurrent();
+            double before = state.reward(actor);
+
+            state.step(actions[game]);
+
+            rewards[game] = (float)(state.reward(actor) - before);
+            dones[game] = state.isOver();
+            if(dones[game]) {
+                state.redeal(boards[game], episodeSeed(game));
+                ++episodes[game];
+            }
+            observe(game);
+        }
+    }
+
+    // episodeSeed(int): Seed of the next game dealt in a seat; every seat and episode gets its own.
+    private long episodeSeed(int game) {
+        long z = seed + (episodes[game] * gameCount + game + 1) * GOLDEN_GAMMA;
+
+        // The SplitMix64 finaliser, so that neighbouring seeds deal unrelated games.
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // observe(int): Writes the observation of a game.
+    private void observe(int game) {
+        GameState state = states[game];
+        int base = game * OBSERVATION_SIZE;
+
+        for(int cellY = 0; cellY < EDGES_PER_ROW; cellY++) {
+            for(int cellX = 0; cellX < EDGES_PER_ROW; cellX++) {
+                int index = base + cellY * EDGES_PER_ROW + cellX;
+
+                observations[index + OBS_WALLS_VERTICAL] = bit(state.getWall(cellX, cellY, true));
+                observations[index + OBS_WALLS_HORIZONTAL] = bit(state.getWall(cellX, cellY, false));
+                observations[index + OBS_REVEALED_VERTICAL] = bit(state.getRevealed(cellX, cellY, true));
+                observations[index + OBS_REVEALED_HORIZONTAL] = bit(state.getRevealed(cellX, cellY, false));
+            }
+        }
+
+        for(int actor = 0; actor < MAX_ACTORS; actor++) {
+            int index = base + OBS_ACTORS + actor * ACTOR_FIELDS;
+            boolean player = (actor > 0 && actor < state.getActorCount());
+
+            observations[index + ACTOR_X] = (byte)(actor < state.getActorCount() ? state.getX(actor) : 0);
+            observations[index + ACTOR_Y] = (byte)(actor < state.getActorCount() ? state.getY(actor) : 0);
+            observations[index + ACTOR_HOME_X] = (byte)(player ? state.getHomeX(actor) : 0);
+            observations[index + ACTOR_HOME_Y] = (byte)(player ? state.getHomeY(actor) : 0);
+            observations[index + ACTOR_FATIGUE] = (byte)(player ? state.getFatigue(actor) : 0);
+            observations[index + ACTOR_INJURY] = (byte)(player ? state.getInjury(actor) : 0);
+            observations[index + ACTOR_TREASURE] = bit(player && state.getTreasure(actor));
+            observations[index + ACTOR_SAFE] = bit(player && state.getHomeX(actor) == state.getX(actor)
+                    && state.getHomeY(actor) == state.getY(actor));
+            observations[index + ACTOR_ALIVE] = bit(player && state.isAlive(actor));
+        }
+
+        observations[base + OBS_CURRENT] = (byte)state.getCurrent();
+        observations[base + OBS_MOVES_LEFT] = (byte)state.getMovesLeft();
+        observations[base + OBS_FOE_AWAKE] = bit(state.getFoeAwake());
+        observations[base + OBS_BOARD_TREASURE] = bit(state.getBoardTreasure());
+    }
+
+    // bit(boolean): 1 or 0.
+    private static byte bit(boolean value) {
+        return (byte)(value ? 1 : 0);
+    }
+}
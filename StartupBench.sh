@@ -0,0 +1,35 @@
+#!/bin/bash
+
+# Times how long the game takes from process start to the first rendered board, with and without the
+# class-data-sharing archive Game.sh creates for "cds" launches. Runs in the terminal, so no display is needed.
+# Usage: StartupBench.sh [launches]
+LAUNCHES=${1:-10}
+JAR=out/labyrinth.jar
+ARCHIVE=out/labyrinth.jsa
+
+bash Build.sh || exit 1
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" terminal startup < /dev/null > /dev/null 2>&1
+
+# launch(options...): Prints the milliseconds one launch takes until its first board is rendered.
+launch() {
+    local start=$(date +%s%N)
+    java "$@" -jar "$JAR" terminal startup < /dev/null > /dev/null 2>&1
+    echo $(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+# median(numbers...): Prints the middle of the numbers.
+median() {
+    printf '%s\n' "$@" | sort -n | sed -n "$(( ($# + 1) / 2 ))p"
+}
+
+for mode in "without archive" "with archive"; do
+    times=()
+    for (( i = 0; i < LAUNCHES; i++ )); do
+        if [ "$mode" = "with archive" ]; then
+            times+=($(launch -XX:SharedArchiveFile="$ARCHIVE"))
+        else
+            times+=($(launch))
+        fi
+    done
+    echo "$mode: median $(median "${times[@]}") ms over $LAUNCHES launches (${times[*]})"
+done